@@ -20,6 +20,7 @@ import ddb.io.voxelnet.event.input.KeyEvent;
 import ddb.io.voxelnet.event.input.MouseEvent;
 import ddb.io.voxelnet.event.network.ConnectionStateChangeEvent;
 import ddb.io.voxelnet.fluid.Fluid;
+import ddb.io.voxelnet.network.packet.PooledPacket;
 import ddb.io.voxelnet.util.RaycastResult;
 import ddb.io.voxelnet.world.ChunkManager;
 import ddb.io.voxelnet.world.WorldSave;
@@ -626,6 +627,9 @@ public class Game {
 				case "port":
 					serverPort = Integer.parseInt(value);
 					break;
+				case "pool-packets":
+					PooledPacket.setPoolingEnabled(!value.equals("false"));
+					break;
 				default:
 					System.out.println("Unknown argument \"" + arg + "\"");
 			}
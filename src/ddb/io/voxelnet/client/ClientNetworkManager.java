@@ -5,6 +5,8 @@ import ddb.io.voxelnet.block.Block;
 import ddb.io.voxelnet.block.Blocks;
 import ddb.io.voxelnet.entity.EntityPlayer;
 import ddb.io.voxelnet.event.network.ConnectionStateChangeEvent;
+import ddb.io.voxelnet.network.MovementState;
+import ddb.io.voxelnet.network.MovementTracker;
 import ddb.io.voxelnet.network.NetworkManager;
 import ddb.io.voxelnet.network.packet.*;
 import ddb.io.voxelnet.util.EntityIDMap;
@@ -18,7 +20,10 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.util.ReferenceCountUtil;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -42,6 +47,12 @@ public class ClientNetworkManager implements NetworkManager
 	
 	EntityIDMap entityMap;
 	
+	// Movement last sent for the local player
+	private MovementTracker sentMovement;
+	private final MovementState playerMovement = new MovementState();
+	// Movement last received for the other players, by client id
+	private final Map<Integer, MovementTracker> receivedMovement = new HashMap<>();
+	
 	// The connection id for the client
 	private int clientID = -1;
 	
@@ -73,6 +84,11 @@ public class ClientNetworkManager implements NetworkManager
 		
 		// Initialize the entity id map
 		entityMap = new EntityIDMap();
+		sentMovement = new MovementTracker();
+		receivedMovement.clear();
+		
+		// Packet ids are checked as the registry is set up
+		PacketRegistry packetRegistry = PacketRegistry.CLIENT_BOUND;
 		
 		// Connect to the server
 		Bootstrap bootstrap = new Bootstrap();
@@ -85,7 +101,7 @@ public class ClientNetworkManager implements NetworkManager
 					{
 						ch.pipeline().addLast(new LengthFieldPrepender(2));
 						ch.pipeline().addLast(new LengthFieldBasedFrameDecoder(0xFFFF, 0, 2));
-						ch.pipeline().addLast(new PacketCodec());
+						ch.pipeline().addLast(new PacketCodec(packetRegistry));
 						ch.pipeline().addLast(new ClientChannelHandler(instance));
 					}
 				})
@@ -137,15 +153,29 @@ public class ClientNetworkManager implements NetworkManager
 		{
 			Packet packet = packetQueue.poll();
 			
-			this.processPacket(packet);
+			try
+			{
+				this.processPacket(packet);
+			}
+			finally
+			{
+				// Done with the packet, which puts pooled packets back into the pool
+				ReferenceCountUtil.release(packet);
+			}
 		}
 		
 		if (connectionState == ConnectionState.ESTABLISHED)
 		{
-			// Send position updates to the server
-			PCSPosRotUpdate posUpdate = new PCSPosRotUpdate(clientID, instance.player);
-			clientChannel.write(posUpdate);
-			clientChannel.flush();
+			// Send position updates to the server, if the player has moved
+			// The packet is released after it is encoded
+			playerMovement.set(instance.player);
+			PCSPosRotUpdate posUpdate = sentMovement.makeUpdate(clientID, playerMovement, false);
+			
+			if (posUpdate != null)
+			{
+				clientChannel.write(posUpdate);
+				clientChannel.flush();
+			}
 		}
 	}
 	
@@ -186,6 +216,7 @@ public class ClientNetworkManager implements NetworkManager
 	
 	/**
 	 * Adds a packet to the server send queue
+	 * The packet is released after it is sent
 	 * @param packet The packet to send to the server
 	 */
 	public void sendPacket(Packet packet)
@@ -228,20 +259,17 @@ public class ClientNetworkManager implements NetworkManager
 				return;
 			
 			EntityPlayer player = (EntityPlayer) entityMap.getEntity(posUpdate.clientID, EntityPlayer.class);
+			MovementTracker movement = receivedMovement.get(posUpdate.clientID);
 			
 			// If non-existant move on to the next packet
-			if (player == null)
+			if (player == null || movement == null)
 				return;
 			
-			player.setPos(posUpdate.xPos, posUpdate.yPos, posUpdate.zPos);
-			player.setVelocity(posUpdate.xVel, posUpdate.yVel, posUpdate.zVel);
-			player.setOrientation(posUpdate.pitch, posUpdate.yaw);
-			player.xAccel = posUpdate.xAccel;
-			player.zAccel = posUpdate.zAccel;
+			// Deltas sent before the player's first keyframe have nothing to build on
+			if (!movement.apply(posUpdate))
+				return;
 			
-			player.isFlying = posUpdate.isFlying;
-			player.isSneaking = posUpdate.isSneaking;
-			player.isSprinting = posUpdate.isSprinting;
+			movement.getState().applyTo(player);
 		}
 		else if (packet.getPacketID() == 2)
 		{
@@ -254,6 +282,7 @@ public class ClientNetworkManager implements NetworkManager
 			EntityPlayer player = new EntityPlayer();
 			world.addEntity(player);
 			entityMap.addExistingEntity(player, spawn.clientID);
+			receivedMovement.put(spawn.clientID, new MovementTracker());
 		}
 		else if (packet.getPacketID() == 3)
 		{
@@ -268,7 +297,10 @@ public class ClientNetworkManager implements NetworkManager
 			if (player == null)
 				return;
 			
+			// Players are also killed off when they go out of view, and come back with a new spawn
 			player.setDead();
+			entityMap.removeEntity(kill.clientID);
+			receivedMovement.remove(kill.clientID);
 		}
 		else if (packet.getPacketID() == 4)
 		{
@@ -320,5 +352,40 @@ public class ClientNetworkManager implements NetworkManager
 			block.onBlockBroken(world, lastHit.blockX, lastHit.blockY, lastHit.blockZ);
 			world.setBlock(lastHit.blockX, lastHit.blockY, lastHit.blockZ, Blocks.AIR);
 		}
+		else if (packet.getPacketID() == 8)
+		{
+			// SMultiBlockChange
+			// Bring the chunk in line with the server
+			PSMultiBlockChange blockChange = (PSMultiBlockChange)packet;
+			
+			// Columns that aren't loaded in can't take the changes, so make
+			// sure that they are fetched from the server again
+			if (!world.chunkManager.isColumnReady(blockChange.chunkX, blockChange.chunkZ))
+			{
+				((ClientChunkManager)world.chunkManager).invalidateColumn(blockChange.chunkX, blockChange.chunkZ);
+				return;
+			}
+			
+			int baseX = blockChange.chunkX << 4;
+			int baseY = blockChange.chunkY << 4;
+			int baseZ = blockChange.chunkZ << 4;
+			
+			for (int i = 0; i < blockChange.getChangeCount(); i++)
+			{
+				world.setBlock(
+						baseX + blockChange.getChangeX(i),
+						baseY + blockChange.getChangeY(i),
+						baseZ + blockChange.getChangeZ(i),
+						Block.idToBlock(blockChange.getChangeId(i)),
+						blockChange.getChangeMeta(i));
+			}
+		}
+		else if (packet.getPacketID() == 9)
+		{
+			// SChunkSection
+			// Load in the chunk, as part of the column being received
+			PSChunkSection section = (PSChunkSection)packet;
+			((ClientChunkManager)world.chunkManager).processNetSection(section);
+		}
 	}
 }
@@ -11,6 +11,9 @@ public class ClientWorld extends World
 {
 	// The radius of chunks to load into the chunk manager's cache
 	public static int loadRadius = 5;
+	// The radius of columns to keep in the chunk cache
+	// Past this, the server may stop sending changes to the columns
+	public static int cacheRadius = loadRadius + 2;
 	
 	// The client player
 	EntityPlayer clientPlayer;
@@ -64,6 +67,9 @@ public class ClientWorld extends World
 				chunkManager.markColumnForUnload(column);
 		}
 		
+		// Cached columns that are too far away may have missed changes
+		chunkManager.dropFromChunkCacheOutside(cxOrigin, czOrigin, cacheRadius);
+		
 		// Prune chunks every `pruneInterval` seconds
 		if (nextPruneTime < System.currentTimeMillis())
 		{
@@ -53,7 +53,9 @@ public class WorldRenderer
 		// Update existing chunks
 		for(Chunk chunk : world.chunkManager.loadedChunks.values())
 		{
-			if (chunk.isRecentlyLoaded() && !chunk.isPlaceholder())
+			// Only mesh chunks in columns that have finished generating
+			if (chunk.isRecentlyLoaded() && !chunk.isPlaceholder()
+				&& world.chunkManager.isColumnReady(chunk.chunkX, chunk.chunkZ))
 			{
 				// New chunk recently loaded
 				newChunks = true;
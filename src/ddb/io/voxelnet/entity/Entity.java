@@ -2,16 +2,23 @@ package ddb.io.voxelnet.entity;
 
 import ddb.io.voxelnet.block.Block;
 import ddb.io.voxelnet.block.Blocks;
+import ddb.io.voxelnet.serial.SeField;
+import ddb.io.voxelnet.serial.SeMapped;
 import ddb.io.voxelnet.util.AABBCollider;
 import ddb.io.voxelnet.world.World;
 
+@SeMapped
 public class Entity
 {
 	// The position of the entity
-	public float xPos, yPos, zPos;
+	@SeField(id = 0) public float xPos;
+	@SeField(id = 1) public float yPos;
+	@SeField(id = 2) public float zPos;
 	
 	// The velocity of the entity
-	public float xVel = 0.0f, yVel = 0.0f, zVel = 0.0f;
+	@SeField(id = 3) public float xVel = 0.0f;
+	@SeField(id = 4) public float yVel = 0.0f;
+	@SeField(id = 5) public float zVel = 0.0f;
 	
 	// The acceleration of the entity
 	public float xAccel = 0.0f, yAccel, zAccel = 0.0f;
@@ -22,16 +29,17 @@ public class Entity
 	public final float gravity = ((2.0f * 1.25f) / (0.35f * 0.35f));
 	
 	// The orientation of the entity
-	public float pitch = 0.0f, yaw = 0.0f;
+	@SeField(id = 6) public float pitch = 0.0f;
+	@SeField(id = 7) public float yaw = 0.0f;
 	
 	// Eye height of the entity
 	public final float eyeHeight = 1.45f;
 	
 	// If the entity is on the ground
-	public boolean onGround = false;
+	@SeField(id = 8) public boolean onGround = false;
 	
 	// If the entity is dead or not
-	public boolean isDead = false;
+	@SeField(id = 9) public boolean isDead = false;
 	
 	// If the entity will be removed from the world or not
 	public boolean isRemoved = false;
@@ -222,7 +222,7 @@ public class EntityPlayer extends Entity
 					// TODO: Broadcast place event on appropriate event bus
 					// TODO: Remove necessity for sending over the client id
 					ClientNetworkManager networkManager = Game.getInstance().getNetworkManager();
-					networkManager.sendPacket(new PCSBreakBlock(networkManager.getClientID(), lastHit));
+					networkManager.sendPacket(PCSBreakBlock.obtain(networkManager.getClientID(), lastHit));
 				}
 				
 				// Break the block, with the appropriate block callbacks being called
@@ -254,7 +254,7 @@ public class EntityPlayer extends Entity
 					// TODO: Broadcast place event on appropriate event bus
 					// TODO: Remove necessity for sending over the client id
 					ClientNetworkManager networkManager = Game.getInstance().getNetworkManager();
-					networkManager.sendPacket(new PCSPlaceBlock(networkManager.getClientID(), lastHit, placeBlock));
+					networkManager.sendPacket(PCSPlaceBlock.obtain(networkManager.getClientID(), lastHit, placeBlock));
 				}
 				
 				// If the block can't be placed, don't place it
@@ -0,0 +1,368 @@
+package ddb.io.voxelnet.entity;
+
+import ddb.io.voxelnet.serial.SeDataTypes;
+import ddb.io.voxelnet.serial.SeMapper;
+import ddb.io.voxelnet.serial.SeRecord;
+import ddb.io.voxelnet.serial.SeUtil;
+import ddb.io.voxelnet.serial.SeValue;
+import io.netty.buffer.ByteBuf;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Mapper for 'Entity's, generated by 'SeMapperGenerator'
+ * Don't edit this directly, regenerate it after changing the fields
+ *
+ * Fields:
+ * 0: xPos (float)
+ * 1: yPos (float)
+ * 2: zPos (float)
+ * 3: xVel (float)
+ * 4: yVel (float)
+ * 5: zVel (float)
+ * 6: pitch (float)
+ * 7: yaw (float)
+ * 8: onGround (boolean)
+ * 9: isDead (boolean)
+ */
+public final class EntitySeMapper implements SeMapper<Entity>
+{
+	public static final EntitySeMapper INSTANCE = new EntitySeMapper();
+	
+	private static final int FIELD_COUNT = 10;
+	// Size of the field count, and of all of the fields with a fixed size
+	private static final int FIXED_SIZE = Integer.BYTES
+			+ SeUtil.getFieldSize(0, Float.BYTES)
+			+ SeUtil.getFieldSize(1, Float.BYTES)
+			+ SeUtil.getFieldSize(2, Float.BYTES)
+			+ SeUtil.getFieldSize(3, Float.BYTES)
+			+ SeUtil.getFieldSize(4, Float.BYTES)
+			+ SeUtil.getFieldSize(5, Float.BYTES)
+			+ SeUtil.getFieldSize(6, Float.BYTES)
+			+ SeUtil.getFieldSize(7, Float.BYTES)
+			+ SeUtil.getFieldSize(8, 1)
+			+ SeUtil.getFieldSize(9, 1);
+	
+	private EntitySeMapper() {}
+	
+	@Override
+	public void writeTo(Entity value, DataOutputStream output) throws IOException
+	{
+		output.writeInt(FIELD_COUNT);
+		
+		// xPos
+		SeUtil.writeFieldHeader(0, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.xPos);
+		
+		// yPos
+		SeUtil.writeFieldHeader(1, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.yPos);
+		
+		// zPos
+		SeUtil.writeFieldHeader(2, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.zPos);
+		
+		// xVel
+		SeUtil.writeFieldHeader(3, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.xVel);
+		
+		// yVel
+		SeUtil.writeFieldHeader(4, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.yVel);
+		
+		// zVel
+		SeUtil.writeFieldHeader(5, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.zVel);
+		
+		// pitch
+		SeUtil.writeFieldHeader(6, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.pitch);
+		
+		// yaw
+		SeUtil.writeFieldHeader(7, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.yaw);
+		
+		// onGround
+		SeUtil.writeFieldHeader(8, 1, SeDataTypes.BOOLEAN, output);
+		output.writeBoolean(value.onGround);
+		
+		// isDead
+		SeUtil.writeFieldHeader(9, 1, SeDataTypes.BOOLEAN, output);
+		output.writeBoolean(value.isDead);
+	}
+	
+	@Override
+	public void readFrom(Entity value, DataInputStream input) throws IOException
+	{
+		int fieldCount = input.readInt();
+		
+		for (int i = 0; i < fieldCount; i++)
+		{
+			int id = SeUtil.readVarInt(input);
+			int skip = SeUtil.readVarInt(input);
+			int tag = Byte.toUnsignedInt(input.readByte());
+			
+			switch (id)
+			{
+				case 0: // xPos
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.xPos = input.readFloat();
+					continue;
+				case 1: // yPos
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.yPos = input.readFloat();
+					continue;
+				case 2: // zPos
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.zPos = input.readFloat();
+					continue;
+				case 3: // xVel
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.xVel = input.readFloat();
+					continue;
+				case 4: // yVel
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.yVel = input.readFloat();
+					continue;
+				case 5: // zVel
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.zVel = input.readFloat();
+					continue;
+				case 6: // pitch
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.pitch = input.readFloat();
+					continue;
+				case 7: // yaw
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.yaw = input.readFloat();
+					continue;
+				case 8: // onGround
+					if (tag != SeDataTypes.BOOLEAN.ordinal())
+						break;
+					
+					value.onGround = input.readBoolean();
+					continue;
+				case 9: // isDead
+					if (tag != SeDataTypes.BOOLEAN.ordinal())
+						break;
+					
+					value.isDead = input.readBoolean();
+					continue;
+				default:
+					break;
+			}
+			
+			// Skip over unknown fields, and ones with a different type
+			SeUtil.skipFully(input, skip - 1);
+		}
+	}
+	
+	@Override
+	public void writeTo(Entity value, ByteBuf output)
+	{
+		output.writeInt(FIELD_COUNT);
+		
+		// xPos
+		SeUtil.writeFieldHeader(0, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.xPos);
+		
+		// yPos
+		SeUtil.writeFieldHeader(1, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.yPos);
+		
+		// zPos
+		SeUtil.writeFieldHeader(2, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.zPos);
+		
+		// xVel
+		SeUtil.writeFieldHeader(3, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.xVel);
+		
+		// yVel
+		SeUtil.writeFieldHeader(4, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.yVel);
+		
+		// zVel
+		SeUtil.writeFieldHeader(5, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.zVel);
+		
+		// pitch
+		SeUtil.writeFieldHeader(6, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.pitch);
+		
+		// yaw
+		SeUtil.writeFieldHeader(7, Float.BYTES, SeDataTypes.FLOAT, output);
+		output.writeFloat(value.yaw);
+		
+		// onGround
+		SeUtil.writeFieldHeader(8, 1, SeDataTypes.BOOLEAN, output);
+		output.writeBoolean(value.onGround);
+		
+		// isDead
+		SeUtil.writeFieldHeader(9, 1, SeDataTypes.BOOLEAN, output);
+		output.writeBoolean(value.isDead);
+	}
+	
+	@Override
+	public void readFrom(Entity value, ByteBuf input) throws IOException
+	{
+		int fieldCount = input.readInt();
+		
+		for (int i = 0; i < fieldCount; i++)
+		{
+			int id = SeUtil.readVarInt(input);
+			int skip = SeUtil.readVarInt(input);
+			int tag = input.readUnsignedByte();
+			
+			switch (id)
+			{
+				case 0: // xPos
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.xPos = input.readFloat();
+					continue;
+				case 1: // yPos
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.yPos = input.readFloat();
+					continue;
+				case 2: // zPos
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.zPos = input.readFloat();
+					continue;
+				case 3: // xVel
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.xVel = input.readFloat();
+					continue;
+				case 4: // yVel
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.yVel = input.readFloat();
+					continue;
+				case 5: // zVel
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.zVel = input.readFloat();
+					continue;
+				case 6: // pitch
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.pitch = input.readFloat();
+					continue;
+				case 7: // yaw
+					if (tag != SeDataTypes.FLOAT.ordinal())
+						break;
+					
+					value.yaw = input.readFloat();
+					continue;
+				case 8: // onGround
+					if (tag != SeDataTypes.BOOLEAN.ordinal())
+						break;
+					
+					value.onGround = input.readBoolean();
+					continue;
+				case 9: // isDead
+					if (tag != SeDataTypes.BOOLEAN.ordinal())
+						break;
+					
+					value.isDead = input.readBoolean();
+					continue;
+				default:
+					break;
+			}
+			
+			// Skip over unknown fields, and ones with a different type
+			input.skipBytes(skip - 1);
+		}
+	}
+	
+	@Override
+	public void readFrom(Entity value, SeRecord record) throws IOException
+	{
+		SeValue field;
+		
+		// xPos
+		field = record.getValue(0);
+		if (field.getSerializeType() == SeDataTypes.FLOAT)
+			value.xPos = field.asFloat();
+		
+		// yPos
+		field = record.getValue(1);
+		if (field.getSerializeType() == SeDataTypes.FLOAT)
+			value.yPos = field.asFloat();
+		
+		// zPos
+		field = record.getValue(2);
+		if (field.getSerializeType() == SeDataTypes.FLOAT)
+			value.zPos = field.asFloat();
+		
+		// xVel
+		field = record.getValue(3);
+		if (field.getSerializeType() == SeDataTypes.FLOAT)
+			value.xVel = field.asFloat();
+		
+		// yVel
+		field = record.getValue(4);
+		if (field.getSerializeType() == SeDataTypes.FLOAT)
+			value.yVel = field.asFloat();
+		
+		// zVel
+		field = record.getValue(5);
+		if (field.getSerializeType() == SeDataTypes.FLOAT)
+			value.zVel = field.asFloat();
+		
+		// pitch
+		field = record.getValue(6);
+		if (field.getSerializeType() == SeDataTypes.FLOAT)
+			value.pitch = field.asFloat();
+		
+		// yaw
+		field = record.getValue(7);
+		if (field.getSerializeType() == SeDataTypes.FLOAT)
+			value.yaw = field.asFloat();
+		
+		// onGround
+		field = record.getValue(8);
+		if (field.getSerializeType() == SeDataTypes.BOOLEAN)
+			value.onGround = field.asBoolean();
+		
+		// isDead
+		field = record.getValue(9);
+		if (field.getSerializeType() == SeDataTypes.BOOLEAN)
+			value.isDead = field.asBoolean();
+	}
+	
+	@Override
+	public int getComputedSize(Entity value)
+	{
+		int size = FIXED_SIZE;
+		return size;
+	}
+}
@@ -0,0 +1,74 @@
+package ddb.io.voxelnet.network;
+
+import ddb.io.voxelnet.entity.EntityPlayer;
+
+/**
+ * The movement state of a player, as it is sent over the network
+ */
+public class MovementState
+{
+	// Position
+	public float xPos;
+	public float yPos;
+	public float zPos;
+	
+	// Velocity
+	public float xVel;
+	public float yVel;
+	public float zVel;
+	
+	// Horizontal Acceleration
+	public float xAccel;
+	public float zAccel;
+	
+	// Rotation
+	public float pitch;
+	public float yaw;
+	
+	// Player status
+	public boolean isFlying;
+	public boolean isSprinting;
+	public boolean isSneaking;
+	
+	/**
+	 * Takes the movement state from a player
+	 * @param player The player to take the state from
+	 */
+	public void set(EntityPlayer player)
+	{
+		this.xPos = player.xPos;
+		this.yPos = player.yPos;
+		this.zPos = player.zPos;
+		
+		this.xVel = player.xVel;
+		this.yVel = player.yVel;
+		this.zVel = player.zVel;
+		
+		this.xAccel = player.xAccel;
+		this.zAccel = player.zAccel;
+		
+		this.pitch = player.pitch;
+		this.yaw = player.yaw;
+		
+		this.isFlying = player.isFlying;
+		this.isSprinting = player.isSprinting;
+		this.isSneaking = player.isSneaking;
+	}
+	
+	/**
+	 * Puts the movement state onto a player
+	 * @param player The player to update
+	 */
+	public void applyTo(EntityPlayer player)
+	{
+		player.setPos(xPos, yPos, zPos);
+		player.setVelocity(xVel, yVel, zVel);
+		player.setOrientation(pitch, yaw);
+		player.xAccel = xAccel;
+		player.zAccel = zAccel;
+		
+		player.isFlying = isFlying;
+		player.isSprinting = isSprinting;
+		player.isSneaking = isSneaking;
+	}
+}
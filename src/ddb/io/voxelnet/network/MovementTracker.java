@@ -0,0 +1,217 @@
+package ddb.io.voxelnet.network;
+
+import ddb.io.voxelnet.network.packet.PCSPosRotUpdate;
+
+/**
+ * Keeps track of the last movement state of a player that was sent to (or
+ * received from) the other side, so that movement updates only have to
+ * carry what has changed since then
+ *
+ * Positions are sent as fixed-point deltas from the last state, angles as
+ * single bytes, and the velocities & accelerations as fixed-point shorts.
+ * The sending side keeps the state the same way as the receiving side
+ * rebuilds it (i.e. after the rounding), so the rounding errors never add up.
+ *
+ * Connections are over TCP, so updates always arrive in order and the last
+ * sent state is always the one that the other side has. A keyframe with the
+ * exact position is still sent every so often to resync, as well as
+ * whenever the position changes by too much for a delta
+ */
+public class MovementTracker
+{
+	// Fixed-point scale of the position deltas (1/32 of a block)
+	public static final float POSITION_SCALE = 32f;
+	// Fixed-point scale of the velocities & accelerations (1/256 of a block per second)
+	public static final float MOTION_SCALE = 256f;
+	// Scale of the angles (256 steps in a full turn)
+	public static final float ANGLE_SCALE = 256f / 360f;
+	// Number of updates (sent or skipped) between keyframes
+	public static final int KEYFRAME_INTERVAL = 50;
+	
+	// Last state sent or received
+	private final MovementState state = new MovementState();
+	// Whether or not a keyframe has been sent or received yet
+	private boolean hasState = false;
+	private int updatesSinceKeyframe = 0;
+	
+	/**
+	 * Makes the update to send for the current movement state
+	 * The tracked state is moved along to what the other side will have once
+	 * it gets the update
+	 * @param clientID The client that the player belongs to
+	 * @param current The current movement state of the player
+	 * @param forceKeyframe True if the full state has to be sent
+	 * @return The update to send, or null if nothing has changed
+	 */
+	public PCSPosRotUpdate makeUpdate(int clientID, MovementState current, boolean forceKeyframe)
+	{
+		boolean isKeyframe = forceKeyframe || !hasState || ++updatesSinceKeyframe >= KEYFRAME_INTERVAL;
+		
+		int xDelta = Math.round((current.xPos - state.xPos) * POSITION_SCALE);
+		int yDelta = Math.round((current.yPos - state.yPos) * POSITION_SCALE);
+		int zDelta = Math.round((current.zPos - state.zPos) * POSITION_SCALE);
+		
+		// Moved too far for a delta
+		if (!fitsInByte(xDelta) || !fitsInByte(yDelta) || !fitsInByte(zDelta))
+			isKeyframe = true;
+		
+		byte pitch = packAngle(current.pitch);
+		byte yaw = packAngle(current.yaw);
+		short xVel = packMotion(current.xVel);
+		short yVel = packMotion(current.yVel);
+		short zVel = packMotion(current.zVel);
+		short xAccel = packMotion(current.xAccel);
+		short zAccel = packMotion(current.zAccel);
+		
+		int flags = getStatusFlags(current);
+		
+		if (isKeyframe)
+		{
+			flags |= PCSPosRotUpdate.KEYFRAME | PCSPosRotUpdate.POSITION | PCSPosRotUpdate.ROTATION
+					| PCSPosRotUpdate.VELOCITY | PCSPosRotUpdate.ACCELERATION;
+		}
+		else
+		{
+			if (xDelta != 0 || yDelta != 0 || zDelta != 0)
+				flags |= PCSPosRotUpdate.POSITION;
+			if (pitch != packAngle(state.pitch) || yaw != packAngle(state.yaw))
+				flags |= PCSPosRotUpdate.ROTATION;
+			if (xVel != packMotion(state.xVel) || yVel != packMotion(state.yVel) || zVel != packMotion(state.zVel))
+				flags |= PCSPosRotUpdate.VELOCITY;
+			if (xAccel != packMotion(state.xAccel) || zAccel != packMotion(state.zAccel))
+				flags |= PCSPosRotUpdate.ACCELERATION;
+			
+			// Skip the update if nothing changed
+			if (flags == getStatusFlags(state))
+				return null;
+		}
+		
+		PCSPosRotUpdate packet = PCSPosRotUpdate.obtain();
+		packet.clientID = clientID;
+		packet.flags = flags;
+		
+		packet.xPos = current.xPos;
+		packet.yPos = current.yPos;
+		packet.zPos = current.zPos;
+		packet.xDelta = (byte) xDelta;
+		packet.yDelta = (byte) yDelta;
+		packet.zDelta = (byte) zDelta;
+		
+		packet.pitch = pitch;
+		packet.yaw = yaw;
+		packet.xVel = xVel;
+		packet.yVel = yVel;
+		packet.zVel = zVel;
+		packet.xAccel = xAccel;
+		packet.zAccel = zAccel;
+		
+		// Move along the same way as the other side will
+		apply(packet);
+		return packet;
+	}
+	
+	/**
+	 * Applies a received update onto the tracked state
+	 * @param packet The update to apply
+	 * @return True if the update was applied, or false if it is a delta
+	 *         without a keyframe to build on
+	 */
+	public boolean apply(PCSPosRotUpdate packet)
+	{
+		int flags = packet.flags;
+		
+		if ((flags & PCSPosRotUpdate.KEYFRAME) != 0)
+		{
+			state.xPos = packet.xPos;
+			state.yPos = packet.yPos;
+			state.zPos = packet.zPos;
+			
+			hasState = true;
+			updatesSinceKeyframe = 0;
+		}
+		else if (!hasState)
+		{
+			return false;
+		}
+		else if ((flags & PCSPosRotUpdate.POSITION) != 0)
+		{
+			state.xPos += packet.xDelta / POSITION_SCALE;
+			state.yPos += packet.yDelta / POSITION_SCALE;
+			state.zPos += packet.zDelta / POSITION_SCALE;
+		}
+		
+		if ((flags & PCSPosRotUpdate.ROTATION) != 0)
+		{
+			state.pitch = packet.pitch / ANGLE_SCALE;
+			state.yaw = packet.yaw / ANGLE_SCALE;
+		}
+		
+		if ((flags & PCSPosRotUpdate.VELOCITY) != 0)
+		{
+			state.xVel = packet.xVel / MOTION_SCALE;
+			state.yVel = packet.yVel / MOTION_SCALE;
+			state.zVel = packet.zVel / MOTION_SCALE;
+		}
+		
+		if ((flags & PCSPosRotUpdate.ACCELERATION) != 0)
+		{
+			state.xAccel = packet.xAccel / MOTION_SCALE;
+			state.zAccel = packet.zAccel / MOTION_SCALE;
+		}
+		
+		state.isFlying = (flags & PCSPosRotUpdate.FLYING) != 0;
+		state.isSprinting = (flags & PCSPosRotUpdate.SPRINTING) != 0;
+		state.isSneaking = (flags & PCSPosRotUpdate.SNEAKING) != 0;
+		
+		return true;
+	}
+	
+	/**
+	 * Checks if a keyframe has been sent or received yet
+	 * @return True if there is a state to build on
+	 */
+	public boolean hasState()
+	{
+		return hasState;
+	}
+	
+	/**
+	 * Gets the last state sent or received
+	 * @return The tracked state
+	 */
+	public MovementState getState()
+	{
+		return state;
+	}
+	
+	private static int getStatusFlags(MovementState state)
+	{
+		int flags = 0;
+		
+		if (state.isFlying)
+			flags |= PCSPosRotUpdate.FLYING;
+		if (state.isSprinting)
+			flags |= PCSPosRotUpdate.SPRINTING;
+		if (state.isSneaking)
+			flags |= PCSPosRotUpdate.SNEAKING;
+		
+		return flags;
+	}
+	
+	private static boolean fitsInByte(int value)
+	{
+		return value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE;
+	}
+	
+	// Angles wrap around, so only the low bits are kept
+	private static byte packAngle(float angle)
+	{
+		return (byte) Math.round(angle * ANGLE_SCALE);
+	}
+	
+	private static short packMotion(float value)
+	{
+		int packed = Math.round(value * MOTION_SCALE);
+		return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, packed));
+	}
+}
@@ -0,0 +1,61 @@
+package ddb.io.voxelnet.network.packet;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Cache of encoded data for chunks & columns, so that the same data doesn't
+ * get compressed again for every client that it is sent to
+ *
+ * Entries are tagged with the change count of the source when they were
+ * made, and are only handed back while the count still matches up.
+ * Sources are weakly held, so entries go away along with unloaded chunks
+ *
+ * @param <K> The type of the source of the data
+ */
+class CompressedDataCache<K>
+{
+	private final Map<K, Entry> entries = Collections.synchronizedMap(new WeakHashMap<>());
+	
+	/**
+	 * Gets the cached data for the source
+	 * @param source The source of the data
+	 * @param changeCount The current change count of the source
+	 * @return The cached data, or null if there is none or it is stale
+	 */
+	byte[] get(K source, int changeCount)
+	{
+		Entry entry = entries.get(source);
+		
+		if (entry == null || entry.changeCount != changeCount)
+			return null;
+		
+		return entry.data;
+	}
+	
+	/**
+	 * Caches the data for the source
+	 * The change count must be taken before reading the source's data, so
+	 * that changes made while encoding leave the entry stale
+	 * @param source The source of the data
+	 * @param changeCount The change count of the source before the data was read
+	 * @param data The encoded data
+	 */
+	void put(K source, int changeCount, byte[] data)
+	{
+		entries.put(source, new Entry(changeCount, data));
+	}
+	
+	private static class Entry
+	{
+		final int changeCount;
+		final byte[] data;
+		
+		Entry(int changeCount, byte[] data)
+		{
+			this.changeCount = changeCount;
+			this.data = data;
+		}
+	}
+}
@@ -16,13 +16,6 @@ public class PCLoadChunkColumn implements Packet
 		this.columnZ = z;
 	}
 	
-	@SuppressWarnings("unused")
-	@Override
-	public Packet makeEmptyPacket()
-	{
-		return new PCLoadChunkColumn();
-	}
-	
 	@Override
 	public void decodePayload(ByteBuf data)
 	{
@@ -3,32 +3,62 @@ package ddb.io.voxelnet.network.packet;
 import ddb.io.voxelnet.util.Facing;
 import ddb.io.voxelnet.util.RaycastResult;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
 
-public class PCSBreakBlock implements Packet
+public class PCSBreakBlock extends PooledPacket
 {
+	private static final Recycler<PCSBreakBlock> RECYCLER = new Recycler<PCSBreakBlock>()
+	{
+		@Override
+		protected PCSBreakBlock newObject(Handle<PCSBreakBlock> handle)
+		{
+			return new PCSBreakBlock(handle);
+		}
+	};
+	
 	public int clientID;
-	public RaycastResult hitResult;
+	// Copied in, so that the sender's hit result can change while the packet is queued
+	public final RaycastResult hitResult = new RaycastResult();
 	
 	PCSBreakBlock() {}
 	
+	private PCSBreakBlock(Recycler.Handle<PCSBreakBlock> handle)
+	{
+		super(handle);
+	}
+	
 	public PCSBreakBlock(int clientID, RaycastResult hitResult)
 	{
 		this.clientID = clientID;
-		this.hitResult = hitResult;
+		this.hitResult.set(hitResult);
 	}
 	
-	@SuppressWarnings("unused")
-	@Override
-	public Packet makeEmptyPacket()
+	/**
+	 * Gets an empty packet to decode into, from the pool if pooling is enabled
+	 * @return An empty packet
+	 */
+	public static PCSBreakBlock obtain()
 	{
-		return new PCSPlaceBlock();
+		return isPoolingEnabled() ? RECYCLER.get() : new PCSBreakBlock();
+	}
+	
+	/**
+	 * Gets a packet to send, from the pool if pooling is enabled
+	 * @param clientID The client breaking the block
+	 * @param hitResult The hit result of the break
+	 * @return The filled in packet
+	 */
+	public static PCSBreakBlock obtain(int clientID, RaycastResult hitResult)
+	{
+		PCSBreakBlock packet = obtain();
+		packet.clientID = clientID;
+		packet.hitResult.set(hitResult);
+		return packet;
 	}
 	
 	@Override
 	public void decodePayload(ByteBuf data) throws Exception
 	{
-		hitResult = new RaycastResult();
-		
 		clientID = data.readInt();
 		
 		hitResult.hitX = data.readDouble();
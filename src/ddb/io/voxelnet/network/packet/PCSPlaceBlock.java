@@ -4,34 +4,66 @@ import ddb.io.voxelnet.block.Block;
 import ddb.io.voxelnet.util.Facing;
 import ddb.io.voxelnet.util.RaycastResult;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
 
-public class PCSPlaceBlock implements Packet
+public class PCSPlaceBlock extends PooledPacket
 {
+	private static final Recycler<PCSPlaceBlock> RECYCLER = new Recycler<PCSPlaceBlock>()
+	{
+		@Override
+		protected PCSPlaceBlock newObject(Handle<PCSPlaceBlock> handle)
+		{
+			return new PCSPlaceBlock(handle);
+		}
+	};
+	
 	public int clientID;
-	public RaycastResult hitResult;
+	// Copied in, so that the sender's hit result can change while the packet is queued
+	public final RaycastResult hitResult = new RaycastResult();
 	public Block placingBlock;
 	
 	PCSPlaceBlock() {}
 	
+	private PCSPlaceBlock(Recycler.Handle<PCSPlaceBlock> handle)
+	{
+		super(handle);
+	}
+	
 	public PCSPlaceBlock(int clientID, RaycastResult hitResult, Block placeBlock)
 	{
 		this.clientID = clientID;
-		this.hitResult = hitResult;
+		this.hitResult.set(hitResult);
 		this.placingBlock = placeBlock;
 	}
 	
-	@SuppressWarnings("unused")
-	@Override
-	public Packet makeEmptyPacket()
+	/**
+	 * Gets an empty packet to decode into, from the pool if pooling is enabled
+	 * @return An empty packet
+	 */
+	public static PCSPlaceBlock obtain()
 	{
-		return new PCSPlaceBlock();
+		return isPoolingEnabled() ? RECYCLER.get() : new PCSPlaceBlock();
+	}
+	
+	/**
+	 * Gets a packet to send, from the pool if pooling is enabled
+	 * @param clientID The client placing the block
+	 * @param hitResult The hit result of the placement
+	 * @param placeBlock The block being placed
+	 * @return The filled in packet
+	 */
+	public static PCSPlaceBlock obtain(int clientID, RaycastResult hitResult, Block placeBlock)
+	{
+		PCSPlaceBlock packet = obtain();
+		packet.clientID = clientID;
+		packet.hitResult.set(hitResult);
+		packet.placingBlock = placeBlock;
+		return packet;
 	}
 	
 	@Override
 	public void decodePayload(ByteBuf data) throws Exception
 	{
-		hitResult = new RaycastResult();
-		
 		clientID = data.readInt();
 		
 		hitResult.hitX = data.readDouble();
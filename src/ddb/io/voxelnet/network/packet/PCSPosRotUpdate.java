@@ -1,133 +1,160 @@
 package ddb.io.voxelnet.network.packet;
 
-import ddb.io.voxelnet.entity.EntityPlayer;
+import ddb.io.voxelnet.serial.SeUtil;
 import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
 
-public class PCSPosRotUpdate implements Packet
+/**
+ * Movement update for a player, holding only what changed since the last update
+ *
+ * Updates are made & applied by a MovementTracker, which is also where the
+ * fixed-point scales of the fields are
+ */
+public class PCSPosRotUpdate extends PooledPacket
 {
+	private static final Recycler<PCSPosRotUpdate> RECYCLER = new Recycler<PCSPosRotUpdate>()
+	{
+		@Override
+		protected PCSPosRotUpdate newObject(Handle<PCSPosRotUpdate> handle)
+		{
+			return new PCSPosRotUpdate(handle);
+		}
+	};
+	
+	// Flags for what is in the update
+	// Position is absolute instead of a delta
+	public static final int KEYFRAME     = 1 << 0;
+	public static final int POSITION     = 1 << 1;
+	public static final int ROTATION     = 1 << 2;
+	public static final int VELOCITY     = 1 << 3;
+	public static final int ACCELERATION = 1 << 4;
+	// Player status, sent in every update
+	public static final int FLYING       = 1 << 5;
+	public static final int SPRINTING    = 1 << 6;
+	public static final int SNEAKING     = 1 << 7;
+	
 	public int clientID;
+	public int flags;
+	
+	// Absolute position (keyframes only)
 	public float xPos;
 	public float yPos;
 	public float zPos;
-	public float xVel;
-	public float yVel;
-	public float zVel;
-	public float xAccel;
-	public float zAccel;
-	public float pitch;
-	public float yaw;
 	
-	// Player status
-	public boolean isFlying;
-	public boolean isSprinting;
-	public boolean isSneaking;
+	// Position change since the last update
+	public byte xDelta;
+	public byte yDelta;
+	public byte zDelta;
 	
-	PCSPosRotUpdate() {}
+	// Rotation
+	public byte pitch;
+	public byte yaw;
 	
-	public PCSPosRotUpdate(int clientID, EntityPlayer entity)
-	{
-		this(clientID,
-				entity.xPos, entity.yPos, entity.zPos,
-				entity.xVel, entity.yVel, entity.zVel,
-				entity.xAccel, entity.zAccel,
-				entity.pitch, entity.yaw,
-				entity.isFlying, entity.isSprinting, entity.isSneaking);
-	}
+	// Velocity
+	public short xVel;
+	public short yVel;
+	public short zVel;
+	
+	// Horizontal Acceleration
+	public short xAccel;
+	public short zAccel;
+	
+	PCSPosRotUpdate() {}
 	
-	public PCSPosRotUpdate(int clientID,
-	                       float xPos, float yPos, float zPos,
-	                       float xVel, float yVel, float zVel,
-	                       float xAccel, float zAccel,
-	                       float pitch, float yaw,
-	                       boolean isFlying, boolean isSprinting, boolean isSneaking)
+	private PCSPosRotUpdate(Recycler.Handle<PCSPosRotUpdate> handle)
 	{
-		this.clientID = clientID;
-		
-		// Position
-		this.xPos = xPos;
-		this.yPos = yPos;
-		this.zPos = zPos;
-		
-		// Velocity
-		this.xVel = xVel;
-		this.yVel = yVel;
-		this.zVel = zVel;
-		
-		// Horizontal Acceleration
-		this.xAccel = xAccel;
-		this.zAccel = zAccel;
-		
-		// Rotation
-		this.pitch = pitch;
-		this.yaw = yaw;
-		
-		// Player status
-		this.isFlying = isFlying;
-		this.isSneaking = isSneaking;
-		this.isSprinting = isSprinting;
+		super(handle);
 	}
 	
-	@SuppressWarnings("unused")
-	@Override
-	public Packet makeEmptyPacket()
+	/**
+	 * Gets an empty packet, from the pool if pooling is enabled
+	 * @return An empty packet
+	 */
+	public static PCSPosRotUpdate obtain()
 	{
-		return new PCSPosRotUpdate();
+		return isPoolingEnabled() ? RECYCLER.get() : new PCSPosRotUpdate();
 	}
 	
 	@Override
 	public void decodePayload(ByteBuf data)
 	{
-		this.clientID = data.readInt();
+		// ClientID (1-5, varint) | Flags (1, ub) |
+		// Keyframe ? Position (12, 3f) : Position Delta (3, 3b) |
+		// Rotation (2, 2b) | Velocity (6, 3s) | Acceleration (4, 2s)
+		// (each part only there if flagged)
+		this.clientID = SeUtil.readVarInt(data);
+		this.flags = data.readUnsignedByte();
 		
-		// Position
-		this.xPos     = data.readFloat();
-		this.yPos     = data.readFloat();
-		this.zPos     = data.readFloat();
+		if ((flags & KEYFRAME) != 0)
+		{
+			this.xPos = data.readFloat();
+			this.yPos = data.readFloat();
+			this.zPos = data.readFloat();
+		}
+		else if ((flags & POSITION) != 0)
+		{
+			this.xDelta = data.readByte();
+			this.yDelta = data.readByte();
+			this.zDelta = data.readByte();
+		}
 		
-		// Velocity
-		this.xVel     = data.readFloat();
-		this.yVel     = data.readFloat();
-		this.zVel     = data.readFloat();
+		if ((flags & ROTATION) != 0)
+		{
+			this.pitch = data.readByte();
+			this.yaw = data.readByte();
+		}
 		
-		// Acceleration
-		this.xAccel   = data.readFloat();
-		this.zAccel   = data.readFloat();
+		if ((flags & VELOCITY) != 0)
+		{
+			this.xVel = data.readShort();
+			this.yVel = data.readShort();
+			this.zVel = data.readShort();
+		}
 		
-		// Rotation
-		this.pitch    = data.readFloat();
-		this.yaw      = data.readFloat();
-		
-		this.isFlying = data.readBoolean();
-		this.isSneaking = data.readBoolean();
-		this.isSprinting = data.readBoolean();
+		if ((flags & ACCELERATION) != 0)
+		{
+			this.xAccel = data.readShort();
+			this.zAccel = data.readShort();
+		}
 	}
 	
 	@Override
 	public void encodePayload(ByteBuf data)
 	{
-		data.writeInt(clientID);
-		
-		// Position
-		data.writeFloat(xPos);
-		data.writeFloat(yPos);
-		data.writeFloat(zPos);
+		SeUtil.writeVarInt(clientID, data);
+		data.writeByte(flags);
 		
-		// Velocity
-		data.writeFloat(xVel);
-		data.writeFloat(yVel);
-		data.writeFloat(zVel);
+		if ((flags & KEYFRAME) != 0)
+		{
+			data.writeFloat(xPos);
+			data.writeFloat(yPos);
+			data.writeFloat(zPos);
+		}
+		else if ((flags & POSITION) != 0)
+		{
+			data.writeByte(xDelta);
+			data.writeByte(yDelta);
+			data.writeByte(zDelta);
+		}
 		
-		// Acceleration
-		data.writeFloat(xAccel);
-		data.writeFloat(zAccel);
+		if ((flags & ROTATION) != 0)
+		{
+			data.writeByte(pitch);
+			data.writeByte(yaw);
+		}
 		
-		// Rotation
-		data.writeFloat(pitch);
-		data.writeFloat(yaw);
+		if ((flags & VELOCITY) != 0)
+		{
+			data.writeShort(xVel);
+			data.writeShort(yVel);
+			data.writeShort(zVel);
+		}
 		
-		data.writeBoolean(isFlying);
-		data.writeBoolean(isSneaking);
-		data.writeBoolean(isSprinting);
+		if ((flags & ACCELERATION) != 0)
+		{
+			data.writeShort(xAccel);
+			data.writeShort(zAccel);
+		}
 	}
 	
 	@Override
@@ -1,65 +1,42 @@
 package ddb.io.voxelnet.network.packet;
 
-import ddb.io.voxelnet.world.Chunk;
 import ddb.io.voxelnet.world.ChunkColumn;
-import ddb.io.voxelnet.world.World;
 import io.netty.buffer.ByteBuf;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.zip.*;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * The column data of a chunk column, followed by a PSChunkSection for each
+ * of the chunks in the column
+ */
 public class PSChunkData implements Packet
 {
-	private static final int UNCOMPRESSED_CHUNK_SIZE = Chunk.BLOCK_DATA_SIZE + Chunk.LIGHT_DATA_SIZE + Chunk.META_DATA_SIZE;
+	// Encoded columns, shared between all of the clients that they're sent to
+	private static final CompressedDataCache<ChunkColumn> COLUMN_CACHE = new CompressedDataCache<>();
 	
 	public int chunkX;
 	public int chunkZ;
 	public ChunkColumn column;
-	public final List<Chunk> chunkList = new ArrayList<>();
+	// Number of chunk sections following this packet
+	public int chunkCount;
 	
 	PSChunkData() {}
 	
-	public PSChunkData(int chunkX, int chunkZ, ChunkColumn column)
+	public PSChunkData(int chunkX, int chunkZ, ChunkColumn column, int chunkCount)
 	{
 		this.chunkX = chunkX;
 		this.chunkZ = chunkZ;
 		this.column = column;
+		this.chunkCount = chunkCount;
 	}
 	
-	@SuppressWarnings("unused")
 	@Override
-	public Packet makeEmptyPacket()
-	{
-		return new PSChunkData();
-	}
-	
-	/**
-	 * Adds a chunk to be set with this packet
-	 * Must be within the same chunk column as the packet
-	 * @param chunk The chunk to be sent with this packet
-	 */
-	public void addChunk(Chunk chunk)
-	{
-		chunkList.add(chunk);
-	}
-	
-	/**
-	 * Sets the world for all of the chunks
-	 * Must be done before the chunks can be processed
-	 * @param world The new world for all of the chunks
-	 */
-	public void setWorld(World world)
-	{
-		chunkList.forEach((chunk) -> chunk.world = world);
-	}
-	
-	@Override
-	@SuppressWarnings("ResultOfMethodCallIgnored")
-	public void decodePayload(ByteBuf data) throws IOException, DataFormatException
+	public void decodePayload(ByteBuf data) throws IOException
 	{
 		// Decode the chunk data
 		
@@ -75,7 +52,6 @@ public class PSChunkData implements Packet
 		// Compressed Column Data:
 		// OpaqueColumns (1*size, b) |
 		
-		int chunkCount;
 		int decompressedSize;
 		byte[] compressedColData;
 		byte[] deflatedData;
@@ -100,74 +76,7 @@ public class PSChunkData implements Packet
 		
 		column = new ChunkColumn(chunkX, chunkZ, deflatedData);
 		
-		// Variable Block:
-		// 1 Chunk segment:
-		// ChunkY     (4, i)        | Tick-able Count (2, us)   | Tick-ables (4*size, i) |
-		// CompressedLength (2, us) | CompressedData (1*size,b) |
-		
-		// Compressed Chunk Data:
-		// BlockData[] (1*size, b) | Lighting[] (1*size, b)  | BlockMeta[] (1*size, b) |
-		
-		// Decompressed chunk data
-		final byte[] decompressedData = new byte[UNCOMPRESSED_CHUNK_SIZE];
-		
-		// "Chunk.deserialize" clones the data, so buffers can be shared
-		final byte[] blockData = new byte[Chunk.BLOCK_DATA_SIZE];
-		final byte[] lightData = new byte[Chunk.LIGHT_DATA_SIZE];
-		final byte[] metaData  = new byte[Chunk.META_DATA_SIZE];
-		
-		Inflater chunkInflater = new Inflater();
-		ByteArrayInputStream chunkData = new ByteArrayInputStream(decompressedData);
-		
-		for (int i = 0; i < chunkCount; i++)
-		{
-			// Decode chunk data
-			int chunkY;
-			int tickableCount;
-			int compressedLen;
-			int[] tickables;
-			byte[] compressedData;
-			
-			Chunk chunk;
-			
-			// Read in chunk position & info
-			chunkY = data.readInt();
-			
-			// Setup tickables
-			tickableCount = data.readUnsignedShort();
-			tickables = new int[tickableCount];
-			
-			// Load the tickables
-			for (int j = 0; j < tickableCount; j++)
-				tickables[j] = data.readInt();
-			
-			// Read in the compressed data
-			compressedLen = data.readUnsignedShort();
-			compressedData = new byte[compressedLen];
-			data.readBytes(compressedData, 0, compressedLen);
-			
-			// Uncompress the data
-			chunkInflater.setInput(compressedData);
-			decompressedSize = chunkInflater.inflate(decompressedData);
-			chunkInflater.reset();
-			
-			// Done working with the compressed data, now de-aggregating chunk data
-			chunkData.read(blockData);
-			chunkData.read(lightData);
-			chunkData.read(metaData);
-			chunkData.reset();
-			
-			assert decompressedSize == UNCOMPRESSED_CHUNK_SIZE
-					: "Mismatch in chunk decompression count! (" + chunkX + "," + chunkY + ", " + chunkZ + ")"
-					+ "[" + decompressedSize + " != " + UNCOMPRESSED_CHUNK_SIZE + "]";
-			
-			chunk = new Chunk(null, chunkX, chunkY, chunkZ);
-			chunk.deserialize(blockData, lightData, metaData, tickables);
-			chunkList.add(chunk);
-		}
-		
-		chunkInflater.end();
-		chunkData.close();
+		// The chunks follow in their own packets
 	}
 	
 	@Override
@@ -188,72 +97,42 @@ public class PSChunkData implements Packet
 		// Compressed Column Data:
 		// OpaqueColumns (1*size, b) |
 		
-		// Variable Block:
-		// 1 Chunk segment:
-		// ChunkY     (4, i)        | Tick-able Count (2, us)   | Tick-ables (4*size, i) |
-		// CompressedLength (2, us) | CompressedData (1*size,b) |
-		
-		// Compressed Chunk Data:
-		// BlockData[] (1*size, b) | Lighting[] (1*size, b)  | BlockMeta[] (1*size, b) |
+		// The chunks follow in their own packets (see PSChunkSection)
 		
 		data.writeInt(chunkX);
 		data.writeInt(chunkZ);
-		data.writeByte(chunkList.size());
+		data.writeByte(chunkCount);
+		
+		// Chunk column data
+		data.writeBytes(encodeColumn(column));
+	}
+	
+	// Gets the compressed column data, along with the length
+	private static byte[] encodeColumn(ChunkColumn column) throws IOException
+	{
+		// Taken first, so that changes made while compressing make the entry stale
+		int changeCount = column.getChangeCount();
+		byte[] encoded = COLUMN_CACHE.get(column, changeCount);
+		
+		if (encoded != null)
+			return encoded;
 		
 		// Compress the column data
 		// May throw IOExceptions
-		ByteArrayOutputStream aggregator = new ByteArrayOutputStream(UNCOMPRESSED_CHUNK_SIZE);
+		ByteArrayOutputStream aggregator = new ByteArrayOutputStream(ChunkColumn.COLUMNS_SIZE);
 		GZIPOutputStream columnCompressor = new GZIPOutputStream(aggregator);
 		columnCompressor.write(column.getOpaqueColumnData());
 		columnCompressor.flush();
 		columnCompressor.close();
 		
-		// Chunk column data
 		byte[] colData = aggregator.toByteArray();
-		data.writeShort(colData.length);
-		data.writeBytes(colData);
-		aggregator.reset();
-		
-		// Working buffers
-		final byte[] deflateBuffer = new byte[UNCOMPRESSED_CHUNK_SIZE * 2];
-		
-		// Compressor
-		Deflater chunkCompressor = new Deflater(Deflater.BEST_SPEED);
-		
-		// Variable block start:
-		for (Chunk chunk : chunkList)
-		{
-			data.writeInt(chunk.chunkY);
-			
-			// Do the tickables
-			int tickableCount = chunk.tickables.size();
-			data.writeShort(tickableCount);
-			for (int tickable : chunk.tickables)
-				data.writeInt(tickable);
-			
-			// Aggregate the arrays
-			aggregator.write(chunk.getData());
-			aggregator.write(chunk.getLightData());
-			aggregator.write(chunk.getMetaData());
-			aggregator.flush();
-			byte[] aggregateData = aggregator.toByteArray();
-			
-			// Compress the chunk data
-			chunkCompressor.setInput(aggregateData);
-			chunkCompressor.finish();
-			int compressSize = chunkCompressor.deflate(deflateBuffer);
-			chunkCompressor.reset();
-			
-			// Add the compressed data to the packet
-			data.writeShort(compressSize);
-			data.writeBytes(deflateBuffer, 0, compressSize);
-			
-			// Reset for next chunk
-			aggregator.reset();
-		}
+		encoded = ByteBuffer.allocate(Short.BYTES + colData.length)
+				.putShort((short) colData.length)
+				.put(colData)
+				.array();
 		
-		aggregator.close();
-		chunkCompressor.end();
+		COLUMN_CACHE.put(column, changeCount, encoded);
+		return encoded;
 	}
 	
 	@Override
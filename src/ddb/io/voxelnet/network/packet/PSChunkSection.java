@@ -0,0 +1,175 @@
+package ddb.io.voxelnet.network.packet;
+
+import ddb.io.voxelnet.util.DeflaterPool;
+import ddb.io.voxelnet.world.Chunk;
+import ddb.io.voxelnet.world.World;
+import io.netty.buffer.ByteBuf;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A single chunk of a chunk column, sent after the column's PSChunkData
+ *
+ * Columns are sent as one packet per chunk so that no packet gets anywhere
+ * near the frame size limit, no matter how badly the chunks compress, and
+ * so that each chunk is decoded as soon as it arrives
+ */
+public class PSChunkSection implements Packet
+{
+	private static final int UNCOMPRESSED_CHUNK_SIZE = Chunk.BLOCK_DATA_SIZE + Chunk.LIGHT_DATA_SIZE + Chunk.META_DATA_SIZE;
+	
+	// Encoded chunks, shared between all of the clients that they're sent to
+	private static final CompressedDataCache<Chunk> CHUNK_CACHE = new CompressedDataCache<>();
+	// Deflaters shared between the encoding threads
+	private static final DeflaterPool DEFLATERS = new DeflaterPool(Deflater.BEST_SPEED, Runtime.getRuntime().availableProcessors() * 2);
+	
+	// Position of the column that the chunk is in
+	public int chunkX;
+	public int chunkZ;
+	public Chunk chunk;
+	
+	PSChunkSection() {}
+	
+	public PSChunkSection(Chunk chunk)
+	{
+		this.chunkX = chunk.chunkX;
+		this.chunkZ = chunk.chunkZ;
+		this.chunk = chunk;
+	}
+	
+	/**
+	 * Sets the world for the chunk
+	 * Must be done before the chunk can be processed
+	 * @param world The new world for the chunk
+	 */
+	public void setWorld(World world)
+	{
+		chunk.world = world;
+	}
+	
+	@Override
+	public void decodePayload(ByteBuf data) throws DataFormatException
+	{
+		// ChunkX (4, i) | ChunkZ (4, i) |
+		// ChunkY     (4, i)        | Tick-able Count (2, us)   | Tick-ables (4*size, i) |
+		// CompressedLength (2, us) | CompressedData (1*size,b) |
+		
+		// Compressed Chunk Data:
+		// BlockData[] (1*size, b) | Lighting[] (1*size, b)  | BlockMeta[] (1*size, b) |
+		chunkX = data.readInt();
+		chunkZ = data.readInt();
+		int chunkY = data.readInt();
+		
+		// Load the tickables
+		int tickableCount = data.readUnsignedShort();
+		int[] tickables = new int[tickableCount];
+		
+		for (int i = 0; i < tickableCount; i++)
+			tickables[i] = data.readInt();
+		
+		// Read in the compressed data
+		int compressedLen = data.readUnsignedShort();
+		byte[] compressedData = new byte[compressedLen];
+		data.readBytes(compressedData);
+		
+		// Uncompress the data
+		final byte[] decompressedData = new byte[UNCOMPRESSED_CHUNK_SIZE];
+		Inflater chunkInflater = new Inflater();
+		int decompressedSize;
+		
+		try
+		{
+			chunkInflater.setInput(compressedData);
+			decompressedSize = chunkInflater.inflate(decompressedData);
+		}
+		finally
+		{
+			chunkInflater.end();
+		}
+		
+		assert decompressedSize == UNCOMPRESSED_CHUNK_SIZE
+				: "Mismatch in chunk decompression count! (" + chunkX + "," + chunkY + ", " + chunkZ + ")"
+				+ "[" + decompressedSize + " != " + UNCOMPRESSED_CHUNK_SIZE + "]";
+		
+		// De-aggregate the chunk data ("Chunk.deserialize" clones the data)
+		final byte[] blockData = new byte[Chunk.BLOCK_DATA_SIZE];
+		final byte[] lightData = new byte[Chunk.LIGHT_DATA_SIZE];
+		final byte[] metaData  = new byte[Chunk.META_DATA_SIZE];
+		
+		ByteArrayInputStream chunkData = new ByteArrayInputStream(decompressedData);
+		chunkData.read(blockData, 0, blockData.length);
+		chunkData.read(lightData, 0, lightData.length);
+		chunkData.read(metaData, 0, metaData.length);
+		
+		chunk = new Chunk(null, chunkX, chunkY, chunkZ);
+		chunk.deserialize(blockData, lightData, metaData, tickables);
+	}
+	
+	@Override
+	public void encodePayload(ByteBuf data)
+	{
+		data.writeInt(chunkX);
+		data.writeInt(chunkZ);
+		data.writeBytes(encodeChunk(chunk));
+	}
+	
+	// Gets the whole chunk segment, with the chunk data compressed
+	private static byte[] encodeChunk(Chunk chunk)
+	{
+		// Taken first, so that changes made while compressing make the entry stale
+		int changeCount = chunk.getChangeCount();
+		byte[] encoded = CHUNK_CACHE.get(chunk, changeCount);
+		
+		if (encoded != null)
+			return encoded;
+		
+		// Aggregate the arrays
+		byte[] aggregateData = new byte[UNCOMPRESSED_CHUNK_SIZE];
+		System.arraycopy(chunk.getData(), 0, aggregateData, 0, Chunk.BLOCK_DATA_SIZE);
+		System.arraycopy(chunk.getLightData(), 0, aggregateData, Chunk.BLOCK_DATA_SIZE, Chunk.LIGHT_DATA_SIZE);
+		System.arraycopy(chunk.getMetaData(), 0, aggregateData, Chunk.BLOCK_DATA_SIZE + Chunk.LIGHT_DATA_SIZE, Chunk.META_DATA_SIZE);
+		Integer[] tickables = chunk.tickables.toArray(new Integer[0]);
+		
+		// Compress the chunk data
+		final byte[] deflateBuffer = new byte[UNCOMPRESSED_CHUNK_SIZE * 2];
+		Deflater chunkCompressor = DEFLATERS.obtain();
+		int compressSize;
+		
+		try
+		{
+			chunkCompressor.setInput(aggregateData);
+			chunkCompressor.finish();
+			compressSize = chunkCompressor.deflate(deflateBuffer);
+		}
+		finally
+		{
+			DEFLATERS.release(chunkCompressor);
+		}
+		
+		ByteBuffer segment = ByteBuffer.allocate(Integer.BYTES + Short.BYTES + tickables.length * Integer.BYTES + Short.BYTES + compressSize);
+		segment.putInt(chunk.chunkY);
+		
+		// Do the tickables
+		segment.putShort((short) tickables.length);
+		for (int tickable : tickables)
+			segment.putInt(tickable);
+		
+		// Add the compressed data to the segment
+		segment.putShort((short) compressSize);
+		segment.put(deflateBuffer, 0, compressSize);
+		
+		encoded = segment.array();
+		CHUNK_CACHE.put(chunk, changeCount, encoded);
+		return encoded;
+	}
+	
+	@Override
+	public int getPacketID()
+	{
+		return 9;
+	}
+}
@@ -13,13 +13,6 @@ public class PSEstablishConnection implements Packet
 		this.clientID = clientID;
 	}
 	
-	@SuppressWarnings("unused")
-	@Override
-	public Packet makeEmptyPacket()
-	{
-		return new PSEstablishConnection();
-	}
-	
 	@Override
 	public void decodePayload(ByteBuf data)
 	{
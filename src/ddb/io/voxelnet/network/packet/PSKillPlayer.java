@@ -13,13 +13,6 @@ public class PSKillPlayer implements Packet
 		this.clientID = clientID;
 	}
 	
-	@SuppressWarnings("unused")
-	@Override
-	public Packet makeEmptyPacket()
-	{
-		return new PSKillPlayer();
-	}
-	
 	@Override
 	public void decodePayload(ByteBuf data)
 	{
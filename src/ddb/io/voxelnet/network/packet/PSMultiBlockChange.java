@@ -0,0 +1,127 @@
+package ddb.io.voxelnet.network.packet;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+
+/**
+ * All of the block changes made to a single chunk during a tick
+ */
+public class PSMultiBlockChange implements Packet
+{
+	// Most changes that can be in a chunk
+	public static final int MAX_CHANGES = 16 * 16 * 16;
+	
+	// Position of the changed chunk (in chunk coordinates)
+	public int chunkX;
+	public int chunkY;
+	public int chunkZ;
+	
+	// Packed position inside of the chunk for each change, as (y << 8) | (z << 4) | x
+	private short[] positions;
+	// Packed block state for each change, as (id << 4) | meta
+	private short[] states;
+	private int changeCount = 0;
+	
+	PSMultiBlockChange() {}
+	
+	/**
+	 * Creates a new multi-block change packet
+	 * @param chunkX The x position of the changed chunk
+	 * @param chunkY The y position of the changed chunk
+	 * @param chunkZ The z position of the changed chunk
+	 * @param expectedChanges The number of changes that are going to be added
+	 */
+	public PSMultiBlockChange(int chunkX, int chunkY, int chunkZ, int expectedChanges)
+	{
+		this.chunkX = chunkX;
+		this.chunkY = chunkY;
+		this.chunkZ = chunkZ;
+		this.positions = new short[expectedChanges];
+		this.states = new short[expectedChanges];
+	}
+	
+	/**
+	 * Adds a block change to the packet
+	 * @param x The x position inside of the chunk
+	 * @param y The y position inside of the chunk
+	 * @param z The z position inside of the chunk
+	 * @param id The id of the new block
+	 * @param meta The metadata of the new block
+	 */
+	public void addChange(int x, int y, int z, int id, int meta)
+	{
+		if (changeCount == positions.length)
+		{
+			positions = Arrays.copyOf(positions, Math.max(changeCount * 2, 1));
+			states = Arrays.copyOf(states, Math.max(changeCount * 2, 1));
+		}
+		
+		positions[changeCount] = (short) (((y & 0xF) << 8) | ((z & 0xF) << 4) | (x & 0xF));
+		states[changeCount] = (short) (((id & 0xFF) << 4) | (meta & 0xF));
+		changeCount++;
+	}
+	
+	/**
+	 * Gets the number of block changes in the packet
+	 * @return The number of changes
+	 */
+	public int getChangeCount()
+	{
+		return changeCount;
+	}
+	
+	public int getChangeX(int index) { return positions[index] & 0xF; }
+	
+	public int getChangeY(int index) { return (positions[index] >> 8) & 0xF; }
+	
+	public int getChangeZ(int index) { return (positions[index] >> 4) & 0xF; }
+	
+	public int getChangeId(int index) { return (states[index] >> 4) & 0xFF; }
+	
+	public int getChangeMeta(int index) { return states[index] & 0xF; }
+	
+	@Override
+	public void decodePayload(ByteBuf data)
+	{
+		// ChunkX (4, i) | ChunkY (4, i) | ChunkZ (4, i) | ChangeCount (2, us) |
+		// Changes: Position (2, us) | State (2, us)
+		chunkX = data.readInt();
+		chunkY = data.readInt();
+		chunkZ = data.readInt();
+		changeCount = data.readUnsignedShort();
+		
+		if (changeCount > MAX_CHANGES)
+			throw new IllegalArgumentException("Too many block changes (" + changeCount + ")");
+		
+		positions = new short[changeCount];
+		states = new short[changeCount];
+		
+		for (int i = 0; i < changeCount; i++)
+		{
+			positions[i] = data.readShort();
+			states[i] = data.readShort();
+		}
+	}
+	
+	@Override
+	public void encodePayload(ByteBuf data)
+	{
+		data.writeInt(chunkX);
+		data.writeInt(chunkY);
+		data.writeInt(chunkZ);
+		data.writeShort(changeCount);
+		
+		for (int i = 0; i < changeCount; i++)
+		{
+			data.writeShort(positions[i]);
+			data.writeShort(states[i]);
+		}
+	}
+	
+	@Override
+	public int getPacketID()
+	{
+		return 8;
+	}
+}
@@ -8,13 +8,6 @@ public class PSSpawnPlayer implements Packet
 	
 	PSSpawnPlayer() {}
 	
-	@SuppressWarnings("unused")
-	@Override
-	public Packet makeEmptyPacket()
-	{
-		return new PSSpawnPlayer();
-	}
-	
 	public PSSpawnPlayer(int clientID)
 	{
 		this.clientID = clientID;
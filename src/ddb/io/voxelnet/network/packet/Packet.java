@@ -7,14 +7,6 @@ import io.netty.buffer.ByteBuf;
  */
 public interface Packet
 {
-	/**
-	 * Creates a new, empty packet.
-	 * Not called anywhere, but is used to guarantee that an empty constructor
-	 * is present
-	 */
-	@SuppressWarnings("unused")
-	Packet makeEmptyPacket();
-	
 	/**
 	 * Decodes the packet payload from the given buffer
 	 * @param data The payload data
@@ -1,44 +1,32 @@
 package ddb.io.voxelnet.network.packet;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageCodec;
 
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 public class PacketCodec extends ByteToMessageCodec<Packet>
 {
-	// TODO: Create PacketRegistry
-	private static final Map<Integer, Class<? extends Packet>> idToPacket = new LinkedHashMap<>();
+	// Packets that can be received on this side of the connection
+	private final PacketRegistry registry;
 	
-	static
+	/**
+	 * Creates a new packet codec
+	 * @param registry The registry of packets that can be received
+	 */
+	public PacketCodec(PacketRegistry registry)
 	{
-		idToPacket.put(0, PSEstablishConnection.class);
-		idToPacket.put(1, PCSPosRotUpdate.class);
-		idToPacket.put(2, PSSpawnPlayer.class);
-		idToPacket.put(3, PSKillPlayer.class);
-		idToPacket.put(4, PSChunkData.class);
-		idToPacket.put(5, PCSPlaceBlock.class);
-		idToPacket.put(6, PCSBreakBlock.class);
-		idToPacket.put(7, PCLoadChunkColumn.class);
+		this.registry = registry;
 	}
 	
 	@Override
 	protected void encode(ChannelHandlerContext ctx, Packet msg, ByteBuf out) throws Exception
 	{
-		// Convert the msg to a byte stream
-		// Length (2B) | PacketID (2B) | Payload
-		// Length:   Main Packet Length (2+), excludes packet length bytes
-		// PacketID: NumID of the packet
-		// Payload:  Packet data
-		// Length is already handled by LengthFieldPrepender
-		out.writeShort(msg.getPacketID()); // Packet ID
-		
 		try
 		{
-			msg.encodePayload(out);
+			writePacket(msg, out);
 		}
 		catch (Exception e)
 		{
@@ -47,6 +35,45 @@ public class PacketCodec extends ByteToMessageCodec<Packet>
 		}
 	}
 	
+	/**
+	 * Encodes a packet ahead of time, so that the same data can be written to
+	 * many channels
+	 * Encoded packets are passed through the codec as-is, and only get the
+	 * length added on
+	 * @param alloc The allocator to get the buffer from
+	 * @param packet The packet to encode
+	 * @return The encoded packet, which must be released once done with
+	 * @throws Exception If the packet can't be encoded
+	 */
+	public static ByteBuf encodePacket(ByteBufAllocator alloc, Packet packet) throws Exception
+	{
+		ByteBuf out = alloc.ioBuffer();
+		
+		try
+		{
+			writePacket(packet, out);
+		}
+		catch (Exception e)
+		{
+			out.release();
+			throw e;
+		}
+		
+		return out;
+	}
+	
+	private static void writePacket(Packet packet, ByteBuf out) throws Exception
+	{
+		// Convert the msg to a byte stream
+		// Length (2B) | PacketID (2B) | Payload
+		// Length:   Main Packet Length (2+), excludes packet length bytes
+		// PacketID: NumID of the packet
+		// Payload:  Packet data
+		// Length is already handled by LengthFieldPrepender
+		out.writeShort(packet.getPacketID()); // Packet ID
+		packet.encodePayload(out);
+	}
+	
 	@Override
 	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception
 	{
@@ -62,12 +89,10 @@ public class PacketCodec extends ByteToMessageCodec<Packet>
 		
 		// Create the appropriate packet
 		int packetID = in.readShort();
-		Class<? extends Packet> packetInstance = idToPacket.get(packetID);
-		Packet packet;
+		Packet packet = registry.createPacket(packetID);
 		
-		if (packetInstance == null)
-			throw new IllegalArgumentException("Unknown PacketID " + packetID);
-		packet = packetInstance.newInstance();
+		if (packet == null)
+			throw new IllegalArgumentException("Unknown " + registry.getName() + " PacketID " + packetID);
 		
 		packet.decodePayload(in);
 		out.add(packet);
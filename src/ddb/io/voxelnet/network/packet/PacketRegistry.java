@@ -0,0 +1,113 @@
+package ddb.io.voxelnet.network.packet;
+
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Mapping between packet ids and the packets that they create, for a single
+ * direction of travel
+ *
+ * Ids are checked when the registries are first set up, so a duplicate or
+ * mismatched id fails right at startup instead of on the first bad packet
+ */
+public class PacketRegistry
+{
+	// Largest id that a packet can have
+	public static final int MAX_PACKET_ID = 0xFF;
+	
+	// Packets that are sent from the server to the client
+	public static final PacketRegistry CLIENT_BOUND = new PacketRegistry("client-bound");
+	// Packets that are sent from the client to the server
+	public static final PacketRegistry SERVER_BOUND = new PacketRegistry("server-bound");
+	
+	static
+	{
+		CLIENT_BOUND.register(0, PSEstablishConnection::new);
+		CLIENT_BOUND.register(1, PCSPosRotUpdate::obtain);
+		CLIENT_BOUND.register(2, PSSpawnPlayer::new);
+		CLIENT_BOUND.register(3, PSKillPlayer::new);
+		CLIENT_BOUND.register(4, PSChunkData::new);
+		CLIENT_BOUND.register(5, PCSPlaceBlock::obtain);
+		CLIENT_BOUND.register(6, PCSBreakBlock::obtain);
+		CLIENT_BOUND.register(8, PSMultiBlockChange::new);
+		CLIENT_BOUND.register(9, PSChunkSection::new);
+		
+		SERVER_BOUND.register(1, PCSPosRotUpdate::obtain);
+		SERVER_BOUND.register(5, PCSPlaceBlock::obtain);
+		SERVER_BOUND.register(6, PCSBreakBlock::obtain);
+		SERVER_BOUND.register(7, PCLoadChunkColumn::new);
+	}
+	
+	private final String name;
+	// Packet factories, indexed by id
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Supplier<? extends Packet>[] factories = new Supplier[0];
+	
+	private PacketRegistry(String name)
+	{
+		this.name = name;
+	}
+	
+	/**
+	 * Registers a packet with the given id
+	 * @param id The id of the packet
+	 * @param factory Creates new (or pooled), empty packets to decode into
+	 * @throws IllegalStateException If the id is already taken, or doesn't match the packet's id
+	 */
+	private void register(int id, Supplier<? extends Packet> factory)
+	{
+		if (id < 0 || id > MAX_PACKET_ID)
+			throw new IllegalStateException("Packet id " + id + " is out of range in the " + name + " registry");
+		
+		if (id < factories.length && factories[id] != null)
+			throw new IllegalStateException("Packet id " + id + " is registered twice in the " + name + " registry");
+		
+		// The encoded id comes from the packet itself, so it has to match up
+		Packet probe = factory.get();
+		int packetID = probe.getPacketID();
+		ReferenceCountUtil.release(probe);
+		
+		if (packetID != id)
+			throw new IllegalStateException("Packet registered as id " + id + " has id " + packetID + " in the " + name + " registry");
+		
+		if (id >= factories.length)
+			factories = Arrays.copyOf(factories, id + 1);
+		
+		factories[id] = factory;
+	}
+	
+	/**
+	 * Creates a new, empty packet to decode the payload into
+	 * Pooled packets have to be released once they are done with
+	 * @param id The id of the packet to create
+	 * @return The new packet, or null if there is no packet with that id
+	 */
+	public Packet createPacket(int id)
+	{
+		if (id < 0 || id >= factories.length || factories[id] == null)
+			return null;
+		
+		return factories[id].get();
+	}
+	
+	/**
+	 * Checks if there is a packet with the given id
+	 * @param id The id of the packet
+	 * @return True if the packet id is registered
+	 */
+	public boolean isRegistered(int id)
+	{
+		return id >= 0 && id < factories.length && factories[id] != null;
+	}
+	
+	/**
+	 * Gets the name of the registry's direction
+	 * @return The name of the registry
+	 */
+	public String getName()
+	{
+		return name;
+	}
+}
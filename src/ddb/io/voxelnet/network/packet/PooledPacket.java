@@ -0,0 +1,79 @@
+package ddb.io.voxelnet.network.packet;
+
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.Recycler;
+
+/**
+ * A packet that is put back into a pool once everything is done with it
+ *
+ * Pooled packets are reference counted. The codec releases a packet after it
+ * has been encoded, and the network managers release a received packet after
+ * it has been processed, so anything holding onto a packet past that point
+ * has to retain it first.
+ *
+ * Pooling is opt-in. While it is disabled, 'obtain' hands out new packets
+ * which are left for the garbage collector, same as any other packet
+ */
+public abstract class PooledPacket extends AbstractReferenceCounted implements Packet
+{
+	// Whether or not packets are taken from the pools
+	private static volatile boolean poolingEnabled = false;
+	
+	// Handle to give the packet back to the pool, or null if not pooled
+	private final Recycler.Handle<PooledPacket> handle;
+	
+	/**
+	 * Creates a packet that isn't part of a pool
+	 */
+	protected PooledPacket()
+	{
+		this(null);
+	}
+	
+	/**
+	 * Creates a packet that is part of a pool
+	 * @param handle The handle to give the packet back to the pool
+	 */
+	@SuppressWarnings("unchecked")
+	protected PooledPacket(Recycler.Handle<? extends PooledPacket> handle)
+	{
+		this.handle = (Recycler.Handle<PooledPacket>) handle;
+	}
+	
+	/**
+	 * Enables or disables taking packets from the pools
+	 * Packets that are already out of the pools are still given back
+	 * @param enabled True to pool packets
+	 */
+	public static void setPoolingEnabled(boolean enabled)
+	{
+		poolingEnabled = enabled;
+	}
+	
+	/**
+	 * Checks if packets are taken from the pools
+	 * @return True if packets are pooled
+	 */
+	public static boolean isPoolingEnabled()
+	{
+		return poolingEnabled;
+	}
+	
+	@Override
+	protected final void deallocate()
+	{
+		if (handle == null)
+			return;
+		
+		// Ready for the next user, as that may be on another thread as soon as
+		// the packet is back in the pool
+		setRefCnt(1);
+		handle.recycle(this);
+	}
+	
+	@Override
+	public PooledPacket touch(Object hint)
+	{
+		return this;
+	}
+}
@@ -1,5 +1,7 @@
 package ddb.io.voxelnet.serial;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -24,6 +26,21 @@ public interface ISerialize
 	 */
 	boolean deserializeFrom(DataInputStream input) throws IOException;
 	
+	/**
+	 * Serializes the object straight into the buffer
+	 * @param output The buffer to serialize to
+	 * @throws IOException If any errors occur during serialization
+	 */
+	void serializeTo(ByteBuf output) throws IOException;
+	
+	/**
+	 * Deserializes the object's data straight out of the buffer
+	 * @param input The buffer to deserialize from
+	 * @return True if deserialization was successful
+	 * @throws IOException If any errors occur during deserialization
+	 */
+	boolean deserializeFrom(ByteBuf input) throws IOException;
+	
 	/**
 	 * Compute the size of the serialized data block
 	 * @return The computed size
@@ -1,5 +1,7 @@
 package ddb.io.voxelnet.serial;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -31,6 +33,19 @@ public abstract class SeArrayValue extends SeValue
 		return true;
 	}
 	
+	@Override
+	public void serializeTo(ByteBuf output)
+	{
+		output.writeInt(length);
+	}
+	
+	@Override
+	public boolean deserializeFrom(ByteBuf input)
+	{
+		this.length = input.readInt();
+		return true;
+	}
+	
 	@Override
 	public int getComputedSize()
 	{
@@ -1,5 +1,7 @@
 package ddb.io.voxelnet.serial;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -9,20 +11,11 @@ import java.util.Map;
 /**
  * Group of named serializable values
  */
-public class SeBlock implements ISerialize
+public class SeBlock extends SeContainer
 {
 	// Map of values
 	private final Map<String, SeValue> valueMap = new LinkedHashMap<>();
 	
-	// Whether or not the block is being serialized
-	// Used to prevent loops in the serialization tree
-	// XXX: Make atomic if deserializing with multithreading
-	private boolean isSerializing = false;
-	
-	// Whether or not the block is having the size recomputed
-	// Used to prevent loops in the serialization tree
-	private boolean isComputingSize = false;
-	
 	public SeBlock() {}
 	
 	// *--* Primitive values *--* //
@@ -259,6 +252,20 @@ public class SeBlock implements ISerialize
 		addValue(name, new SeWrapperValue<>(value));
 	}
 	
+	/**
+	 * Sets a new value in the block, written out by the object's mapper
+	 * If there is a value with the existing name, it will overwrite that value
+	 *
+	 * @param name The name of the value
+	 * @param value The object to map
+	 * @param mapper The mapper for the object's type
+	 * @param <T> The type of the mapped object
+	 */
+	public <T> void setValue(String name, T value, SeMapper<T> mapper)
+	{
+		addValue(name, new SeMappedValue<>(value, mapper));
+	}
+	
 	
 	/**
 	 * Gets a value in the block
@@ -274,7 +281,8 @@ public class SeBlock implements ISerialize
 	// Adds a value to the map
 	private void addValue(String name, SeValue value)
 	{
-		valueMap.put(name, value);
+		SeValue oldValue = valueMap.put(name, value);
+		onValueReplaced(oldValue, value);
 	}
 	
 	@Override
@@ -290,6 +298,7 @@ public class SeBlock implements ISerialize
 		}
 		
 		isSerializing = true;
+		SeKeyTable keyTable = SeKeyTable.getCurrent();
 		
 		// Write value count
 		output.writeInt(valueMap.values().size());
@@ -301,7 +310,11 @@ public class SeBlock implements ISerialize
 			SeValue value = entry.getValue();
 			
 			SeUtil.writeTo(value, output);
-			SeUtil.writeString(key, output);
+			
+			if (keyTable != null)
+				SeUtil.writeVarInt(keyTable.getId(key), output);
+			else
+				SeUtil.writeString(key, output);
 		}
 		
 		isSerializing = false;
@@ -313,9 +326,19 @@ public class SeBlock implements ISerialize
 		// Fetch value count
 		int valueCount = input.readInt();
 		
-		// If empty, done processing
-		if (valueCount == 0)
-			return true;
+		readEntries(input, valueCount);
+		return true;
+	}
+	
+	/**
+	 * Reads in the entries of a block, after the value count
+	 * @param input The stream to read the entries from
+	 * @param valueCount The number of entries to read
+	 * @throws IOException If the entries can't be read
+	 */
+	void readEntries(DataInputStream input, int valueCount) throws IOException
+	{
+		SeKeyTable keyTable = SeKeyTable.getCurrent();
 		
 		for (int i = 0; i < valueCount; i++)
 		{
@@ -324,7 +347,7 @@ public class SeBlock implements ISerialize
 			
 			// Produce the key-value pair
 			SeValue value = SeUtil.readIntoValue(input);
-			String key = SeUtil.readString(input);
+			String key = keyTable != null ? keyTable.getKey(SeUtil.readVarInt(input)) : SeUtil.readString(input);
 			
 			// Skip over bad values
 			if (value == null)
@@ -332,37 +355,85 @@ public class SeBlock implements ISerialize
 			
 			addValue(key, value);
 		}
+	}
+	
+	@Override
+	public void serializeTo(ByteBuf output) throws IOException
+	{
+		// Break cycles the same way as the stream version
+		if (isSerializing)
+		{
+			output.writeInt(0);
+			return;
+		}
 		
-		return true;
+		isSerializing = true;
+		SeKeyTable keyTable = SeKeyTable.getCurrent();
+		
+		// Write value count
+		output.writeInt(valueMap.size());
+		
+		// Write out values
+		for (Map.Entry<String, SeValue> entry : valueMap.entrySet())
+		{
+			SeUtil.writeTo(entry.getValue(), output);
+			
+			if (keyTable != null)
+				SeUtil.writeVarInt(keyTable.getId(entry.getKey()), output);
+			else
+				SeUtil.writeString(entry.getKey(), output);
+		}
+		
+		isSerializing = false;
 	}
 	
 	@Override
-	public int getComputedSize()
+	public boolean deserializeFrom(ByteBuf input) throws IOException
 	{
-		// If serializing, a cycle was detected
-		// Return the size
-		if (isComputingSize || isSerializing)
-			return Integer.BYTES;
+		// Fetch value count
+		int valueCount = input.readInt();
+		SeKeyTable keyTable = SeKeyTable.getCurrent();
 		
-		int computedSize = Integer.BYTES;
-		isComputingSize = true;
+		for (int i = 0; i < valueCount; i++)
+		{
+			// Read the skip (do nothing with it)
+			SeUtil.readVarInt(input);
+			
+			// Produce the key-value pair
+			SeValue value = SeUtil.readIntoValue(input);
+			String key = keyTable != null ? keyTable.getKey(SeUtil.readVarInt(input)) : SeUtil.readString(input);
+			
+			// Skip over bad values
+			if (value == null)
+				continue;
+			
+			addValue(key, value);
+		}
 		
-		computedSize += valueMap.entrySet().parallelStream()
-				.mapToInt((entry) -> {
-					// Account for tag and skip bytes
-					int size = entry.getValue().getComputedSize();
-					size += SeUtil.getVarIntSize(size);
-					size += 1;
-					
-					// Account for the string size
-					size += SeUtil.getStringSize(entry.getKey());
-					
-					return size;
-				})
-				.reduce(Integer::sum)
-				.orElse(0);
+		return true;
+	}
+	
+	@Override
+	protected int computeSize()
+	{
+		int computedSize = Integer.BYTES;
+		SeKeyTable keyTable = SeKeyTable.getCurrent();
 		
-		isComputingSize = false;
+		for (Map.Entry<String, SeValue> entry : valueMap.entrySet())
+		{
+			// Account for tag and skip bytes
+			int size = entry.getValue().getComputedSize();
+			size += SeUtil.getVarIntSize(size + 1);
+			size += 1;
+			
+			// Account for the key, which also adds it to the key table
+			if (keyTable != null)
+				size += SeUtil.getVarIntSize(keyTable.getId(entry.getKey()));
+			else
+				size += SeUtil.getStringSize(entry.getKey());
+			
+			computedSize += size;
+		}
 		
 		return computedSize;
 	}
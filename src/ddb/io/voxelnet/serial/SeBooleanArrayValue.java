@@ -1,5 +1,7 @@
 package ddb.io.voxelnet.serial;
  
+import io.netty.buffer.ByteBuf;
+ 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -49,6 +51,34 @@ public class SeBooleanArrayValue extends SeArrayValue
 		return true;
 	}
 	
+	@Override
+	public void serializeTo(ByteBuf output)
+	{
+		super.serializeTo(output);
+		
+		if (getLength() == 0)
+			return;
+		
+		for (boolean value : value)
+			output.writeBoolean(value);
+	}
+	
+	@Override
+	public boolean deserializeFrom(ByteBuf input)
+	{
+		super.deserializeFrom(input);
+		
+		value = new boolean[getLength()];
+		
+		if (getLength() == 0)
+			return true;
+		
+		for (int i = 0; i < getLength(); i++)
+			value[i] = input.readBoolean();
+		
+		return true;
+	}
+	
 	@Override
 	public int getComputedSize()
 	{
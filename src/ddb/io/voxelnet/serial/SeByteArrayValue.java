@@ -1,5 +1,7 @@
 package ddb.io.voxelnet.serial;
  
+import io.netty.buffer.ByteBuf;
+ 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -49,6 +51,32 @@ public class SeByteArrayValue extends SeArrayValue
 		return true;
 	}
 	
+	@Override
+	public void serializeTo(ByteBuf output)
+	{
+		super.serializeTo(output);
+		
+		if (getLength() == 0)
+			return;
+		
+		output.writeBytes(value);
+	}
+	
+	@Override
+	public boolean deserializeFrom(ByteBuf input)
+	{
+		super.deserializeFrom(input);
+		
+		value = new byte[getLength()];
+		
+		if (getLength() == 0)
+			return true;
+		
+		input.readBytes(value);
+		
+		return true;
+	}
+	
 	@Override
 	public int getComputedSize()
 	{
@@ -1,5 +1,7 @@
 package ddb.io.voxelnet.serial;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -35,6 +37,20 @@ class SeByteValue extends SeValue
 		return true;
 	}
 	
+	@Override
+	public void serializeTo(ByteBuf output)
+	{
+		// Write out the value
+		output.writeByte(value);
+	}
+	
+	@Override
+	public boolean deserializeFrom(ByteBuf input)
+	{
+		value = input.readByte();
+		return true;
+	}
+	
 	@Override
 	public SeDataTypes getSerializeType()
 	{
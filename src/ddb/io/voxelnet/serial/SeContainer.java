@@ -0,0 +1,142 @@
+package ddb.io.voxelnet.serial;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Common base for the values that hold other values ('SeBlock's and 'SeList's)
+ *
+ * Computed sizes are cached, and are invalidated up through all of the
+ * containers holding this one whenever a value is changed.
+ * Sizes with keys written out in full and sizes with keys from a key table
+ * differ, so each is cached separately
+ */
+abstract class SeContainer implements ISerialize
+{
+	// Number of times that a size has been computed that can't be cached
+	// Sizes computed across a cycle depend on where the computation started,
+	// and the sizes of mapped objects can change at any time, so containers
+	// holding either of those never cache their size
+	private static final AtomicInteger uncacheableSizes = new AtomicInteger();
+	
+	// Containers that this one is a value of
+	private final List<SeContainer> parents = new ArrayList<>(1);
+	// Cached computed size, or -1 if it needs to be computed again
+	private int cachedSize = -1;
+	// Cached computed size when using a key table, or -1 if it needs to be computed again
+	private int cachedKeyedSize = -1;
+	// Key table that the keyed size was computed with
+	private SeKeyTable cachedKeyTable = null;
+	
+	// Whether or not the container is being serialized
+	// Used to prevent loops in the serialization tree
+	// XXX: Make atomic if deserializing with multithreading
+	boolean isSerializing = false;
+	
+	// Whether or not the container is having the size recomputed
+	// Used to prevent loops in the serialization tree
+	private boolean isComputingSize = false;
+	
+	@Override
+	public final int getComputedSize()
+	{
+		// If serializing, a cycle was detected
+		// Only the value count gets written in that case
+		if (isComputingSize || isSerializing)
+		{
+			markUncacheable();
+			return Integer.BYTES;
+		}
+		
+		SeKeyTable keyTable = SeKeyTable.getCurrent();
+		
+		if (keyTable == null && cachedSize >= 0)
+			return cachedSize;
+		
+		// Key ids are never reassigned, so the size stays the same for the same table
+		if (keyTable != null && keyTable == cachedKeyTable && cachedKeyedSize >= 0)
+			return cachedKeyedSize;
+		
+		int uncacheableBefore = uncacheableSizes.get();
+		
+		isComputingSize = true;
+		int computedSize = computeSize();
+		isComputingSize = false;
+		
+		if (uncacheableSizes.get() != uncacheableBefore)
+			return computedSize;
+		
+		if (keyTable == null)
+		{
+			cachedSize = computedSize;
+		}
+		else
+		{
+			cachedKeyedSize = computedSize;
+			cachedKeyTable = keyTable;
+		}
+		
+		return computedSize;
+	}
+	
+	/**
+	 * Marks that a size which can change without notice was just computed,
+	 * so that the containers currently computing their size don't cache it
+	 */
+	static void markUncacheable()
+	{
+		uncacheableSizes.incrementAndGet();
+	}
+	
+	/**
+	 * Computes the size of the serialized container, including all of the values
+	 * @return The computed size
+	 */
+	protected abstract int computeSize();
+	
+	/**
+	 * Updates the size & parent links after a value is replaced
+	 * @param oldValue The value being replaced, or null if there was none
+	 * @param newValue The new value, or null if the value was removed
+	 */
+	void onValueReplaced(SeValue oldValue, SeValue newValue)
+	{
+		SeContainer oldContainer = getContainer(oldValue);
+		SeContainer newContainer = getContainer(newValue);
+		
+		if (oldContainer != null)
+			oldContainer.parents.remove(this);
+		if (newContainer != null)
+			newContainer.parents.add(this);
+		
+		invalidateSize();
+	}
+	
+	/**
+	 * Clears the cached size of this container, and all of the ones holding it
+	 */
+	void invalidateSize()
+	{
+		// Containers holding this one can only have a cached size if this one does,
+		// which also stops at cycles
+		if (cachedSize < 0 && cachedKeyedSize < 0)
+			return;
+		
+		cachedSize = -1;
+		cachedKeyedSize = -1;
+		cachedKeyTable = null;
+		
+		for (SeContainer parent : parents)
+			parent.invalidateSize();
+	}
+	
+	private static SeContainer getContainer(SeValue value)
+	{
+		if (!(value instanceof SeWrapperValue))
+			return null;
+		
+		ISerialize wrapped = ((SeWrapperValue<?>) value).getWrappedValue();
+		return wrapped instanceof SeContainer ? (SeContainer) wrapped : null;
+	}
+}
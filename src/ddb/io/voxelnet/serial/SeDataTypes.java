@@ -34,7 +34,10 @@ public enum SeDataTypes
 	// Compound types
 	ROOT (() -> new SeWrapperValue<>(new SeRoot())),
 	BLOCK(() -> new SeWrapperValue<>(new SeBlock())),
-	LIST (() -> new SeWrapperValue<>(new SeList()));
+	LIST (() -> new SeWrapperValue<>(new SeList())),
+	
+	// Fields of a mapped object, by id
+	RECORD (() -> new SeWrapperValue<>(new SeRecord()));
 	
 	private final Supplier<? extends SeValue> valueCreator;
 	
@@ -1,5 +1,7 @@
 package ddb.io.voxelnet.serial;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 
@@ -20,6 +22,15 @@ public class SeEmptyValue extends SeValue
 		return true;
 	}
 	
+	@Override
+	public void serializeTo(ByteBuf output) {}
+	
+	@Override
+	public boolean deserializeFrom(ByteBuf input)
+	{
+		return true;
+	}
+	
 	@Override
 	public int getComputedSize()
 	{
@@ -0,0 +1,26 @@
+package ddb.io.voxelnet.serial;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field to be written out by the generated mapper of a class
+ *
+ * Fields are stored by their id instead of by name, so fields can be renamed
+ * freely, but an id must never be reused for a different field.
+ * Final fields are only written out, and final arrays are read back in place.
+ *
+ * @see SeMapped
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface SeField
+{
+	/**
+	 * Id of the field in the record
+	 * @return The field id, unique inside of the class
+	 */
+	int id();
+}
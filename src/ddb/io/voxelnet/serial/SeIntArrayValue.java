@@ -1,8 +1,11 @@
 package ddb.io.voxelnet.serial;
  
+import io.netty.buffer.ByteBuf;
+ 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteOrder;
  
 /**
  * Wrapper for int arrays
@@ -49,6 +52,36 @@ public class SeIntArrayValue extends SeArrayValue
 		return true;
 	}
 	
+	@Override
+	public void serializeTo(ByteBuf output)
+	{
+		super.serializeTo(output);
+		
+		if (getLength() == 0)
+			return;
+		
+		for (int value : value)
+			output.writeInt(value);
+	}
+	
+	@Override
+	public boolean deserializeFrom(ByteBuf input)
+	{
+		super.deserializeFrom(input);
+		
+		value = new int[getLength()];
+		
+		if (getLength() == 0)
+			return true;
+		
+		// Copy straight out of a view of the buffer
+		int byteLength = getLength() * Integer.BYTES;
+		input.nioBuffer(input.readerIndex(), byteLength).order(ByteOrder.BIG_ENDIAN).asIntBuffer().get(value);
+		input.skipBytes(byteLength);
+		
+		return true;
+	}
+	
 	@Override
 	public int getComputedSize()
 	{
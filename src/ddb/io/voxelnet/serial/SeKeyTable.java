@@ -0,0 +1,137 @@
+package ddb.io.voxelnet.serial;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table of block keys, written once in the header of a tree
+ *
+ * When a tree uses a key table, block entries refer to their keys by id
+ * instead of repeating the whole name. Ids are never reassigned, so keys are
+ * only ever added to a table.
+ *
+ * The table being used is tracked per thread while a tree is being written
+ * or read, so that the blocks deep inside of the tree can get to it
+ */
+class SeKeyTable
+{
+	// Maximum number of keys that a table can hold
+	static final int MAX_KEY_COUNT = 1 << 20;
+	
+	// Table used by the tree currently being processed on this thread
+	private static final ThreadLocal<SeKeyTable> currentTable = new ThreadLocal<>();
+	
+	// Keys, indexed by id
+	private final List<String> keys = new ArrayList<>();
+	// Ids of each key
+	private final Map<String, Integer> keyIds = new HashMap<>();
+	
+	/**
+	 * Gets the id of a key, adding it to the table if it isn't there yet
+	 * @param key The key to get the id of
+	 * @return The id of the key
+	 */
+	int getId(String key)
+	{
+		Integer id = keyIds.get(key);
+		
+		if (id == null)
+		{
+			id = keys.size();
+			keys.add(key);
+			keyIds.put(key, id);
+		}
+		
+		return id;
+	}
+	
+	/**
+	 * Gets the key with the given id
+	 * The same string is given back for every use of the key
+	 * @param id The id of the key
+	 * @return The key
+	 * @throws IOException If there is no key with that id
+	 */
+	String getKey(int id) throws IOException
+	{
+		if (id < 0 || id >= keys.size())
+			throw new IOException("Bad key id " + id);
+		
+		return keys.get(id);
+	}
+	
+	// Table Format:
+	// keyCount (VarInt) | keys (String)
+	
+	void writeTo(DataOutputStream output) throws IOException
+	{
+		SeUtil.writeVarInt(keys.size(), output);
+		
+		for (String key : keys)
+			SeUtil.writeString(key, output);
+	}
+	
+	void writeTo(ByteBuf output)
+	{
+		SeUtil.writeVarInt(keys.size(), output);
+		
+		for (String key : keys)
+			SeUtil.writeString(key, output);
+	}
+	
+	/**
+	 * Reads the keys of a table into this empty one
+	 * @param input The stream to read the table from
+	 * @throws IOException If the table can't be read
+	 */
+	void readFrom(DataInputStream input) throws IOException
+	{
+		int keyCount = SeUtil.readVarInt(input);
+		
+		if (keyCount < 0 || keyCount > MAX_KEY_COUNT)
+			throw new IOException("Bad key count " + keyCount);
+		
+		for (int i = 0; i < keyCount; i++)
+		{
+			String key = SeUtil.readString(input);
+			
+			if (keyIds.putIfAbsent(key, i) != null)
+				throw new IOException("Duplicate key \"" + key + "\" in the key table");
+			
+			keys.add(key);
+		}
+	}
+	
+	/**
+	 * Gets the key table used by the tree being processed on this thread
+	 * @return The current key table, or null if keys are written out in full
+	 */
+	static SeKeyTable getCurrent()
+	{
+		return currentTable.get();
+	}
+	
+	/**
+	 * Sets the key table used by the tree being processed on this thread
+	 * @param table The new key table, or null if keys are written out in full
+	 * @return The previous key table, to restore afterwards
+	 */
+	static SeKeyTable setCurrent(SeKeyTable table)
+	{
+		SeKeyTable previous = currentTable.get();
+		
+		if (table == null)
+			currentTable.remove();
+		else
+			currentTable.set(table);
+		
+		return previous;
+	}
+}
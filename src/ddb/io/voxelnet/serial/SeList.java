@@ -1,15 +1,15 @@
 package ddb.io.voxelnet.serial;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * Generic array list of serializable values
  */
-public class SeList implements ISerialize
+public class SeList extends SeContainer
 {
 	public static final int MAX_LIST_SIZE = 2 << (24 - 3);
 	
@@ -19,15 +19,6 @@ public class SeList implements ISerialize
 	private SeValue[] values;
 	private int length = 0;
 	
-	// Whether or not the list is being serialized
-	// Used to prevent loops in the serialization tree
-	// XXX: Make atomic if deserializing with multithreading
-	private boolean isSerializing = false;
-	
-	// Whether or not the list is having the size recomputed
-	// Used to prevent loops in the serialization tree
-	private boolean isComputingSize = false;
-	
 	/**
 	 * Creates a new array list
 	 * @param maxSize The maximum number of elements in the array
@@ -297,6 +288,22 @@ public class SeList implements ISerialize
 		replaceValueAt(index, new SeWrapperValue<>(value));
 	}
 	
+	/**
+	 * Sets a new value in the list, written out by the object's mapper
+	 * If there is a value with the existing name, it will overwrite that value
+	 * 
+	 * Indexes are not checked
+	 *
+	 * @param index The index of the value
+	 * @param value The object to map
+	 * @param mapper The mapper for the object's type
+	 * @param <T> The type of the mapped object
+	 */
+	public <T> void setValueAt(int index, T value, SeMapper<T> mapper)
+	{
+		replaceValueAt(index, new SeMappedValue<>(value, mapper));
+	}
+	
 	
 	/**
 	 * Gets a value in the list
@@ -313,7 +320,9 @@ public class SeList implements ISerialize
 	
 	private void replaceValueAt(int index, SeValue value)
 	{
+		SeValue oldValue = values[index];
 		values[index] = value;
+		onValueReplaced(oldValue, value);
 	}
 	
 	@Override
@@ -333,7 +342,10 @@ public class SeList implements ISerialize
 		
 		// Empty arrays get nothing
 		if (length == 0)
+		{
+			isSerializing = false;
 			return;
+		}
 		
 		// Write out the values
 		for (SeValue value : values)
@@ -357,6 +369,7 @@ public class SeList implements ISerialize
 			return false;
 		
 		this.values = new SeValue[this.length];
+		invalidateSize();
 		
 		// No size array, while invalid, should not cause an error
 		if (this.length == 0)
@@ -380,30 +393,82 @@ public class SeList implements ISerialize
 	}
 	
 	@Override
-	public int getComputedSize()
+	public void serializeTo(ByteBuf output) throws IOException
 	{
-		// If cycled over, only return the size of the length
-		if(isComputingSize || isSerializing)
-			return Integer.BYTES;
+		// Break recursive loops
+		if (isSerializing)
+		{
+			output.writeInt(0);
+			return;
+		}
 		
-		int computedSize = Integer.BYTES;
-		isComputingSize = true;
+		isSerializing = true;
 		
-		computedSize += Arrays.stream(values).filter(Objects::nonNull)
-				.mapToInt((i) -> {
-					// Account for tag & skip bytes
-					int size = i.getComputedSize();
-					size += SeUtil.getVarIntSize(size);
-					size += 1;
-					
-					return size;
-				})
-				.reduce(Integer::sum)
-				.orElse(0);
+		// Write the length
+		output.writeInt(length);
 		
-		computedSize += Arrays.stream(values).filter(Objects::isNull).count() * 2;
+		// Write out the values
+		for (int i = 0; i < length; i++)
+		{
+			if (values[i] == null)
+				SeUtil.writeTo(SeUtil.EMPTY_VALUE, output);
+			else
+				SeUtil.writeTo(values[i], output);
+		}
 		
-		isComputingSize = false;
+		isSerializing = false;
+	}
+	
+	@Override
+	public boolean deserializeFrom(ByteBuf input) throws IOException
+	{
+		this.length = input.readInt();
+		
+		// If over the array size, don't continue
+		if (this.length > MAX_LIST_SIZE || this.length < 0)
+			return false;
+		
+		this.values = new SeValue[this.length];
+		invalidateSize();
+		
+		// Read in the values
+		for (int i = 0; i < this.length; i++)
+		{
+			// Skip over skipper
+			SeUtil.readVarInt(input);
+			SeValue value = SeUtil.readIntoValue(input);
+			
+			// Skip over empty values
+			if (value instanceof SeEmptyValue)
+				continue;
+			
+			replaceValueAt(i, value);
+		}
+		
+		return true;
+	}
+	
+	@Override
+	protected int computeSize()
+	{
+		int computedSize = Integer.BYTES;
+		
+		for (SeValue value : values)
+		{
+			// Empty values only have the tag & skip bytes
+			if (value == null)
+			{
+				computedSize += 2;
+				continue;
+			}
+			
+			// Account for tag & skip bytes
+			int size = value.getComputedSize();
+			size += SeUtil.getVarIntSize(size + 1);
+			size += 1;
+			
+			computedSize += size;
+		}
 		
 		return computedSize;
 	}
@@ -1,8 +1,11 @@
 package ddb.io.voxelnet.serial;
  
+import io.netty.buffer.ByteBuf;
+ 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteOrder;
  
 /**
  * Wrapper for long arrays
@@ -49,6 +52,36 @@ public class SeLongArrayValue extends SeArrayValue
 		return true;
 	}
 	
+	@Override
+	public void serializeTo(ByteBuf output)
+	{
+		super.serializeTo(output);
+		
+		if (getLength() == 0)
+			return;
+		
+		for (long value : value)
+			output.writeLong(value);
+	}
+	
+	@Override
+	public boolean deserializeFrom(ByteBuf input)
+	{
+		super.deserializeFrom(input);
+		
+		value = new long[getLength()];
+		
+		if (getLength() == 0)
+			return true;
+		
+		// Copy straight out of a view of the buffer
+		int byteLength = getLength() * Long.BYTES;
+		input.nioBuffer(input.readerIndex(), byteLength).order(ByteOrder.BIG_ENDIAN).asLongBuffer().get(value);
+		input.skipBytes(byteLength);
+		
+		return true;
+	}
+	
 	@Override
 	public int getComputedSize()
 	{
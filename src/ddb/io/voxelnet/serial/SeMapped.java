@@ -0,0 +1,25 @@
+package ddb.io.voxelnet.serial;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class as having a generated mapper
+ *
+ * The mapper is generated by 'generators.SeMapperGenerator', and writes all
+ * of the 'SeField's of the class straight into a RECORD value, without going
+ * through a tree of values
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface SeMapped
+{
+	/**
+	 * Name of a method to call after the fields have been read in
+	 * Used to rebuild any state that is derived from the fields
+	 * @return The method name, or an empty string if there isn't one
+	 */
+	String afterRead() default "";
+}
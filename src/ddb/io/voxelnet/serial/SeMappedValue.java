@@ -0,0 +1,66 @@
+package ddb.io.voxelnet.serial;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Value for an object that is written out by its mapper
+ *
+ * The object's fields are read at the time of serialization, so the size of
+ * this value is never cached by the containers holding it
+ *
+ * @param <T> The type of the mapped object
+ */
+class SeMappedValue<T> extends SeValue
+{
+	private final T object;
+	private final SeMapper<T> mapper;
+	
+	SeMappedValue(T object, SeMapper<T> mapper)
+	{
+		this.object = object;
+		this.mapper = mapper;
+	}
+	
+	@Override
+	public void serializeTo(DataOutputStream output) throws IOException
+	{
+		mapper.writeTo(object, output);
+	}
+	
+	@Override
+	public boolean deserializeFrom(DataInputStream input) throws IOException
+	{
+		mapper.readFrom(object, input);
+		return true;
+	}
+	
+	@Override
+	public void serializeTo(ByteBuf output)
+	{
+		mapper.writeTo(object, output);
+	}
+	
+	@Override
+	public boolean deserializeFrom(ByteBuf input) throws IOException
+	{
+		mapper.readFrom(object, input);
+		return true;
+	}
+	
+	@Override
+	public int getComputedSize()
+	{
+		SeContainer.markUncacheable();
+		return mapper.getComputedSize(object);
+	}
+	
+	@Override
+	public SeDataTypes getSerializeType()
+	{
+		return SeDataTypes.RECORD;
+	}
+}
@@ -0,0 +1,68 @@
+package ddb.io.voxelnet.serial;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes & reads the fields of an object directly as a RECORD value
+ *
+ * Record Format:
+ * fieldCount (int) | fields
+ * Field: id (VarInt) | skip (VarInt, includes tag) | tag (byte) | data
+ *
+ * Fields that are unknown or have a different type are skipped over when
+ * read, so fields can be added or removed without breaking older records
+ *
+ * @param <T> The type of object that is mapped
+ */
+public interface SeMapper<T>
+{
+	/**
+	 * Writes the object's fields to the output stream
+	 * @param value The object to write
+	 * @param output The stream to write to
+	 * @throws IOException If any errors occur during writing
+	 */
+	void writeTo(T value, DataOutputStream output) throws IOException;
+	
+	/**
+	 * Reads fields from the input stream into the object
+	 * @param value The object to read into
+	 * @param input The stream to read from
+	 * @throws IOException If the record can't be read or is malformed
+	 */
+	void readFrom(T value, DataInputStream input) throws IOException;
+	
+	/**
+	 * Writes the object's fields straight into the buffer
+	 * @param value The object to write
+	 * @param output The buffer to write to
+	 */
+	void writeTo(T value, ByteBuf output);
+	
+	/**
+	 * Reads fields straight out of the buffer into the object
+	 * @param value The object to read into
+	 * @param input The buffer to read from
+	 * @throws IOException If the record is malformed
+	 */
+	void readFrom(T value, ByteBuf input) throws IOException;
+	
+	/**
+	 * Reads fields from an already deserialized record into the object
+	 * @param value The object to read into
+	 * @param record The record to read from
+	 * @throws IOException If the record is malformed
+	 */
+	void readFrom(T value, SeRecord record) throws IOException;
+	
+	/**
+	 * Computes the size of the object's record
+	 * @param value The object to compute the size of
+	 * @return The computed size
+	 */
+	int getComputedSize(T value);
+}
@@ -0,0 +1,302 @@
+package ddb.io.voxelnet.serial;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Pull-style reader for serialization trees
+ *
+ * Values are parsed one at a time as the reader is advanced, instead of
+ * building up the whole tree at once. Compressed trees are inflated as they
+ * are read, so only the current value needs to be kept in memory.
+ *
+ * Names are stored after the values in a block, so the name of a block or
+ * list entry is only known once the reader reaches the end of it
+ */
+public class SeReader
+{
+	/**
+	 * Things that the reader can stop at
+	 */
+	public enum Event
+	{
+		// Start of a block or list, the name isn't known yet
+		START_BLOCK,
+		START_LIST,
+		// End of a block or list, with the name if inside of a block
+		END_BLOCK,
+		END_LIST,
+		// A non-compound value
+		VALUE,
+		// No more data after the root block
+		END
+	}
+	
+	private final DataInputStream input;
+	// Keys of the tree, or null if the keys are written out in full
+	private final SeKeyTable keyTable;
+	// Currently open blocks & lists
+	private final Deque<Container> containers = new ArrayDeque<>();
+	// Value count of the root block
+	private final int rootCount;
+	private boolean hasStarted = false;
+	
+	// Current position
+	private Event event = null;
+	private SeDataTypes type = null;
+	private SeValue value = null;
+	private String name = null;
+	
+	/**
+	 * Opens up a serialization tree for reading
+	 * @param input The stream to read the tree from
+	 * @throws IOException If the tree header is bad or can't be read
+	 */
+	public SeReader(InputStream input) throws IOException
+	{
+		DataInputStream headerInput = input instanceof DataInputStream ? (DataInputStream) input : new DataInputStream(input);
+		SeKeyTable readTable = new SeKeyTable();
+		int flags = SeRoot.readHeader(headerInput, readTable);
+		
+		if (flags == -1)
+			throw new IOException("Bad serialization tree header");
+		
+		DataInputStream dataInput = SeRoot.openDataStream(headerInput, flags);
+		
+		if (dataInput.readByte() != SeDataTypes.BLOCK.ordinal())
+			throw new IOException("Serialization tree does not start with a block");
+		
+		this.input = dataInput;
+		this.keyTable = (flags & SeRoot.FLAG_KEY_TABLE) != 0 ? readTable : null;
+		this.rootCount = dataInput.readInt();
+	}
+	
+	/**
+	 * Advances the reader to the next event
+	 * The first event is always the start of the root block
+	 * @return The next event
+	 * @throws IOException If the data can't be read
+	 */
+	public Event next() throws IOException
+	{
+		value = null;
+		name = null;
+		
+		if (containers.isEmpty())
+		{
+			if (hasStarted)
+				return setEvent(Event.END, null);
+			
+			// Enter the root block
+			hasStarted = true;
+			containers.push(new Container(true, rootCount, -1));
+			return setEvent(Event.START_BLOCK, SeDataTypes.BLOCK);
+		}
+		
+		Container current = containers.peek();
+		current.isUntouched = false;
+		
+		if (current.remaining == 0)
+		{
+			// Leave the container, picking up its name along the way
+			containers.pop();
+			readName();
+			
+			if (current.isBlock)
+				return setEvent(Event.END_BLOCK, SeDataTypes.BLOCK);
+			else
+				return setEvent(Event.END_LIST, SeDataTypes.LIST);
+		}
+		
+		current.remaining--;
+		
+		int skip = SeUtil.readVarInt(input);
+		int tag = Byte.toUnsignedInt(input.readByte());
+		
+		if (tag >= SeDataTypes.values().length)
+			throw new IOException("Unknown value type " + tag);
+		
+		SeDataTypes nextType = SeDataTypes.values()[tag];
+		
+		switch (nextType)
+		{
+			case BLOCK:
+			case LIST:
+			{
+				int count = input.readInt();
+				
+				if (count < 0 || count > SeList.MAX_LIST_SIZE)
+					throw new IOException("Bad value count " + count);
+				
+				// Skip includes the tag and the count
+				containers.push(new Container(nextType == SeDataTypes.BLOCK, count, skip - 1 - Integer.BYTES));
+				return setEvent(nextType == SeDataTypes.BLOCK ? Event.START_BLOCK : Event.START_LIST, nextType);
+			}
+			case ROOT:
+				throw new IOException("Nested serialization trees are not supported");
+			default:
+			{
+				SeValue nextValue = nextType.getNewInstance();
+				
+				if (!readValue(nextValue))
+					throw new IOException("Bad " + nextType + " value");
+				
+				readName();
+				value = nextValue;
+				return setEvent(Event.VALUE, nextType);
+			}
+		}
+	}
+	
+	/**
+	 * Skips over the rest of the block or list that was just started,
+	 * without parsing any of it
+	 * The next event will be the end of the skipped block or list
+	 * @throws IOException If the data can't be skipped over
+	 */
+	public void skip() throws IOException
+	{
+		Container current = containers.peek();
+		
+		if ((event != Event.START_BLOCK && event != Event.START_LIST) || current == null || !current.isUntouched)
+			throw new IllegalStateException("Can only skip right after the start of a block or list");
+		
+		if (current.contentSize < 0)
+			throw new IllegalStateException("The root block can't be skipped");
+		
+		SeUtil.skipFully(input, current.contentSize);
+		current.remaining = 0;
+	}
+	
+	/**
+	 * Reads in the rest of the block that was just started as a whole block
+	 * The next event will be the end of the read block
+	 * @return The read block
+	 * @throws IOException If the block can't be read
+	 */
+	public SeBlock readBlock() throws IOException
+	{
+		Container current = containers.peek();
+		
+		if (event != Event.START_BLOCK || current == null || !current.isUntouched)
+			throw new IllegalStateException("Can only read a block right after the start of it");
+		
+		SeBlock block = new SeBlock();
+		SeKeyTable previousTable = SeKeyTable.setCurrent(keyTable);
+		
+		try
+		{
+			block.readEntries(input, current.remaining);
+		}
+		finally
+		{
+			SeKeyTable.setCurrent(previousTable);
+		}
+		
+		current.remaining = 0;
+		
+		return block;
+	}
+	
+	/**
+	 * Gets the last event that the reader stopped at
+	 * @return The current event
+	 */
+	public Event getEvent()
+	{
+		return event;
+	}
+	
+	/**
+	 * Gets the type of the current value, block, or list
+	 * @return The current type, or null at the end
+	 */
+	public SeDataTypes getType()
+	{
+		return type;
+	}
+	
+	/**
+	 * Gets the current value
+	 * @return The current value, or null if not at a value
+	 */
+	public SeValue getValue()
+	{
+		return value;
+	}
+	
+	/**
+	 * Gets the name of the current value, or the block or list that just ended
+	 * @return The name, or null if not inside of a block
+	 */
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * Gets how deep the reader is in the tree
+	 * @return The number of blocks & lists that are open
+	 */
+	public int getDepth()
+	{
+		return containers.size();
+	}
+	
+	private Event setEvent(Event event, SeDataTypes type)
+	{
+		this.event = event;
+		this.type = type;
+		return event;
+	}
+	
+	// Names only follow the values that are inside of blocks
+	private void readName() throws IOException
+	{
+		Container parent = containers.peek();
+		
+		if (parent == null || !parent.isBlock)
+			return;
+		
+		if (keyTable != null)
+			name = keyTable.getKey(SeUtil.readVarInt(input));
+		else
+			name = SeUtil.readString(input);
+	}
+	
+	// Values can have blocks inside of them (e.g. records), which need the key table
+	private boolean readValue(SeValue value) throws IOException
+	{
+		SeKeyTable previousTable = SeKeyTable.setCurrent(keyTable);
+		
+		try
+		{
+			return value.deserializeFrom(input);
+		}
+		finally
+		{
+			SeKeyTable.setCurrent(previousTable);
+		}
+	}
+	
+	private static class Container
+	{
+		final boolean isBlock;
+		// Size of the data after the value count, or -1 if not known
+		final int contentSize;
+		// Values left to read
+		int remaining;
+		// If none of the values have been read yet
+		boolean isUntouched = true;
+		
+		Container(boolean isBlock, int remaining, int contentSize)
+		{
+			this.isBlock = isBlock;
+			this.remaining = remaining;
+			this.contentSize = contentSize;
+		}
+	}
+}
@@ -0,0 +1,141 @@
+package ddb.io.voxelnet.serial;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Group of values identified by field ids, as written by an 'SeMapper'
+ *
+ * Records are read into this when the type of the mapped object isn't known,
+ * so that they can still be looked at or passed along
+ */
+public class SeRecord implements ISerialize
+{
+	// Map of field ids to values
+	private final Map<Integer, SeValue> fields = new TreeMap<>();
+	
+	public SeRecord() {}
+	
+	/**
+	 * Gets a field in the record
+	 *
+	 * @param id The id of the field to fetch
+	 * @return The value wrapper if found, or SeUtil.EMPTY_VALUE value if not
+	 */
+	public SeValue getValue(int id)
+	{
+		return fields.getOrDefault(id, SeUtil.EMPTY_VALUE);
+	}
+	
+	/**
+	 * Checks if the record has a field with the given id
+	 * @param id The id of the field to check
+	 * @return True if the field exists
+	 */
+	public boolean hasField(int id)
+	{
+		return fields.containsKey(id);
+	}
+	
+	/**
+	 * Gets the ids of all of the fields in the record
+	 * @return The field ids, in ascending order
+	 */
+	public Set<Integer> getFieldIds()
+	{
+		return fields.keySet();
+	}
+	
+	@Override
+	public void serializeTo(DataOutputStream output) throws IOException
+	{
+		output.writeInt(fields.size());
+		
+		for (Map.Entry<Integer, SeValue> field : fields.entrySet())
+		{
+			SeUtil.writeVarInt(field.getKey(), output);
+			SeUtil.writeTo(field.getValue(), output);
+		}
+	}
+	
+	@Override
+	public boolean deserializeFrom(DataInputStream input) throws IOException
+	{
+		int fieldCount = input.readInt();
+		
+		for (int i = 0; i < fieldCount; i++)
+		{
+			int id = SeUtil.readVarInt(input);
+			// Read the skip (do nothing with it)
+			SeUtil.readVarInt(input);
+			
+			SeValue value = SeUtil.readIntoValue(input);
+			
+			// Skip over bad values
+			if (value == null)
+				continue;
+			
+			fields.put(id, value);
+		}
+		
+		return true;
+	}
+	
+	@Override
+	public void serializeTo(ByteBuf output) throws IOException
+	{
+		output.writeInt(fields.size());
+		
+		for (Map.Entry<Integer, SeValue> field : fields.entrySet())
+		{
+			SeUtil.writeVarInt(field.getKey(), output);
+			SeUtil.writeTo(field.getValue(), output);
+		}
+	}
+	
+	@Override
+	public boolean deserializeFrom(ByteBuf input) throws IOException
+	{
+		int fieldCount = input.readInt();
+		
+		for (int i = 0; i < fieldCount; i++)
+		{
+			int id = SeUtil.readVarInt(input);
+			// Read the skip (do nothing with it)
+			SeUtil.readVarInt(input);
+			
+			SeValue value = SeUtil.readIntoValue(input);
+			
+			// Skip over bad values
+			if (value == null)
+				continue;
+			
+			fields.put(id, value);
+		}
+		
+		return true;
+	}
+	
+	@Override
+	public int getComputedSize()
+	{
+		int computedSize = Integer.BYTES;
+		
+		for (Map.Entry<Integer, SeValue> field : fields.entrySet())
+			computedSize += SeUtil.getFieldSize(field.getKey(), field.getValue().getComputedSize());
+		
+		return computedSize;
+	}
+	
+	@Override
+	public SeDataTypes getSerializeType()
+	{
+		return SeDataTypes.RECORD;
+	}
+}
@@ -1,5 +1,9 @@
 package ddb.io.voxelnet.serial;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
 import java.io.*;
 import java.util.Arrays;
 import java.util.zip.GZIPInputStream;
@@ -14,16 +18,22 @@ public class SeRoot implements ISerialize
 	private static final byte[] HEADER_END_MAGIC = "TRES".getBytes();
 	public static final int MAJOR_VERSION = 0;
 	public static final int MINOR_VERSION = 0;
-	public static final int MAX_DATA_SIZE = 4 * 1024 * 1024;
+	// Size of the buffers around the compressed streams
+	private static final int COMPRESS_BUFFER_SIZE = 8192;
 	
 	// Flags
 	public static final int FLAG_COMPRESSED = 0x00000001;
+	public static final int FLAG_KEY_TABLE  = 0x00000002;
 	
 	// Actual data block
 	private final SeBlock data;
 	
 	// Whether to compress the data block
 	private boolean useCompression = false;
+	// Whether to write the block keys into a key table
+	private boolean useKeyTable = false;
+	// Keys used by the tree, if using a key table
+	private SeKeyTable keyTable = new SeKeyTable();
 	
 	/**
 	 * Creates a new serialization tree
@@ -35,6 +45,20 @@ public class SeRoot implements ISerialize
 	
 	@Override
 	public void serializeTo(DataOutputStream output) throws IOException
+	{
+		SeKeyTable previousTable = SeKeyTable.setCurrent(useKeyTable ? keyTable : null);
+		
+		try
+		{
+			writeTree(output);
+		}
+		finally
+		{
+			SeKeyTable.setCurrent(previousTable);
+		}
+	}
+	
+	private void writeTree(DataOutputStream output) throws IOException
 	{
 		// Write the header
 		// | header_start_magic (int)
@@ -46,9 +70,17 @@ public class SeRoot implements ISerialize
 		// If bit 0 (compressed) is set:
 		// | decompressedSize (int)
 		
+		// If bit 1 (key table) is set:
+		// | keyCount (VarInt)
+		// | keys (String)
+		
 		// | header_end_magic (int)
 		// | padding
 		
+		// Computing the size also fills up the key table, which has to be
+		// complete before the header is written
+		int dataSize = useCompression || useKeyTable ? data.getComputedSize() : 0;
+		
 		// Magic
 		output.write(HEADER_MAGIC);
 		output.writeInt(0);
@@ -57,15 +89,18 @@ public class SeRoot implements ISerialize
 		output.writeInt(MAJOR_VERSION);
 		output.writeInt(MINOR_VERSION);
 		
-		// Flags (compression)
-		output.writeInt(useCompression ? FLAG_COMPRESSED : 0);
+		// Flags (compression & key table)
+		output.writeInt(getFlags());
 		
 		if (useCompression)
 		{
 			// Decompressed size is the same as computedSize, including the tag
-			output.writeInt(data.getComputedSize() + 1);
+			output.writeInt(dataSize + 1);
 		}
 		
+		if (useKeyTable)
+			keyTable.writeTo(output);
+		
 		// Footer Magic
 		output.write(HEADER_END_MAGIC);
 		output.writeInt(0);
@@ -78,92 +113,236 @@ public class SeRoot implements ISerialize
 		}
 		else
 		{
-			// Compress the entire data stream after the header
-			ByteArrayOutputStream bos = new ByteArrayOutputStream(4096);
-			DataOutputStream compressOut = new DataOutputStream(bos);
+			// Compress the data stream as it is being written
+			GZIPOutputStream compressor = new GZIPOutputStream(output, COMPRESS_BUFFER_SIZE);
+			DataOutputStream compressOut = new DataOutputStream(new BufferedOutputStream(compressor, COMPRESS_BUFFER_SIZE));
 			
 			compressOut.writeByte((byte) data.getSerializeType().ordinal());
 			data.serializeTo(compressOut);
 			
-			compressOut.close();
-			byte[] toCompress = bos.toByteArray();
-			bos.close();
-			
-			// Write out the compressed data
-			GZIPOutputStream compressor = new GZIPOutputStream(output);
-			compressor.write(toCompress);
-			compressor.flush();
-			compressor.close();
+			// Finish off the compressed data, leaving the output stream open
+			compressOut.flush();
+			compressor.finish();
 		}
 	}
 	
 	@Override
 	public boolean deserializeFrom(DataInputStream input) throws IOException
+	{
+		SeKeyTable readTable = new SeKeyTable();
+		int flags = readHeader(input, readTable);
+		
+		// Header was bad
+		if (flags == -1)
+			return false;
+		
+		useCompression = (flags & FLAG_COMPRESSED) != 0;
+		useKeyTable = (flags & FLAG_KEY_TABLE) != 0;
+		
+		// Ids from the read table don't match up with the sizes cached with the old one
+		if (useKeyTable)
+			keyTable = readTable;
+		
+		DataInputStream dataStream = openDataStream(input, flags);
+		SeKeyTable previousTable = SeKeyTable.setCurrent(useKeyTable ? keyTable : null);
+		
+		try
+		{
+			// Deserialize data root
+			if (dataStream.readByte() != SeDataTypes.BLOCK.ordinal())
+				return false;
+			
+			return data.deserializeFrom(dataStream);
+		}
+		finally
+		{
+			SeKeyTable.setCurrent(previousTable);
+		}
+	}
+	
+	/**
+	 * Serializes the tree straight into the buffer
+	 * Compressed trees still go through the stream compressor
+	 * @param output The buffer to serialize to
+	 * @throws IOException If any errors occur during serialization
+	 */
+	@Override
+	public void serializeTo(ByteBuf output) throws IOException
+	{
+		if (useCompression)
+		{
+			serializeTo(new DataOutputStream(new ByteBufOutputStream(output)));
+			return;
+		}
+		
+		SeKeyTable previousTable = SeKeyTable.setCurrent(useKeyTable ? keyTable : null);
+		
+		try
+		{
+			// Fill up the key table before it's written out
+			if (useKeyTable)
+				data.getComputedSize();
+			
+			// Same header as the stream version, without the decompressed size
+			output.writeBytes(HEADER_MAGIC);
+			output.writeInt(0);
+			output.writeInt(MAJOR_VERSION);
+			output.writeInt(MINOR_VERSION);
+			output.writeInt(getFlags());
+			
+			if (useKeyTable)
+				keyTable.writeTo(output);
+			
+			output.writeBytes(HEADER_END_MAGIC);
+			output.writeInt(0);
+			
+			output.writeByte((byte) data.getSerializeType().ordinal());
+			data.serializeTo(output);
+		}
+		finally
+		{
+			SeKeyTable.setCurrent(previousTable);
+		}
+	}
+	
+	/**
+	 * Deserializes the tree straight out of the buffer
+	 * Compressed trees are inflated through a stream, and are read up to the
+	 * end of the buffer
+	 * @param input The buffer to deserialize from
+	 * @return True if deserialization was successful
+	 * @throws IOException If any errors occur during deserialization
+	 */
+	@Override
+	public boolean deserializeFrom(ByteBuf input) throws IOException
+	{
+		// Streams over the buffer only read as much as is asked for, so the
+		// header can be shared with the stream version
+		DataInputStream headerStream = new DataInputStream(new ByteBufInputStream(input));
+		SeKeyTable readTable = new SeKeyTable();
+		int flags = readHeader(headerStream, readTable);
+		
+		// Header was bad
+		if (flags == -1)
+			return false;
+		
+		useCompression = (flags & FLAG_COMPRESSED) != 0;
+		useKeyTable = (flags & FLAG_KEY_TABLE) != 0;
+		
+		// Ids from the read table don't match up with the sizes cached with the old one
+		if (useKeyTable)
+			keyTable = readTable;
+		
+		SeKeyTable previousTable = SeKeyTable.setCurrent(useKeyTable ? keyTable : null);
+		
+		try
+		{
+			if (useCompression)
+			{
+				DataInputStream dataStream = openDataStream(headerStream, flags);
+				
+				if (dataStream.readByte() != SeDataTypes.BLOCK.ordinal())
+					return false;
+				
+				return data.deserializeFrom(dataStream);
+			}
+			
+			// Deserialize data root
+			if (input.readByte() != SeDataTypes.BLOCK.ordinal())
+				return false;
+			
+			return data.deserializeFrom(input);
+		}
+		finally
+		{
+			SeKeyTable.setCurrent(previousTable);
+		}
+	}
+	
+	/**
+	 * Reads in & checks the header
+	 * @param input The stream to read the header from
+	 * @param keyTable The table to read the keys into, if the tree has a key table
+	 * @return The header flags, or -1 if the header is bad
+	 * @throws IOException If the header can't be read
+	 */
+	static int readHeader(DataInputStream input, SeKeyTable keyTable) throws IOException
 	{
 		// Verify the header
 		byte[] headerBuf = new byte[4];
-		input.read(headerBuf);
+		input.readFully(headerBuf);
 		input.readInt();
 		
 		// Headers do not match
 		if (!Arrays.equals(headerBuf, HEADER_MAGIC))
-			return false;
+			return -1;
 		
 		// Verify version
 		if (input.readInt() != MAJOR_VERSION ||
 		    input.readInt() != MINOR_VERSION)
-			return false;
+			return -1;
 		
 		// Read in the flags
 		int flags = input.readInt();
 		
-		// Read in decompression
-		int decompressedSize = 0;
+		// Unknown flags would change how the rest is read
+		if ((flags & ~(FLAG_COMPRESSED | FLAG_KEY_TABLE)) != 0)
+			return -1;
+		
+		// Decompressed size is only informative, as the data is inflated as it is read
 		if ((flags & FLAG_COMPRESSED) != 0)
-		{
-			decompressedSize = input.readInt();
-			useCompression = true;
-		}
+			input.readInt();
 		
-		if (decompressedSize > MAX_DATA_SIZE)
-			throw new IllegalArgumentException("Decompressed data size is greater than the maximum data size of 4 MiB");
+		if ((flags & FLAG_KEY_TABLE) != 0)
+			keyTable.readFrom(input);
 		
 		// Verify the footer
-		input.read(headerBuf);
+		input.readFully(headerBuf);
 		input.readInt();
 		
 		// Footers do not match
 		if (!Arrays.equals(headerBuf, HEADER_END_MAGIC))
-			return false;
+			return -1;
 		
-		// Decompress (if needed)
-		DataInputStream dataStream = input;
-		if ((flags & FLAG_COMPRESSED) != 0)
-		{
-			// Decompress the data
-			GZIPInputStream istream = new GZIPInputStream(input);
-			byte[] buffer = new byte[decompressedSize];
-			int read = istream.read(buffer);
-			istream.close();
-			
-			if (read < 0)
-				throw new EOFException();
-			
-			// Redirect to the new stream
-			dataStream = new DataInputStream(new ByteArrayInputStream(buffer));
-		}
-		
-		// Deserialize data root
-		if (dataStream.readByte() != SeDataTypes.BLOCK.ordinal())
-			return false;
+		return flags;
+	}
+	
+	/**
+	 * Sets up the stream to read the serial data from, after the header
+	 * Compressed data is inflated as it is read
+	 * @param input The stream that the header was read from
+	 * @param flags The header flags
+	 * @return The stream to read the data from
+	 * @throws IOException If the compressed stream can't be opened
+	 */
+	static DataInputStream openDataStream(DataInputStream input, int flags) throws IOException
+	{
+		if ((flags & FLAG_COMPRESSED) == 0)
+			return input;
 		
-		return data.deserializeFrom(dataStream);
+		// Redirect to the decompressing stream
+		GZIPInputStream inflater = new GZIPInputStream(input, COMPRESS_BUFFER_SIZE);
+		return new DataInputStream(new BufferedInputStream(inflater, COMPRESS_BUFFER_SIZE));
+	}
+	
+	private int getFlags()
+	{
+		return (useCompression ? FLAG_COMPRESSED : 0) | (useKeyTable ? FLAG_KEY_TABLE : 0);
 	}
 	
 	@Override
 	public int getComputedSize()
 	{
-		return data.getComputedSize();
+		SeKeyTable previousTable = SeKeyTable.setCurrent(useKeyTable ? keyTable : null);
+		
+		try
+		{
+			return data.getComputedSize();
+		}
+		finally
+		{
+			SeKeyTable.setCurrent(previousTable);
+		}
 	}
 	
 	@Override
@@ -190,4 +369,19 @@ public class SeRoot implements ISerialize
 		this.useCompression = useCompression;
 	}
 	
+	/**
+	 * Set whether block keys are written once in a key table, or in full
+	 * for every entry
+	 *
+	 * Trees with a lot of blocks using the same keys (e.g. lists of blocks)
+	 * are much smaller with a key table. Keys are never removed from the
+	 * table, so a new root should be used once most of the keys are gone.
+	 *
+	 * @param useKeyTable If a key table is to be used, or not
+	 */
+	public void setKeyTableUsage(boolean useKeyTable)
+	{
+		this.useKeyTable = useKeyTable;
+	}
+	
 }
@@ -0,0 +1,102 @@
+package ddb.io.voxelnet.serial;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Times computing the size of, and serializing a deep & wide tree
+ */
+public class SeSizeBenchmark
+{
+	// Levels of nested blocks
+	private static final int DEPTH = 48;
+	// Values at each level
+	private static final int WIDTH = 32;
+	// Small blocks in the list at each level
+	private static final int LIST_SIZE = 16;
+	// Number of times each pass is run, keeping the best time
+	private static final int RUNS = 5;
+	
+	public static void main(String[] args) throws IOException
+	{
+		SeRoot root = new SeRoot();
+		SeBlock deepest = buildLevel(root.getDataBlock(), 0);
+		
+		long coldSize = Long.MAX_VALUE;
+		long serialize = Long.MAX_VALUE;
+		long changedSerialize = Long.MAX_VALUE;
+		long written = 0;
+		
+		for (int run = 0; run < RUNS; run++)
+		{
+			// Every value is new, so nothing is known about the sizes yet
+			root = new SeRoot();
+			deepest = buildLevel(root.getDataBlock(), 0);
+			
+			long start = System.nanoTime();
+			root.getComputedSize();
+			coldSize = Math.min(coldSize, System.nanoTime() - start);
+			
+			CountingStream counter = new CountingStream();
+			start = System.nanoTime();
+			root.serializeTo(new DataOutputStream(counter));
+			serialize = Math.min(serialize, System.nanoTime() - start);
+			written = counter.count;
+			
+			// Only the path up from the deepest block changes
+			deepest.setValue("changed", run);
+			start = System.nanoTime();
+			root.serializeTo(new DataOutputStream(new CountingStream()));
+			changedSerialize = Math.min(changedSerialize, System.nanoTime() - start);
+		}
+		
+		System.out.println("Tree of depth " + DEPTH + ", " + (written / 1024) + " KiB serialized (best of " + RUNS + ")");
+		System.out.println(String.format("%-28s %10.2f ms", "Computing size", coldSize / 1e6));
+		System.out.println(String.format("%-28s %10.2f ms", "Serializing", serialize / 1e6));
+		System.out.println(String.format("%-28s %10.2f ms", "Serializing after a change", changedSerialize / 1e6));
+	}
+	
+	// Builds up the nested levels, returning the deepest block
+	private static SeBlock buildLevel(SeBlock block, int level)
+	{
+		for (int i = 0; i < WIDTH; i++)
+			block.setValue("value" + i, i * level);
+		
+		SeList list = new SeList(LIST_SIZE);
+		for (int i = 0; i < LIST_SIZE; i++)
+		{
+			SeBlock entry = new SeBlock();
+			entry.setValue("x", (float) i);
+			entry.setValue("name", "entry" + i);
+			list.setValueAt(i, entry);
+		}
+		block.setValue("list", list);
+		
+		if (level == DEPTH - 1)
+			return block;
+		
+		SeBlock child = new SeBlock();
+		SeBlock deepest = buildLevel(child, level + 1);
+		block.setValue("child", child);
+		return deepest;
+	}
+	
+	// Discards everything written, but keeps count of the bytes
+	private static class CountingStream extends OutputStream
+	{
+		long count = 0;
+		
+		@Override
+		public void write(int b)
+		{
+			count++;
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len)
+		{
+			count += len;
+		}
+	}
+}
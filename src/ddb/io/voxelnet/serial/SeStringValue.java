@@ -1,9 +1,10 @@
 package ddb.io.voxelnet.serial;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 
 /**
  * Value container for strings
@@ -22,7 +23,7 @@ class SeStringValue extends SeValue
 		
 		this.value = value;
 		
-		computedSize = SeUtil.getVarIntSize(value.length()) + value.getBytes(StandardCharsets.UTF_8).length;
+		computedSize = SeUtil.getStringSize(value);
 	}
 	
 	@Override
@@ -36,7 +37,22 @@ class SeStringValue extends SeValue
 	public boolean deserializeFrom(DataInputStream input) throws IOException
 	{
 		value = SeUtil.readString(input);
-		computedSize = SeUtil.getVarIntSize(value.length()) + value.getBytes(StandardCharsets.UTF_8).length;
+		computedSize = SeUtil.getStringSize(value);
+		return true;
+	}
+	
+	@Override
+	public void serializeTo(ByteBuf output)
+	{
+		// Write out the value
+		SeUtil.writeString(value, output);
+	}
+	
+	@Override
+	public boolean deserializeFrom(ByteBuf input)
+	{
+		value = SeUtil.readString(input);
+		computedSize = SeUtil.getStringSize(value);
 		return true;
 	}
 	
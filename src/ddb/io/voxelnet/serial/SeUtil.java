@@ -1,5 +1,7 @@
 package ddb.io.voxelnet.serial;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -57,6 +59,46 @@ public class SeUtil
 		return valueInstance;
 	}
 	
+	/**
+	 * Writes the serializable object to the buffer
+	 * Prepends the type tag byte before the serialized data
+	 * @param serialize The object to serialize
+	 * @param output The output buffer
+	 */
+	public static void writeTo(ISerialize serialize, ByteBuf output) throws IOException
+	{
+		// Skip size before Type tag (includes tag)
+		writeVarInt(serialize.getComputedSize() + 1, output);
+		// Type tag before data block
+		output.writeByte((byte)serialize.getSerializeType().ordinal());
+		// Data block
+		serialize.serializeTo(output);
+	}
+	
+	/**
+	 * Reads and deserializes the serializable object from the buffer
+	 * and gets the associated value kind
+	 * Assumes that the skip count (VarInt) has already been read
+	 *
+	 * @param input The input buffer
+	 * @throws IOException Any IO errors thrown during reading
+	 * @return serialize The deserialized object
+	 */
+	public static SeValue readIntoValue(ByteBuf input) throws IOException
+	{
+		// (Skip has already been read)
+		
+		// Fetch the tag type
+		SeDataTypes decodeType = SeDataTypes.values()[input.readUnsignedByte()];
+		SeValue valueInstance = decodeType.getNewInstance();
+		
+		// Try to deserialize
+		if (!valueInstance.deserializeFrom(input))
+			return null;
+		
+		return valueInstance;
+	}
+	
 	public static void writeString(String string, DataOutputStream output) throws IOException, IllegalArgumentException
 	{
 		// Warn of truncation (should be captured during setValue[At])
@@ -77,7 +119,7 @@ public class SeUtil
 		int length = readVarInt(input);
 		if (length > MAX_STRLEN || length < 0)
 			throw new IllegalArgumentException("String length exceeds maximum encoding length");
-			
+		
 		if (length == 0)
 			return "";
 		
@@ -91,49 +133,205 @@ public class SeUtil
 		return new String(bytes, StandardCharsets.UTF_8);
 	}
 	
+	public static void writeString(String string, ByteBuf output) throws IllegalArgumentException
+	{
+		// Warn of truncation (should be captured during setValue[At])
+		if (string.length() > MAX_STRLEN)
+			throw new IllegalArgumentException("String length exceeds maximum encoding length");
+		
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		int length = Math.min(bytes.length, MAX_STRLEN);
+		
+		writeVarInt(length, output);
+		// Write out the string in UTF-8 format
+		output.writeBytes(bytes);
+	}
+	
+	public static String readString(ByteBuf input) throws IllegalArgumentException
+	{
+		// Read in the length
+		int length = readVarInt(input);
+		if (length > MAX_STRLEN || length < 0)
+			throw new IllegalArgumentException("String length exceeds maximum encoding length");
+		
+		if (length == 0)
+			return "";
+		
+		if (input.readableBytes() < length)
+			throw new IllegalArgumentException("String length is less than the storage length");
+		
+		// Decode the string straight out of the buffer
+		String string = input.toString(input.readerIndex(), length, StandardCharsets.UTF_8);
+		input.skipBytes(length);
+		
+		return string;
+	}
+	
 	public static int getStringSize(String string)
 	{
-		return getVarIntSize(string.length()) + string.getBytes(StandardCharsets.UTF_8).length;
+		int length = string.getBytes(StandardCharsets.UTF_8).length;
+		return getVarIntSize(length) + length;
+	}
+	
+	/**
+	 * Writes out the header of a record field
+	 * @param id The id of the field
+	 * @param dataSize The size of the field's data
+	 * @param type The type of the field's data
+	 * @param output The output stream
+	 */
+	public static void writeFieldHeader(int id, int dataSize, SeDataTypes type, DataOutputStream output) throws IOException
+	{
+		writeVarInt(id, output);
+		// Skip includes the tag
+		writeVarInt(dataSize + 1, output);
+		output.writeByte(type.ordinal());
+	}
+	
+	/**
+	 * Writes out the header of a record field
+	 * @param id The id of the field
+	 * @param dataSize The size of the field's data
+	 * @param type The type of the field's data
+	 * @param output The output buffer
+	 */
+	public static void writeFieldHeader(int id, int dataSize, SeDataTypes type, ByteBuf output)
+	{
+		writeVarInt(id, output);
+		// Skip includes the tag
+		writeVarInt(dataSize + 1, output);
+		output.writeByte(type.ordinal());
+	}
+	
+	/**
+	 * Computes the size of a record field, including the header
+	 * @param id The id of the field
+	 * @param dataSize The size of the field's data
+	 * @return The size of the whole field
+	 */
+	public static int getFieldSize(int id, int dataSize)
+	{
+		return getVarIntSize(id) + getVarIntSize(dataSize + 1) + 1 + dataSize;
+	}
+	
+	/**
+	 * Reads the length of an array field, checking it against the field's skip
+	 * @param skip The skip of the field
+	 * @param elementSize The size of each array element
+	 * @param input The input stream
+	 * @return The length of the array
+	 * @throws IOException If the length doesn't match up with the skip
+	 */
+	public static int readArrayLength(int skip, int elementSize, DataInputStream input) throws IOException
+	{
+		return checkArrayLength(input.readInt(), skip, elementSize);
+	}
+	
+	/**
+	 * Reads the length of an array field, checking it against the field's skip
+	 * @param skip The skip of the field
+	 * @param elementSize The size of each array element
+	 * @param input The input buffer
+	 * @return The length of the array
+	 * @throws IOException If the length doesn't match up with the skip
+	 */
+	public static int readArrayLength(int skip, int elementSize, ByteBuf input) throws IOException
+	{
+		return checkArrayLength(input.readInt(), skip, elementSize);
+	}
+	
+	private static int checkArrayLength(int length, int skip, int elementSize) throws IOException
+	{
+		// Skip covers the tag, length, and elements
+		if (length < 0 || (long)length * elementSize != skip - 1 - Integer.BYTES)
+			throw new IOException("Bad array length " + length);
+		
+		return length;
+	}
+	
+	/**
+	 * Skips over the given number of bytes in the stream
+	 * @param input The input stream
+	 * @param count The number of bytes to skip
+	 * @throws IOException If the stream ends before all of the bytes are skipped
+	 */
+	public static void skipFully(DataInputStream input, int count) throws IOException
+	{
+		while (count > 0)
+		{
+			int skipped = input.skipBytes(count);
+			
+			// Make sure there is still more data
+			if (skipped <= 0)
+			{
+				input.readByte();
+				skipped = 1;
+			}
+			
+			count -= skipped;
+		}
 	}
 	
 	// Write out a VarInt
 	public static void writeVarInt(int value, DataOutputStream output) throws IOException
 	{
 		// Handle trivial case
-		if (value < 0x80)
+		if (value < 0x80 && value >= 0)
 		{
 			output.writeByte(value);
 			return;
 		}
 		
-		// Encode the var int using the following format:
-		// x000000 (x -> next byte)
-		int encodeBits = value;
-		int remainingEncode = 32;
-		int shiftBits = 4;
-		boolean overLeadingZeros = false;
-		
-		do
+		// Encode the var int using the following format, most significant group first:
+		// x0000000 (x -> next byte)
+		for (int group = getVarIntSize(value) - 1; group >= 0; group--)
 		{
-			int mask = 0x7F >> (7 - shiftBits);
-			int writeOut = (encodeBits >> (32 - shiftBits)) & mask;
-			remainingEncode -= 32;
-			encodeBits <<= 7;
-			shiftBits = 7;
+			int writeOut = (value >>> (group * 7)) & 0x7F;
 			
-			if (!overLeadingZeros && writeOut != 0)
-			{
-				// Over the leading zeros
-				overLeadingZeros = true;
-			}
+			if (group != 0)
+				// Make continue
+				writeOut |= 0x80;
+			
+			output.writeByte(writeOut);
+		}
+	}
+	
+	// Write out a VarInt
+	public static void writeVarInt(int value, ByteBuf output)
+	{
+		// Handle trivial case
+		if (value < 0x80 && value >= 0)
+		{
+			output.writeByte(value);
+			return;
+		}
+		
+		// Same format as the stream version
+		for (int group = getVarIntSize(value) - 1; group >= 0; group--)
+		{
+			int writeOut = (value >>> (group * 7)) & 0x7F;
 			
-			if (remainingEncode != 0)
+			if (group != 0)
 				// Make continue
 				writeOut |= 0x80;
 			
-			if (overLeadingZeros)
-				output.writeByte(writeOut);
-		} while (remainingEncode > 0);
+			output.writeByte(writeOut);
+		}
+	}
+	
+	// Read a VarInt
+	public static int readVarInt(ByteBuf input)
+	{
+		int decodeByte, output = 0;
+		
+		do
+		{
+			decodeByte = input.readUnsignedByte();
+			output <<= 7;
+			output |= decodeByte & 0x7F;
+		} while ((decodeByte & 0x80) != 0);
+		
+		return output;
 	}
 	
 	// Read a VarInt
@@ -154,7 +352,7 @@ public class SeUtil
 	// Computes the number of bytes that a VarInt will use
 	public static int getVarIntSize(int value)
 	{
-		return ((32 - Integer.numberOfLeadingZeros(value)) / 7) + 1;
+		return Math.max(1, (32 - Integer.numberOfLeadingZeros(value) + 6) / 7);
 	}
 	
 }
@@ -29,5 +29,6 @@ public abstract class SeValue implements ISerialize
 	public String    asString()       { throw new IllegalStateException("Mismatched type"); }
 	public SeBlock   asBlock()        { throw new IllegalStateException("Mismatched type"); }
 	public SeList    asList()         { throw new IllegalStateException("Mismatched type"); }
+	public SeRecord  asRecord()       { throw new IllegalStateException("Mismatched type"); }
 	
 }
@@ -1,5 +1,7 @@
 package ddb.io.voxelnet.serial;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -29,6 +31,18 @@ class SeWrapperValue<T extends ISerialize> extends SeValue
 		return wrappedValue.deserializeFrom(input);
 	}
 	
+	@Override
+	public void serializeTo(ByteBuf output) throws IOException
+	{
+		wrappedValue.serializeTo(output);
+	}
+	
+	@Override
+	public boolean deserializeFrom(ByteBuf input) throws IOException
+	{
+		return wrappedValue.deserializeFrom(input);
+	}
+	
 	@Override
 	public int getComputedSize()
 	{
@@ -41,6 +55,15 @@ class SeWrapperValue<T extends ISerialize> extends SeValue
 		return wrappedValue.getSerializeType();
 	}
 	
+	/**
+	 * Gets the wrapped serializable value
+	 * @return The wrapped value
+	 */
+	T getWrappedValue()
+	{
+		return wrappedValue;
+	}
+	
 	@Override
 	public SeBlock asBlock()
 	{
@@ -61,4 +84,14 @@ class SeWrapperValue<T extends ISerialize> extends SeValue
 		return super.asList();
 	}
 	
+	@Override
+	public SeRecord asRecord()
+	{
+		if (wrappedValue instanceof SeRecord)
+			return (SeRecord) wrappedValue;
+		
+		// Fail
+		return super.asRecord();
+	}
+	
 }
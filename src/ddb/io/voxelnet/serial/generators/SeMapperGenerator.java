@@ -0,0 +1,503 @@
+package ddb.io.voxelnet.serial.generators;
+
+import ddb.io.voxelnet.serial.SeField;
+import ddb.io.voxelnet.serial.SeMapped;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates 'SeMapper's for classes marked with 'SeMapped'
+ *
+ * The classes must already be compiled & on the class path, and the mappers
+ * are written into the same package as the class so that package-private
+ * fields can be reached
+ *
+ * Usage: SeMapperGenerator [source root] [class names...]
+ */
+public class SeMapperGenerator
+{
+	// Supported field types, by class
+	private static final Map<Class<?>, FieldTypeInfo> FIELD_TYPES = new HashMap<>();
+	
+	static
+	{
+		addType(byte.class,    "Byte",    "BYTE",    "Byte.BYTES");
+		addType(boolean.class, "Boolean", "BOOLEAN", "1");
+		addType(short.class,   "Short",   "SHORT",   "Short.BYTES");
+		addType(char.class,    "Char",    "CHAR",    "Character.BYTES");
+		addType(int.class,     "Int",     "INT",     "Integer.BYTES");
+		addType(float.class,   "Float",   "FLOAT",   "Float.BYTES");
+		addType(long.class,    "Long",    "LONG",    "Long.BYTES");
+		addType(double.class,  "Double",  "DOUBLE",  "Double.BYTES");
+		FIELD_TYPES.put(String.class, new FieldTypeInfo("String", "STRING", null, false, null));
+	}
+	
+	public static void main(String[] args)
+	{
+		if (args.length < 2)
+		{
+			System.out.println("Usage: SeMapperGenerator [source root] [class names...]");
+			return;
+		}
+		
+		File sourceRoot = new File(args[0]);
+		
+		for (int i = 1; i < args.length; i++)
+		{
+			try
+			{
+				Class<?> mappedClass = Class.forName(args[i]);
+				String packageName = mappedClass.getPackage().getName();
+				
+				File outputDir = new File(sourceRoot, packageName.replace('.', File.separatorChar));
+				File outputFile = new File(outputDir, mappedClass.getSimpleName() + "SeMapper.java");
+				
+				String source = generateSource(mappedClass);
+				
+				try (FileWriter writer = new FileWriter(outputFile))
+				{
+					writer.append(source);
+				}
+				
+				System.out.println("Generated " + outputFile);
+			}
+			catch (ClassNotFoundException | IOException | IllegalArgumentException e)
+			{
+				System.err.println("Unable to generate a mapper for " + args[i]);
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	private static void addType(Class<?> type, String className, String enumName, String size)
+	{
+		FIELD_TYPES.put(type, new FieldTypeInfo(className, enumName, size, false, null));
+		
+		Class<?> arrayType = Array.newInstance(type, 0).getClass();
+		FIELD_TYPES.put(arrayType, new FieldTypeInfo(className, enumName + "_ARRAY", size, true, type.getName()));
+	}
+	
+	private static class FieldTypeInfo
+	{
+		// Name used in the read & write methods
+		final String className;
+		// Name of the 'SeDataTypes' entry
+		final String enumName;
+		// Size of the value (or of each element), or null if it depends on the value
+		final String size;
+		final boolean isArray;
+		// Element type for arrays
+		final String elementName;
+		
+		private FieldTypeInfo(String className, String enumName, String size, boolean isArray, String elementName)
+		{
+			this.className = className;
+			this.enumName = enumName;
+			this.size = size;
+			this.isArray = isArray;
+			this.elementName = elementName;
+		}
+		
+		boolean isReference()
+		{
+			return isArray || size == null;
+		}
+		
+		// Expression for the size of the field data
+		String getDataSize(String access)
+		{
+			if (!isArray)
+				return size == null ? String.format("SeUtil.getStringSize(%s)", access) : size;
+			
+			if (size.equals("1"))
+				return String.format("Integer.BYTES + %s.length", access);
+			
+			return String.format("Integer.BYTES + %s.length * %s", access, size);
+		}
+	}
+	
+	private static class MappedField
+	{
+		final int id;
+		final String name;
+		final FieldTypeInfo type;
+		final boolean isFinal;
+		final String access;
+		
+		private MappedField(int id, Field field, FieldTypeInfo type)
+		{
+			this.id = id;
+			this.name = field.getName();
+			this.type = type;
+			this.isFinal = Modifier.isFinal(field.getModifiers());
+			this.access = "value." + field.getName();
+		}
+	}
+	
+	// Collects & checks all of the mapped fields of a class, including the inherited ones
+	private static List<MappedField> collectFields(Class<?> mappedClass)
+	{
+		List<MappedField> fields = new ArrayList<>();
+		Set<Integer> usedIds = new HashSet<>();
+		
+		for (Class<?> current = mappedClass; current != null; current = current.getSuperclass())
+		{
+			for (Field field : current.getDeclaredFields())
+			{
+				SeField annotation = field.getAnnotation(SeField.class);
+				
+				if (annotation == null)
+					continue;
+				
+				String fieldName = current.getSimpleName() + "." + field.getName();
+				int modifiers = field.getModifiers();
+				
+				if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers))
+					throw new IllegalArgumentException(fieldName + " can't be static or private");
+				
+				if (!Modifier.isPublic(modifiers) && current.getPackage() != mappedClass.getPackage())
+					throw new IllegalArgumentException(fieldName + " can't be reached from the mapper's package");
+				
+				FieldTypeInfo type = FIELD_TYPES.get(field.getType());
+				
+				if (type == null)
+					throw new IllegalArgumentException(fieldName + " has an unsupported type " + field.getType().getSimpleName());
+				
+				if (annotation.id() < 0 || !usedIds.add(annotation.id()))
+					throw new IllegalArgumentException(fieldName + " has a bad or duplicate id " + annotation.id());
+				
+				fields.add(new MappedField(annotation.id(), field, type));
+			}
+		}
+		
+		fields.sort(Comparator.comparingInt(field -> field.id));
+		return fields;
+	}
+	
+	private static String generateSource(Class<?> mappedClass)
+	{
+		SeMapped mapped = mappedClass.getAnnotation(SeMapped.class);
+		
+		if (mapped == null)
+			throw new IllegalArgumentException(mappedClass.getName() + " isn't marked with SeMapped");
+		
+		List<MappedField> fields = collectFields(mappedClass);
+		
+		String afterRead = "";
+		if (!mapped.afterRead().isEmpty())
+		{
+			try
+			{
+				Method method = mappedClass.getDeclaredMethod(mapped.afterRead());
+				
+				if (Modifier.isPrivate(method.getModifiers()) || Modifier.isStatic(method.getModifiers()))
+					throw new IllegalArgumentException(mapped.afterRead() + " can't be static or private");
+			}
+			catch (NoSuchMethodException e)
+			{
+				throw new IllegalArgumentException("No method named " + mapped.afterRead() + " in " + mappedClass.getSimpleName());
+			}
+			
+			afterRead = "		\n" +
+					String.format("		value.%s();\n", mapped.afterRead());
+		}
+		
+		String typeName = mappedClass.getSimpleName();
+		String mapperName = typeName + "SeMapper";
+		
+		StringBuilder fieldList = new StringBuilder();
+		StringBuilder fixedSizes = new StringBuilder();
+		StringBuilder variableSizes = new StringBuilder();
+		
+		for (MappedField field : fields)
+		{
+			String kind = field.type.isArray ? field.type.elementName + "[]" : field.type.size == null ? "String" : field.type.className.toLowerCase();
+			fieldList.append(String.format(" * %d: %s (%s%s)\n", field.id, field.name, kind, field.isFinal ? ", final" : ""));
+			
+			if (field.type.isReference())
+				variableSizes.append(String.format("		size += %s == null ? SeUtil.getFieldSize(%d, 0) : SeUtil.getFieldSize(%d, %s);\n",
+						field.access, field.id, field.id, field.type.getDataSize(field.access)));
+			else
+				fixedSizes.append(String.format("\n			+ SeUtil.getFieldSize(%d, %s)", field.id, field.type.size));
+		}
+		
+		return "package " + mappedClass.getPackage().getName() + ";\n" +
+				"\n" +
+				"import ddb.io.voxelnet.serial.SeDataTypes;\n" +
+				"import ddb.io.voxelnet.serial.SeMapper;\n" +
+				"import ddb.io.voxelnet.serial.SeRecord;\n" +
+				"import ddb.io.voxelnet.serial.SeUtil;\n" +
+				"import ddb.io.voxelnet.serial.SeValue;\n" +
+				"import io.netty.buffer.ByteBuf;\n" +
+				"\n" +
+				"import java.io.DataInputStream;\n" +
+				"import java.io.DataOutputStream;\n" +
+				"import java.io.IOException;\n" +
+				"\n" +
+				"/**\n" +
+				String.format(" * Mapper for '%s's, generated by 'SeMapperGenerator'\n", typeName) +
+				" * Don't edit this directly, regenerate it after changing the fields\n" +
+				" *\n" +
+				" * Fields:\n" +
+				fieldList +
+				" */\n" +
+				String.format("public final class %s implements SeMapper<%s>\n", mapperName, typeName) +
+				"{\n" +
+				String.format("	public static final %s INSTANCE = new %s();\n", mapperName, mapperName) +
+				"	\n" +
+				String.format("	private static final int FIELD_COUNT = %d;\n", fields.size()) +
+				"	// Size of the field count, and of all of the fields with a fixed size\n" +
+				"	private static final int FIXED_SIZE = Integer.BYTES" + fixedSizes + ";\n" +
+				"	\n" +
+				String.format("	private %s() {}\n", mapperName) +
+				"	\n" +
+				"	@Override\n" +
+				String.format("	public void writeTo(%s value, DataOutputStream output) throws IOException\n", typeName) +
+				"	{\n" +
+				"		output.writeInt(FIELD_COUNT);\n" +
+				generateWrites(fields, false) +
+				"	}\n" +
+				"	\n" +
+				"	@Override\n" +
+				String.format("	public void readFrom(%s value, DataInputStream input) throws IOException\n", typeName) +
+				"	{\n" +
+				generateReads(fields, false) +
+				afterRead +
+				"	}\n" +
+				"	\n" +
+				"	@Override\n" +
+				String.format("	public void writeTo(%s value, ByteBuf output)\n", typeName) +
+				"	{\n" +
+				"		output.writeInt(FIELD_COUNT);\n" +
+				generateWrites(fields, true) +
+				"	}\n" +
+				"	\n" +
+				"	@Override\n" +
+				String.format("	public void readFrom(%s value, ByteBuf input) throws IOException\n", typeName) +
+				"	{\n" +
+				generateReads(fields, true) +
+				afterRead +
+				"	}\n" +
+				"	\n" +
+				"	@Override\n" +
+				String.format("	public void readFrom(%s value, SeRecord record) throws IOException\n", typeName) +
+				"	{\n" +
+				"		SeValue field;\n" +
+				generateRecordReads(fields) +
+				afterRead +
+				"	}\n" +
+				"	\n" +
+				"	@Override\n" +
+				String.format("	public int getComputedSize(%s value)\n", typeName) +
+				"	{\n" +
+				"		int size = FIXED_SIZE;\n" +
+				variableSizes +
+				"		return size;\n" +
+				"	}\n" +
+				"}\n";
+	}
+	
+	private static String generateWrites(List<MappedField> fields, boolean isBuffer)
+	{
+		StringBuilder source = new StringBuilder();
+		
+		for (MappedField field : fields)
+		{
+			FieldTypeInfo type = field.type;
+			String access = field.access;
+			
+			source.append("		\n");
+			source.append(String.format("		// %s\n", field.name));
+			
+			if (!type.isReference())
+			{
+				source.append(String.format("		SeUtil.writeFieldHeader(%d, %s, SeDataTypes.%s, output);\n", field.id, type.size, type.enumName));
+				source.append(String.format("		output.write%s(%s);\n", type.className, access));
+				continue;
+			}
+			
+			// Null references are written as empty fields
+			source.append(String.format("		if (%s == null)\n", access));
+			source.append("		{\n");
+			source.append(String.format("			SeUtil.writeFieldHeader(%d, 0, SeDataTypes.EMPTY, output);\n", field.id));
+			source.append("		}\n");
+			source.append("		else\n");
+			source.append("		{\n");
+			source.append(String.format("			SeUtil.writeFieldHeader(%d, %s, SeDataTypes.%s, output);\n", field.id, type.getDataSize(access), type.enumName));
+			
+			if (!type.isArray)
+			{
+				source.append(String.format("			SeUtil.writeString(%s, output);\n", access));
+			}
+			else
+			{
+				source.append(String.format("			output.writeInt(%s.length);\n", access));
+				
+				if (type.className.equals("Byte"))
+				{
+					source.append(String.format("			output.%s(%s);\n", isBuffer ? "writeBytes" : "write", access));
+				}
+				else
+				{
+					source.append(String.format("			for (%s element : %s)\n", type.elementName, access));
+					source.append(String.format("				output.write%s(element);\n", type.className));
+				}
+			}
+			
+			source.append("		}\n");
+		}
+		
+		return source.toString();
+	}
+	
+	private static String generateReads(List<MappedField> fields, boolean isBuffer)
+	{
+		StringBuilder source = new StringBuilder();
+		
+		source.append("		int fieldCount = input.readInt();\n");
+		source.append("		\n");
+		source.append("		for (int i = 0; i < fieldCount; i++)\n");
+		source.append("		{\n");
+		source.append("			int id = SeUtil.readVarInt(input);\n");
+		source.append("			int skip = SeUtil.readVarInt(input);\n");
+		source.append(isBuffer ?
+				"			int tag = input.readUnsignedByte();\n" :
+				"			int tag = Byte.toUnsignedInt(input.readByte());\n");
+		source.append("			\n");
+		source.append("			switch (id)\n");
+		source.append("			{\n");
+		
+		for (MappedField field : fields)
+		{
+			FieldTypeInfo type = field.type;
+			String access = field.access;
+			
+			// Final values are only ever written out
+			if (field.isFinal && !type.isArray)
+				continue;
+			
+			source.append(String.format("				case %d: // %s\n", field.id, field.name));
+			
+			if (type.isReference() && !field.isFinal)
+			{
+				source.append("					if (tag == SeDataTypes.EMPTY.ordinal())\n");
+				source.append("					{\n");
+				source.append(String.format("						%s = null;\n", access));
+				source.append("						continue;\n");
+				source.append("					}\n");
+				source.append("					\n");
+			}
+			
+			source.append(String.format("					if (tag != SeDataTypes.%s.ordinal())\n", type.enumName));
+			source.append("						break;\n");
+			source.append("					\n");
+			
+			if (!type.isArray)
+			{
+				if (type.size == null)
+					source.append(String.format("					%s = SeUtil.readString(input);\n", access));
+				else
+					source.append(String.format("					%s = input.read%s();\n", access, type.className));
+				
+				source.append("					continue;\n");
+				continue;
+			}
+			
+			String lengthRead = String.format("SeUtil.readArrayLength(skip, %s, input)", type.size);
+			
+			if (field.isFinal)
+			{
+				// Read back into the existing array
+				source.append(String.format("					if (%s != %s.length)\n", lengthRead, access));
+				source.append(String.format("						throw new IOException(\"Mismatched length for %s\");\n", field.name));
+				source.append("					\n");
+			}
+			else
+			{
+				source.append(String.format("					%s = new %s[%s];\n", access, type.elementName, lengthRead));
+			}
+			
+			if (type.className.equals("Byte"))
+			{
+				source.append(String.format("					input.%s(%s);\n", isBuffer ? "readBytes" : "readFully", access));
+			}
+			else
+			{
+				source.append(String.format("					for (int j = 0; j < %s.length; j++)\n", access));
+				source.append(String.format("						%s[j] = input.read%s();\n", access, type.className));
+			}
+			
+			source.append("					continue;\n");
+		}
+		
+		source.append("				default:\n");
+		source.append("					break;\n");
+		source.append("			}\n");
+		source.append("			\n");
+		source.append("			// Skip over unknown fields, and ones with a different type\n");
+		source.append(isBuffer ?
+				"			input.skipBytes(skip - 1);\n" :
+				"			SeUtil.skipFully(input, skip - 1);\n");
+		source.append("		}\n");
+		
+		return source.toString();
+	}
+	
+	private static String generateRecordReads(List<MappedField> fields)
+	{
+		StringBuilder source = new StringBuilder();
+		
+		for (MappedField field : fields)
+		{
+			FieldTypeInfo type = field.type;
+			String access = field.access;
+			
+			// Final values are only ever written out
+			if (field.isFinal && !type.isArray)
+				continue;
+			
+			String converted = type.size == null ? "field.asString()" : type.isArray ? String.format("field.as%sArray()", type.className) : String.format("field.as%s()", type.className);
+			
+			source.append("		\n");
+			source.append(String.format("		// %s\n", field.name));
+			source.append(String.format("		field = record.getValue(%d);\n", field.id));
+			
+			if (field.isFinal)
+			{
+				// Copy back into the existing array
+				source.append(String.format("		if (field.getSerializeType() == SeDataTypes.%s)\n", type.enumName));
+				source.append("		{\n");
+				source.append(String.format("			if (%s.length != %s.length)\n", converted, access));
+				source.append(String.format("				throw new IOException(\"Mismatched length for %s\");\n", field.name));
+				source.append("			\n");
+				source.append(String.format("			System.arraycopy(%s, 0, %s, 0, %s.length);\n", converted, access, access));
+				source.append("		}\n");
+				continue;
+			}
+			
+			source.append(String.format("		if (field.getSerializeType() == SeDataTypes.%s)\n", type.enumName));
+			source.append(String.format("			%s = %s;\n", access, converted));
+			
+			if (type.isReference())
+			{
+				source.append(String.format("		else if (record.hasField(%d) && field.getSerializeType() == SeDataTypes.EMPTY)\n", field.id));
+				source.append(String.format("			%s = null;\n", access));
+			}
+		}
+		
+		return source.toString();
+	}
+}
@@ -63,6 +63,8 @@ public class SePrimitiveTypeGenerator
 		String size = info.size;
 		
 		return "package ddb.io.voxelnet.serial;\n" +
+				"\n" +
+				"import io.netty.buffer.ByteBuf;\n" +
 				"\n" +
 				"import java.io.DataInputStream;\n" +
 				"import java.io.DataOutputStream;\n" +
@@ -100,6 +102,20 @@ public class SePrimitiveTypeGenerator
 				"	}\n" +
 				"	\n" +
 				"	@Override\n" +
+				"	public void serializeTo(ByteBuf output)\n" +
+				"	{\n" +
+				"		// Write out the value\n" +
+				String.format("		output.write%s(value);\n", className) +
+				"	}\n" +
+				"	\n" +
+				"	@Override\n" +
+				"	public boolean deserializeFrom(ByteBuf input)\n" +
+				"	{\n" +
+				String.format("		value = input.read%s();\n", className) +
+				"		return true;\n" +
+				"	}\n" +
+				"	\n" +
+				"	@Override\n" +
 				"	public SeDataTypes getSerializeType()\n" +
 				"	{\n" +
 				String.format("		return SeDataTypes.%s;\n", enumName) +
@@ -127,11 +143,18 @@ public class SePrimitiveTypeGenerator
 		String enumName = info.enumName;
 		String size = info.size;
 		
+		// Bytes can be copied straight in & out, and booleans have no buffer view
+		boolean isByte = typeName.equals("byte");
+		boolean hasBufferView = !isByte && !typeName.equals("boolean");
+		
 		return "package ddb.io.voxelnet.serial;\n" +
+				" \n" +
+				"import io.netty.buffer.ByteBuf;\n" +
 				" \n" +
 				"import java.io.DataInputStream;\n" +
 				"import java.io.DataOutputStream;\n" +
 				"import java.io.IOException;\n" +
+				(hasBufferView ? "import java.nio.ByteOrder;\n" : "") +
 				" \n" +
 				"/**\n" +
 				String.format(" * Wrapper for %s arrays\n", typeName) +
@@ -179,9 +202,51 @@ public class SePrimitiveTypeGenerator
 				"	}\n" +
 				"	\n" +
 				"	@Override\n" +
+				"	public void serializeTo(ByteBuf output)\n" +
+				"	{\n" +
+				"		super.serializeTo(output);\n" +
+				"		\n" +
+				"		if (getLength() == 0)\n" +
+				"			return;\n" +
+				"		\n" +
+				(isByte ?
+				"		output.writeBytes(value);\n"
+				:
+				String.format("		for (%s value : value)\n", typeName) +
+				String.format("			output.write%s(value);\n", className)) +
+				"	}\n" +
+				"	\n" +
+				"	@Override\n" +
+				"	public boolean deserializeFrom(ByteBuf input)\n" +
+				"	{\n" +
+				"		super.deserializeFrom(input);\n" +
+				"		\n" +
+				String.format("		value = new %s[getLength()];\n", typeName) +
+				"		\n" +
+				"		if (getLength() == 0)\n" +
+				"			return true;\n" +
+				"		\n" +
+				(isByte ?
+				"		input.readBytes(value);\n"
+				: hasBufferView ?
+				"		// Copy straight out of a view of the buffer\n" +
+				String.format("		int byteLength = getLength() * %s;\n", size) +
+				String.format("		input.nioBuffer(input.readerIndex(), byteLength).order(ByteOrder.BIG_ENDIAN).as%sBuffer().get(value);\n", className) +
+				"		input.skipBytes(byteLength);\n"
+				:
+				"		for (int i = 0; i < getLength(); i++)\n" +
+				String.format("			value[i] = input.read%s();\n", className)) +
+				"		\n" +
+				"		return true;\n" +
+				"	}\n" +
+				"	\n" +
+				"	@Override\n" +
 				"	public int getComputedSize()\n" +
 				"	{\n" +
-				String.format("		return super.getComputedSize() + getLength() * %s;\n", size) +
+				(size.equals("1") ?
+				"		return super.getComputedSize() + getLength();\n"
+				:
+				String.format("		return super.getComputedSize() + getLength() * %s;\n", size)) +
 				"	}\n" +
 				"	\n" +
 				"	@Override\n" +
@@ -0,0 +1,60 @@
+package ddb.io.voxelnet.server;
+
+import ddb.io.voxelnet.util.Vec3i;
+import ddb.io.voxelnet.world.BlockChangeListener;
+import ddb.io.voxelnet.world.ChunkManager;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the block changes made during a tick, grouped up by chunk
+ *
+ * Only the positions are kept, so a block that changes several times in a
+ * tick is only sent once, with whatever state it ends up in.
+ * Changes in columns that aren't ready yet (i.e. still generating) are
+ * skipped, as those columns haven't been sent to anyone
+ */
+public class BlockChangeBatcher implements BlockChangeListener
+{
+	private final ChunkManager chunkManager;
+	// Changed positions in each chunk, as indices into the chunk data
+	private Map<Vec3i, BitSet> changedChunks = new LinkedHashMap<>();
+	
+	public BlockChangeBatcher(ChunkManager chunkManager)
+	{
+		this.chunkManager = chunkManager;
+	}
+	
+	@Override
+	public void onBlockChanged(int x, int y, int z)
+	{
+		if (!chunkManager.isColumnReady(x >> 4, z >> 4))
+			return;
+		
+		BitSet changes = changedChunks.computeIfAbsent(new Vec3i(x >> 4, y >> 4, z >> 4), (pos) -> new BitSet(16 * 16 * 16));
+		changes.set(((y & 0xF) << 8) | ((z & 0xF) << 4) | (x & 0xF));
+	}
+	
+	/**
+	 * Checks if there are any changes waiting to be sent
+	 * @return True if there are changes
+	 */
+	public boolean hasChanges()
+	{
+		return !changedChunks.isEmpty();
+	}
+	
+	/**
+	 * Takes all of the changes collected so far, and starts collecting anew
+	 * The changed positions are indices into the chunk data, as (y << 8) | (z << 4) | x
+	 * @return The changed positions in each chunk
+	 */
+	public Map<Vec3i, BitSet> takeChanges()
+	{
+		Map<Vec3i, BitSet> changes = changedChunks;
+		changedChunks = new LinkedHashMap<>();
+		return changes;
+	}
+}
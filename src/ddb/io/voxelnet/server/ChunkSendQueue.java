@@ -0,0 +1,185 @@
+package ddb.io.voxelnet.server;
+
+import ddb.io.voxelnet.util.Vec3i;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The chunk columns waiting to be sent to a client, nearest first
+ *
+ * Columns are ordered by their distance from the client's player, with the
+ * ones in front of the player coming before the ones behind it. As the
+ * player moves into new columns, the columns that came into view are added.
+ * Columns that the client asks for are always added, as the client may have
+ * thrown away a column that was sent before.
+ *
+ * Only used on the main thread
+ */
+public class ChunkSendQueue
+{
+	// Number of different view directions that change the order, per turn
+	private static final int VIEW_SECTORS = 8;
+	
+	// Columns waiting to be sent, in the order to send them
+	private final List<Vec3i> pending = new ArrayList<>();
+	private final Set<Vec3i> pendingSet = new HashSet<>();
+	// Columns that have already been sent, which aren't added again when refilling
+	private final Set<Vec3i> sent = new HashSet<>();
+	
+	// Column that the player is in
+	private int centerX;
+	private int centerZ;
+	// Direction that the player is looking in
+	private float forwardX = 0f;
+	private float forwardZ = -1f;
+	private int viewSector = -1;
+	private boolean hasCenter = false;
+	private boolean needsSort = false;
+	
+	/**
+	 * Updates where the client's player is, adding the columns that came
+	 * into view and forgetting the sent columns that are far out of view
+	 * @param columnX The x position of the column that the player is in
+	 * @param columnZ The z position of the column that the player is in
+	 * @param yaw The yaw of the player, in degrees
+	 * @param viewDistance The distance that the client sees out to, in columns
+	 */
+	public void moveTo(int columnX, int columnZ, float yaw, int viewDistance)
+	{
+		int sector = Math.floorMod(Math.round(yaw * VIEW_SECTORS / 360f), VIEW_SECTORS);
+		
+		if (sector != viewSector)
+		{
+			viewSector = sector;
+			forwardX = (float) -Math.sin(Math.toRadians(sector * 360f / VIEW_SECTORS));
+			forwardZ = (float) -Math.cos(Math.toRadians(sector * 360f / VIEW_SECTORS));
+			needsSort = true;
+		}
+		
+		if (hasCenter && columnX == centerX && columnZ == centerZ)
+			return;
+		
+		hasCenter = true;
+		centerX = columnX;
+		centerZ = columnZ;
+		needsSort = true;
+		
+		// Sent columns a bit past the view distance are likely to be thrown away by the client
+		int forgetDistance = viewDistance + 2;
+		sent.removeIf((pos) -> Math.abs(pos.getX() - columnX) > forgetDistance || Math.abs(pos.getZ() - columnZ) > forgetDistance);
+		
+		for (int z = columnZ - viewDistance; z <= columnZ + viewDistance; z++)
+		{
+			for (int x = columnX - viewDistance; x <= columnX + viewDistance; x++)
+			{
+				Vec3i pos = new Vec3i(x, 0, z);
+				
+				if (!sent.contains(pos))
+					add(pos);
+			}
+		}
+		
+		// Columns that went out of view aren't needed anymore
+		int dropDistance = viewDistance + 1;
+		Iterator<Vec3i> itr = pending.iterator();
+		
+		while (itr.hasNext())
+		{
+			Vec3i pos = itr.next();
+			
+			if (Math.abs(pos.getX() - columnX) > dropDistance || Math.abs(pos.getZ() - columnZ) > dropDistance)
+			{
+				itr.remove();
+				pendingSet.remove(pos);
+			}
+		}
+	}
+	
+	/**
+	 * Adds a column that the client asked for, even if it was sent before
+	 * @param columnX The x position of the column
+	 * @param columnZ The z position of the column
+	 */
+	public void request(int columnX, int columnZ)
+	{
+		add(new Vec3i(columnX, 0, columnZ));
+	}
+	
+	/**
+	 * Gets the columns waiting to be sent, in the order to send them
+	 * Columns are taken off with {@link #markSent(Vec3i)}
+	 * @return The pending columns
+	 */
+	public List<Vec3i> getPending()
+	{
+		if (needsSort)
+		{
+			pending.sort(Comparator.comparingDouble(this::getPriority));
+			needsSort = false;
+		}
+		
+		return new ArrayList<>(pending);
+	}
+	
+	/**
+	 * Marks a column as sent, taking it off of the queue
+	 * @param pos The position of the column
+	 */
+	public void markSent(Vec3i pos)
+	{
+		if (pendingSet.remove(pos))
+			pending.remove(pos);
+		
+		sent.add(pos);
+	}
+	
+	/**
+	 * Checks if a column was sent to the client and hasn't been forgotten yet
+	 * The client may still have the column, so changes to it need to be sent
+	 * @param columnX The x position of the column
+	 * @param columnZ The z position of the column
+	 * @return True if the column was sent
+	 */
+	public boolean hasSent(int columnX, int columnZ)
+	{
+		return sent.contains(new Vec3i(columnX, 0, columnZ));
+	}
+	
+	/**
+	 * Gets the number of columns waiting to be sent
+	 * @return The number of pending columns
+	 */
+	public int size()
+	{
+		return pending.size();
+	}
+	
+	private void add(Vec3i pos)
+	{
+		if (!pendingSet.add(pos))
+			return;
+		
+		pending.add(pos);
+		needsSort = true;
+	}
+	
+	// Lower goes first. The squared distance, scaled down by up to half in
+	// front of the player and up by up to half behind it
+	private double getPriority(Vec3i pos)
+	{
+		int dx = pos.getX() - centerX;
+		int dz = pos.getZ() - centerZ;
+		int distSq = dx * dx + dz * dz;
+		
+		if (distSq == 0)
+			return 0;
+		
+		double facing = (dx * forwardX + dz * forwardZ) / Math.sqrt(distSq);
+		return distSq * (1.0 - 0.5 * facing);
+	}
+}
@@ -0,0 +1,315 @@
+package ddb.io.voxelnet.server;
+
+import ddb.io.voxelnet.network.packet.PSKillPlayer;
+import ddb.io.voxelnet.network.packet.PSSpawnPlayer;
+import io.netty.channel.Channel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of which clients are interested in what, so that updates only
+ * go out to the clients that are close enough to care about them
+ *
+ * Clients are put into a spatial hash by the column that their player is in.
+ * A client sees everything within its view distance (in columns, as a square
+ * around the player). As players move in and out of view of each other, the
+ * players are spawned in and killed off on the clients that see them.
+ *
+ * Clients are added & removed on the network threads, so everything is synchronized
+ */
+public class InterestManager
+{
+	// View distance that new clients start out with, in columns
+	private final int defaultViewDistance;
+	// Largest view distance of any client, which bounds how far away an observer can be
+	private int maxViewDistance;
+	
+	// Clients in each column, keyed by the packed column position
+	private final Map<Long, Set<ClientView>> clientsByColumn = new HashMap<>();
+	// View state of each client
+	private final Map<Integer, ClientView> clients = new HashMap<>();
+	
+	public InterestManager(int defaultViewDistance)
+	{
+		this.defaultViewDistance = defaultViewDistance;
+		this.maxViewDistance = defaultViewDistance;
+	}
+	
+	/**
+	 * Adds a client, spawning in the players that it sees and spawning its
+	 * player on the clients that see it
+	 * @param clientID The id of the client
+	 * @param channel The channel of the client
+	 * @param xPos The x position of the client's player
+	 * @param zPos The z position of the client's player
+	 */
+	public synchronized void addClient(int clientID, Channel channel, float xPos, float zPos)
+	{
+		ClientView client = new ClientView(clientID, channel, defaultViewDistance);
+		client.columnX = (int) Math.floor(xPos) >> 4;
+		client.columnZ = (int) Math.floor(zPos) >> 4;
+		
+		clients.put(clientID, client);
+		getColumnClients(client.columnX, client.columnZ).add(client);
+		
+		updateVisible(client);
+		updateObservers(client);
+	}
+	
+	/**
+	 * Removes a client, killing off its player on the clients that saw it
+	 * @param clientID The id of the client
+	 */
+	public synchronized void removeClient(int clientID)
+	{
+		ClientView client = clients.remove(clientID);
+		
+		if (client == null)
+			return;
+		
+		removeFromColumn(client);
+		
+		for (ClientView observer : new ArrayList<>(client.observers))
+			hide(observer, client);
+		
+		// Nothing gets sent to a leaving client
+		for (ClientView visible : client.visible)
+			visible.observers.remove(client);
+		
+		client.visible.clear();
+	}
+	
+	/**
+	 * Moves a client's player, updating what it sees and who sees it if the
+	 * player moved into another column
+	 * @param clientID The id of the client
+	 * @param xPos The new x position of the client's player
+	 * @param zPos The new z position of the client's player
+	 */
+	public synchronized void moveClient(int clientID, float xPos, float zPos)
+	{
+		ClientView client = clients.get(clientID);
+		int columnX = (int) Math.floor(xPos) >> 4;
+		int columnZ = (int) Math.floor(zPos) >> 4;
+		
+		// Only changing columns changes anything
+		if (client == null || (client.columnX == columnX && client.columnZ == columnZ))
+			return;
+		
+		removeFromColumn(client);
+		client.columnX = columnX;
+		client.columnZ = columnZ;
+		getColumnClients(columnX, columnZ).add(client);
+		
+		updateVisible(client);
+		updateObservers(client);
+	}
+	
+	/**
+	 * Changes how far away a client can see
+	 * @param clientID The id of the client
+	 * @param viewDistance The new view distance, in columns
+	 */
+	public synchronized void setViewDistance(int clientID, int viewDistance)
+	{
+		ClientView client = clients.get(clientID);
+		
+		if (client == null)
+			return;
+		
+		client.viewDistance = viewDistance;
+		maxViewDistance = Math.max(maxViewDistance, viewDistance);
+		updateVisible(client);
+	}
+	
+	/**
+	 * Gets how far away a client can see
+	 * @param clientID The id of the client
+	 * @return The view distance of the client, in columns
+	 */
+	public synchronized int getViewDistance(int clientID)
+	{
+		ClientView client = clients.get(clientID);
+		return client != null ? client.viewDistance : defaultViewDistance;
+	}
+	
+	/**
+	 * Gets the channels of the clients that see the client's player
+	 * @param clientID The id of the client
+	 * @return The channels of the observing clients
+	 */
+	public synchronized List<Channel> getObserverChannels(int clientID)
+	{
+		ClientView client = clients.get(clientID);
+		List<Channel> channels = new ArrayList<>();
+		
+		if (client != null)
+		{
+			for (ClientView observer : client.observers)
+				channels.add(observer.channel);
+		}
+		
+		return channels;
+	}
+	
+	/**
+	 * Checks if anyone has started seeing the client's player since the last
+	 * check, as those clients need the player's full movement state
+	 * @param clientID The id of the client
+	 * @return True if there are new observers
+	 */
+	public synchronized boolean takeNewObservers(int clientID)
+	{
+		ClientView client = clients.get(clientID);
+		
+		if (client == null || !client.hasNewObservers)
+			return false;
+		
+		client.hasNewObservers = false;
+		return true;
+	}
+	
+	// Updates the players that the client sees
+	private void updateVisible(ClientView viewer)
+	{
+		Set<ClientView> nowVisible = new LinkedHashSet<>();
+		
+		forEachClientNear(viewer.columnX, viewer.columnZ, viewer.viewDistance, (other) -> {
+			if (other != viewer && viewer.canSee(other.columnX, other.columnZ))
+				nowVisible.add(other);
+		});
+		
+		for (ClientView target : new ArrayList<>(viewer.visible))
+		{
+			if (!nowVisible.contains(target))
+				hide(viewer, target);
+		}
+		
+		for (ClientView target : nowVisible)
+		{
+			if (!viewer.visible.contains(target))
+				show(viewer, target);
+		}
+	}
+	
+	// Updates the clients that see the client's player
+	private void updateObservers(ClientView target)
+	{
+		for (ClientView observer : new ArrayList<>(target.observers))
+		{
+			if (!observer.canSee(target.columnX, target.columnZ))
+				hide(observer, target);
+		}
+		
+		// Anyone that can see the player has to be within the largest view distance
+		forEachClientNear(target.columnX, target.columnZ, maxViewDistance, (observer) -> {
+			if (observer != target && observer.canSee(target.columnX, target.columnZ) && !observer.visible.contains(target))
+				show(observer, target);
+		});
+	}
+	
+	private void show(ClientView viewer, ClientView target)
+	{
+		viewer.visible.add(target);
+		target.observers.add(viewer);
+		target.hasNewObservers = true;
+		viewer.channel.write(new PSSpawnPlayer(target.clientID));
+	}
+	
+	private void hide(ClientView viewer, ClientView target)
+	{
+		viewer.visible.remove(target);
+		target.observers.remove(viewer);
+		viewer.channel.write(new PSKillPlayer(target.clientID));
+	}
+	
+	// Visits every client in the square area around the column
+	private void forEachClientNear(int columnX, int columnZ, int radius, Consumer<ClientView> action)
+	{
+		int span = radius * 2 + 1;
+		
+		if ((long) span * span > clients.size())
+		{
+			// Fewer clients than columns to look at, so check all of the clients instead
+			for (ClientView client : new ArrayList<>(clients.values()))
+			{
+				if (Math.abs(client.columnX - columnX) <= radius && Math.abs(client.columnZ - columnZ) <= radius)
+					action.accept(client);
+			}
+			
+			return;
+		}
+		
+		for (int z = columnZ - radius; z <= columnZ + radius; z++)
+		{
+			for (int x = columnX - radius; x <= columnX + radius; x++)
+			{
+				Set<ClientView> columnClients = clientsByColumn.get(columnKey(x, z));
+				
+				if (columnClients != null)
+					new ArrayList<>(columnClients).forEach(action);
+			}
+		}
+	}
+	
+	private Set<ClientView> getColumnClients(int columnX, int columnZ)
+	{
+		return clientsByColumn.computeIfAbsent(columnKey(columnX, columnZ), (key) -> new HashSet<>());
+	}
+	
+	private void removeFromColumn(ClientView client)
+	{
+		long key = columnKey(client.columnX, client.columnZ);
+		Set<ClientView> columnClients = clientsByColumn.get(key);
+		
+		if (columnClients == null)
+			return;
+		
+		columnClients.remove(client);
+		
+		if (columnClients.isEmpty())
+			clientsByColumn.remove(key);
+	}
+	
+	private static long columnKey(int columnX, int columnZ)
+	{
+		return ((long) columnX << 32) | (columnZ & 0xFFFFFFFFL);
+	}
+	
+	private static class ClientView
+	{
+		final int clientID;
+		final Channel channel;
+		// Distance that the client can see, in columns
+		int viewDistance;
+		// Column that the client's player is in
+		int columnX;
+		int columnZ;
+		
+		// Clients whose players are spawned in on this client
+		final Set<ClientView> visible = new HashSet<>();
+		// Clients that have this client's player spawned in
+		final Set<ClientView> observers = new HashSet<>();
+		// Whether anyone started seeing this client's player since the last check
+		boolean hasNewObservers = false;
+		
+		ClientView(int clientID, Channel channel, int viewDistance)
+		{
+			this.clientID = clientID;
+			this.channel = channel;
+			this.viewDistance = viewDistance;
+		}
+		
+		boolean canSee(int columnX, int columnZ)
+		{
+			return Math.abs(this.columnX - columnX) <= viewDistance && Math.abs(this.columnZ - columnZ) <= viewDistance;
+		}
+	}
+}
@@ -4,7 +4,6 @@ import ddb.io.voxelnet.network.packet.Packet;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.util.ReferenceCountUtil;
 
 public class ServerChannelHandler extends ChannelDuplexHandler
 {
@@ -33,14 +32,8 @@ public class ServerChannelHandler extends ChannelDuplexHandler
 	@Override
 	public void channelRead(ChannelHandlerContext ctx, Object msg)
 	{
-		try
-		{
-			serverInstance.getNetworkManager().handlePacket((Packet)msg, clientID);
-		}
-		finally
-		{
-			ReferenceCountUtil.release(msg);
-		}
+		// Packets are released once they have been processed
+		serverInstance.getNetworkManager().handlePacket((Packet)msg, clientID);
 	}
 	
 	@Override
@@ -3,10 +3,15 @@ package ddb.io.voxelnet.server;
 import ddb.io.voxelnet.block.Block;
 import ddb.io.voxelnet.event.EventBus;
 import ddb.io.voxelnet.fluid.Fluid;
+import ddb.io.voxelnet.network.packet.PooledPacket;
 import ddb.io.voxelnet.world.World;
+import ddb.io.voxelnet.world.WorldBackup;
 import ddb.io.voxelnet.world.WorldSave;
+import ddb.io.voxelnet.world.codec.SectionCodec;
+import ddb.io.voxelnet.world.codec.SectionCodecs;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 
@@ -53,7 +58,8 @@ public class ServerGame
 			init();
 			
 			// Initialize the server network state
-			networkManager = new ServerNetworkManager(instance, settings.hostPort);
+			PooledPacket.setPoolingEnabled(settings.poolPackets);
+			networkManager = new ServerNetworkManager(instance, settings);
 			if (!networkManager.init())
 			{
 				// Shutdown and return
@@ -88,13 +94,27 @@ public class ServerGame
 		// Setup the world, world save/loader, and world renderer
 		// "world-allthings" is main world
 		world = new World(false);
-		worldSave = new WorldSave(world, "world-server/world-server.dat");
+		String saveFile = "world-server/world-server.dat";
+		worldSave = new WorldSave(world, saveFile);
+		world.chunkManager.setWorldSave(worldSave);
+		
+		SectionCodec saveCodec = SectionCodecs.byName(settings.saveCodec, settings.saveCompressionLevel);
+		if (saveCodec != null)
+			worldSave.setCodec(saveCodec);
+		else
+			System.err.println("Unknown save codec \"" + settings.saveCodec + "\", using the default");
+		
+		if (settings.backupGenerations > 0)
+			worldSave.setBackup(new WorldBackup(new File(saveFile), settings.backupGenerations));
 		
 		// Load / Generate the world
 		if (worldSave.canLoad())
 			worldSave.load();
 		else
 			world.generate();
+		
+		// Start recording changes after the journal has been replayed
+		world.setBlockJournal(worldSave.getJournal());
 	}
 	
 	private void loop()
@@ -105,6 +125,7 @@ public class ServerGame
 		double nextNetworkTick = 0.0D;
 		
 		double secondTimer = getSystemTime();
+		double nextAutosave = getSystemTime() + settings.autosaveInterval;
 		final double MS_PER_PHYSICS_TICK = 1.0 / 60.0;
 		final double MS_PER_NETWORK_TICK = 1.0 / 10.0; // 10 Hz / 100 ms interval
 		
@@ -147,6 +168,18 @@ public class ServerGame
 				nextNetworkTick = now + MS_PER_NETWORK_TICK;
 			}
 			
+			// Journal Stage
+			// All of the changes from this loop are written out together
+			worldSave.getJournal().commit();
+			
+			// Autosave Stage
+			if (settings.autosaveInterval > 0 && now >= nextAutosave)
+			{
+				// Only snapshots are taken here, the writing happens in the background
+				worldSave.saveAsync();
+				nextAutosave = now + settings.autosaveInterval;
+			}
+			
 			if (now - secondTimer > 1)
 			{
 				// Update the things
@@ -176,6 +209,7 @@ public class ServerGame
 		
 		// Save the world
 		worldSave.save();
+		worldSave.close();
 	}
 	
 	private void update(float delta)
@@ -183,8 +217,16 @@ public class ServerGame
 		// Process command input from command line
 		processCommandLine();
 		
+		// Handle the packets received since the last tick
+		networkManager.processPackets();
+		
 		/// Process World Things ///
+		// Bring in the columns that have been read in the background
+		world.chunkManager.updateColumnReads();
 		world.update(delta);
+		
+		// Send out everything that changed during the tick
+		networkManager.sendBlockChanges();
 	}
 	
 	private void processCommandLine()
@@ -207,6 +249,7 @@ public class ServerGame
 				else if (inputLine.equals("status"))
 				{
 					System.out.println("Last tick time " + (currentUPD * 1000.0D) + " ms");
+					networkManager.printQueueStatus();
 				}
 			}
 		}
@@ -6,6 +6,15 @@ public class ServerMain
 	{
 		ServerSettings settings = new ServerSettings();
 		settings.hostPort = 7997;
+		settings.autosaveInterval = 5 * 60;
+		settings.saveCodec = "deflate";
+		settings.saveCompressionLevel = 6;
+		settings.backupGenerations = 12;
+		settings.poolPackets = false;
+		settings.packetTimeBudget = 4.0f;
+		settings.columnResendThreshold = 256;
+		settings.viewDistance = 6;
+		settings.chunkSendBudget = 64 * 1024;
 		
 		return settings;
 	}
@@ -3,13 +3,19 @@ package ddb.io.voxelnet.server;
 import ddb.io.voxelnet.block.Block;
 import ddb.io.voxelnet.block.Blocks;
 import ddb.io.voxelnet.entity.EntityPlayer;
+import ddb.io.voxelnet.network.MovementState;
+import ddb.io.voxelnet.network.MovementTracker;
 import ddb.io.voxelnet.network.NetworkManager;
 import ddb.io.voxelnet.network.packet.*;
 import ddb.io.voxelnet.util.EntityIDMap;
 import ddb.io.voxelnet.util.RaycastResult;
+import ddb.io.voxelnet.util.Vec3i;
+import ddb.io.voxelnet.world.Chunk;
 import ddb.io.voxelnet.world.ChunkColumn;
 import ddb.io.voxelnet.world.ChunkManager;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.*;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
@@ -18,12 +24,21 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.GlobalEventExecutor;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages the server's network state
@@ -39,19 +54,47 @@ public class ServerNetworkManager implements NetworkManager
 	ChannelGroup clientChannels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
 	Channel serverChannel;
 	private final int hostPort;
-
-	// Packets to process
-	public Queue<ProcessEntry> processQueue = new ConcurrentLinkedQueue<>();
+	
+	// Packets to process, split up so that the cheap updates (movement &
+	// block changes) never wait behind the chunk requests
+	private final PacketLane updateLane = new PacketLane("Updates");
+	private final PacketLane chunkRequestLane = new PacketLane("Chunk requests");
+	// Time that can be spent processing packets each tick, in nanoseconds
+	private final long packetTimeBudget;
+	
+	// Block changes made during the current tick
+	private BlockChangeBatcher blockChanges;
+	// Chunks with more changes than this in a tick have their column sent again instead
+	private final int columnResendThreshold;
+	
+	// Which clients see which players & columns
+	private final InterestManager interest;
+	
+	// Movement of each client's player, by client id
+	private final Map<Integer, PlayerMovement> playerMovement = new ConcurrentHashMap<>();
 	
 	// Entity - ClientID Mapping
 	EntityIDMap entityMap;
 	// ClientID - ChannelID Mapping
 	private final Map<Integer, ChannelId> clientToChannelId = new LinkedHashMap<>();
 	
-	public ServerNetworkManager(ServerGame instance, int hostPort)
+	// Columns waiting to be sent to each client, by client id
+	private final Map<Integer, ChunkSendQueue> chunkQueues = new ConcurrentHashMap<>();
+	// Bytes of columns that can be sent to each client every network tick
+	private final int chunkSendBudget;
+	// Column send stats since the last status print (only accessed on the main thread)
+	private long columnsSent = 0;
+	private long columnBytesSent = 0;
+	private long unwritableStalls = 0;
+	
+	public ServerNetworkManager(ServerGame instance, ServerSettings settings)
 	{
 		this.instance = instance;
-		this.hostPort = hostPort;
+		this.hostPort = settings.hostPort;
+		this.packetTimeBudget = (long) (settings.packetTimeBudget * 1000000L);
+		this.columnResendThreshold = settings.columnResendThreshold;
+		this.interest = new InterestManager(settings.viewDistance);
+		this.chunkSendBudget = settings.chunkSendBudget;
 	}
 	
 	@Override
@@ -60,6 +103,14 @@ public class ServerNetworkManager implements NetworkManager
 		// Initialize the network id map
 		entityMap = new EntityIDMap();
 		
+		// Start collecting the block changes to send out
+		blockChanges = new BlockChangeBatcher(instance.world.chunkManager);
+		instance.world.setBlockChangeListener(blockChanges);
+		
+		// Packet ids are checked as the registry is set up, so get that done
+		// before anyone connects
+		PacketRegistry packetRegistry = PacketRegistry.SERVER_BOUND;
+		
 		ServerBootstrap bootstrap = new ServerBootstrap();
 		bootstrap.group(bossGroup, workerGroup)
 				.channel(NioServerSocketChannel.class) // Channel type
@@ -79,7 +130,7 @@ public class ServerNetworkManager implements NetworkManager
 						// Broadcast all player positions
 						ch.pipeline().addLast(new LengthFieldPrepender(2));
 						ch.pipeline().addLast(new LengthFieldBasedFrameDecoder(0xFFFF, 0, 2));
-						ch.pipeline().addLast(new PacketCodec());
+						ch.pipeline().addLast(new PacketCodec(packetRegistry));
 						ch.pipeline().addLast(new ServerChannelHandler(instance));
 					}
 				})
@@ -124,23 +175,202 @@ public class ServerNetworkManager implements NetworkManager
 	@Override
 	public void update()
 	{
-		// Process 16 of the packets at a time
-		// TODO: SLOW, delegate to dedicated worker threads (keeping concurrency in mind)
-		for (int i = 0; i < 16 && !processQueue.isEmpty(); i++)
+		// Send out the queued up columns
+		sendQueuedColumns();
+		
+		// Send out how the players have moved since the last network tick
+		sendPlayerMovement();
+		
+		// Flush pending packets
+		clientChannels.flush();
+	}
+	
+	/**
+	 * Processes the received packets, until either the queues are empty or
+	 * the time budget runs out
+	 * Called every physics tick, so that packets don't pile up between the
+	 * network ticks
+	 */
+	public void processPackets()
+	{
+		long deadline = System.nanoTime() + packetTimeBudget;
+		boolean didProcess = false;
+		
+		updateLane.sampleDepth();
+		chunkRequestLane.sampleDepth();
+		
+		// Updates go first, as they are cheap and are sent out often
+		while (System.nanoTime() < deadline && processNext(updateLane))
+			didProcess = true;
+		
+		// Always take at least one chunk request, so that a flood of updates
+		// doesn't starve them out
+		if (processNext(chunkRequestLane))
 		{
-			ProcessEntry entry = processQueue.remove();
-			processPacket(entry.packet, entry.sourceClient);
+			didProcess = true;
+			
+			while (System.nanoTime() < deadline && processNext(chunkRequestLane))
+				continue;
+		}
+		
+		// Send out the replies & relayed updates right away, instead of waiting for the next network tick
+		if (didProcess)
+			clientChannels.flush();
+	}
+	
+	/**
+	 * Sends out the block changes made during the tick
+	 * Each changed chunk is sent as a single packet, unless it has so many
+	 * changes that sending the whole column again is better
+	 */
+	public void sendBlockChanges()
+	{
+		if (!blockChanges.hasChanges())
+			return;
+		
+		ChunkManager chunkManager = instance.world.chunkManager;
+		// Chunk data packets hold whole columns, so that's what gets sent again
+		Set<Vec3i> resendColumns = new LinkedHashSet<>();
+		
+		for (Map.Entry<Vec3i, BitSet> entry : blockChanges.takeChanges().entrySet())
+		{
+			Vec3i pos = entry.getKey();
+			BitSet changed = entry.getValue();
+			int changeCount = changed.cardinality();
+			
+			if (changeCount > columnResendThreshold)
+			{
+				resendColumns.add(new Vec3i(pos.getX(), 0, pos.getZ()));
+				continue;
+			}
+			
+			// Chunks that are gone are all air
+			Chunk chunk = chunkManager.getChunk(pos, false).orElse(null);
+			PSMultiBlockChange packet = new PSMultiBlockChange(pos.getX(), pos.getY(), pos.getZ(), changeCount);
+			
+			for (int index = changed.nextSetBit(0); index >= 0; index = changed.nextSetBit(index + 1))
+			{
+				int x = index & 0xF;
+				int y = (index >> 8) & 0xF;
+				int z = (index >> 4) & 0xF;
+				
+				if (chunk != null)
+					packet.addChange(x, y, z, chunk.getBlock(x, y, z), chunk.getBlockMeta(x, y, z));
+				else
+					packet.addChange(x, y, z, Blocks.AIR.getId(), 0);
+			}
+			
+			sendTo(packet, getChannelsHolding(pos.getX(), pos.getZ()));
+		}
+		
+		for (Vec3i columnPos : resendColumns)
+		{
+			chunkManager.getColumn(columnPos.getX(), columnPos.getZ())
+					.filter(ChunkColumn::isReady)
+					.ifPresent(column -> {
+						List<Channel> channels = getChannelsHolding(column.columnX, column.columnZ);
+						
+						for (Packet packet : makeColumnPackets(column))
+							sendTo(packet, channels);
+					});
 		}
 		
-		// Flush pending packets
 		clientChannels.flush();
 	}
 	
+	// Gets the channels of the clients that were sent a column, as they may
+	// still have it around even if it's out of view
+	private List<Channel> getChannelsHolding(int columnX, int columnZ)
+	{
+		List<Channel> channels = new ArrayList<>();
+		
+		for (Map.Entry<Integer, ChunkSendQueue> entry : chunkQueues.entrySet())
+		{
+			if (!entry.getValue().hasSent(columnX, columnZ))
+				continue;
+			
+			ChannelId channelId = clientToChannelId.get(entry.getKey());
+			Channel channel = channelId != null ? clientChannels.find(channelId) : null;
+			
+			if (channel != null)
+				channels.add(channel);
+		}
+		
+		return channels;
+	}
+	
+	// Sends out the movement of the players that have moved, to the clients that see them
+	private void sendPlayerMovement()
+	{
+		for (Map.Entry<Integer, PlayerMovement> entry : playerMovement.entrySet())
+		{
+			int clientID = entry.getKey();
+			PlayerMovement movement = entry.getValue();
+			
+			// Nothing to pass on until the client has said where it is
+			if (!movement.received.hasState())
+				continue;
+			
+			// Newly spawned in players start from a keyframe
+			boolean forceKeyframe = interest.takeNewObservers(clientID);
+			PCSPosRotUpdate posUpdate = movement.relayed.makeUpdate(clientID, movement.received.getState(), forceKeyframe);
+			
+			if (posUpdate == null)
+				continue;
+			
+			sendTo(posUpdate, interest.getObserverChannels(clientID));
+			ReferenceCountUtil.release(posUpdate);
+		}
+	}
+	
+	/**
+	 * Prints out the queue depths & processing latencies of the received
+	 * packets since the last time that they were printed
+	 */
+	public void printQueueStatus()
+	{
+		updateLane.printStatus();
+		chunkRequestLane.printStatus();
+		
+		int queuedColumns = 0;
+		for (ChunkSendQueue queue : chunkQueues.values())
+			queuedColumns += queue.size();
+		
+		System.out.printf("Column sends: %d queued, %d sent (%.1f KiB), %d stalls on full channels\n",
+				queuedColumns, columnsSent, columnBytesSent / 1024.0, unwritableStalls);
+		
+		columnsSent = 0;
+		columnBytesSent = 0;
+		unwritableStalls = 0;
+	}
+	
 	@Override
 	public void handlePacket(Packet msg, int sourceClientID)
 	{
-		// Add to process queue
-		processQueue.add(new ProcessEntry(msg, sourceClientID));
+		// Add to the appropriate process queue
+		PacketLane lane = msg.getPacketID() == 7 ? chunkRequestLane : updateLane;
+		lane.add(new ProcessEntry(msg, sourceClientID));
+	}
+	
+	// Processes the next packet in the lane, returning false if there was none
+	private boolean processNext(PacketLane lane)
+	{
+		ProcessEntry entry = lane.poll();
+		
+		if (entry == null)
+			return false;
+		
+		try
+		{
+			processPacket(entry.packet, entry.sourceClient);
+		}
+		finally
+		{
+			// Done with the packet, which puts pooled packets back into the pool
+			ReferenceCountUtil.release(entry.packet);
+		}
+		
+		return true;
 	}
 	
 	private void processPacket(Packet msg, int sourceClientID)
@@ -148,29 +378,27 @@ public class ServerNetworkManager implements NetworkManager
 		// Execute Server vs Execute Client
 		if (msg.getPacketID() == 1)
 		{
-			// Position updates, broadcast to everyone else
+			// Position updates, sent out to everyone else on the next network tick
 			PCSPosRotUpdate posUpdate = (PCSPosRotUpdate)msg;
 			
 			// CSPosRotUpdate
 			// Get the specific entity to update
-			EntityPlayer player = (EntityPlayer) entityMap.getEntity(posUpdate.clientID, EntityPlayer.class);
+			EntityPlayer player = (EntityPlayer) entityMap.getEntity(sourceClientID, EntityPlayer.class);
+			PlayerMovement movement = playerMovement.get(sourceClientID);
 			
 			// If non-existant, move on (probably a stale id)
-			if (player == null)
+			if (player == null || movement == null)
 				return;
 			
-			System.out.printf("\t Ply%d-Pos: (%f, %f, %f) - (%f, %f)\n", posUpdate.clientID, posUpdate.xPos, posUpdate.yPos, posUpdate.zPos, posUpdate.pitch, posUpdate.yaw);
-			player.setPos(posUpdate.xPos, posUpdate.yPos, posUpdate.zPos);
-			player.setVelocity(posUpdate.xVel, posUpdate.yVel, posUpdate.zVel);
-			player.setOrientation(posUpdate.pitch, posUpdate.yaw);
-			player.xAccel = posUpdate.xAccel;
-			player.zAccel = posUpdate.zAccel;
+			// Deltas without a keyframe before them have nothing to build on
+			if (!movement.received.apply(posUpdate))
+				return;
 			
-			player.isFlying = posUpdate.isFlying;
-			player.isSneaking = posUpdate.isSneaking;
-			player.isSprinting = posUpdate.isSprinting;
+			MovementState state = movement.received.getState();
+			state.applyTo(player);
 			
-			clientChannels.write(posUpdate);
+			// Only the clients that can see the player need to know about the move
+			interest.moveClient(sourceClientID, state.xPos, state.zPos);
 		}
 		else if (msg.getPacketID() == 5)
 		{
@@ -198,9 +426,7 @@ public class ServerNetworkManager implements NetworkManager
 					lastHit.blockY + lastHit.face.getOffsetY(),
 					lastHit.blockZ + lastHit.face.getOffsetZ());
 			
-			// Broadcast to the other players
-			// TODO: Correct for misplaces
-			clientChannels.write(blockPlace);
+			// The placement is sent out along with the rest of the block changes
 		}
 		else if (msg.getPacketID() == 6)
 		{
@@ -213,36 +439,52 @@ public class ServerNetworkManager implements NetworkManager
 			block.onBlockBroken(instance.world, lastHit.blockX, lastHit.blockY, lastHit.blockZ);
 			instance.world.setBlock(lastHit.blockX, lastHit.blockY, lastHit.blockZ, Blocks.AIR);
 			
-			// Broadcast to the other players
-			// TODO: Correct for mis-breaks
-			clientChannels.write(blockBreak);
+			// The break is sent out along with the rest of the block changes
 		}
 		else if (msg.getPacketID() == 7)
 		{
-			// Load the requested chunk column
+			// Queue up the requested chunk column
 			PCLoadChunkColumn loadRequest = (PCLoadChunkColumn)msg;
-			// Get the channel id
-			ChannelId channelId = clientToChannelId.get(sourceClientID);
+			ChunkSendQueue queue = chunkQueues.get(sourceClientID);
 			
-			// No id found means stale id
-			if (channelId == null)
+			// No queue found means stale id
+			if (queue == null)
 				return;
 			
-			Channel clientChannel = clientChannels.find(channelId);
-			
-			// Null channel means stale id
-			if (clientChannel == null)
-				return;
-			
-			// Send back the chunk column
-			if (sendChunkColumnTo(loadRequest.columnX, loadRequest.columnZ, clientChannel))
-			{
-				// TODO: Queue up requests
-				System.out.println("Fulfilled rq for " + loadRequest.columnX + ", " + loadRequest.columnZ + " to Ply" + sourceClientID);
-				// Flush pending requests
-				clientChannel.flush();
-			}
+			// Sent along with the rest of the queued columns, nearest first
+			queue.request(loadRequest.columnX, loadRequest.columnZ);
+		}
+	}
+	
+	/**
+	 * Sends a packet to the given channels
+	 * The packet is only encoded once, no matter how many channels there are.
+	 * The packet itself isn't released, as only the encoded copy gets sent
+	 * @param packet The packet to send
+	 * @param channels The channels to send the packet to
+	 */
+	public void sendTo(Packet packet, Collection<Channel> channels)
+	{
+		if (channels.isEmpty())
+			return;
+		
+		ByteBuf encoded;
+		
+		try
+		{
+			encoded = PacketCodec.encodePacket(ByteBufAllocator.DEFAULT, packet);
+		}
+		catch (Exception e)
+		{
+			System.err.println("Unable to encode packet " + packet.getPacketID());
+			e.printStackTrace();
+			return;
 		}
+		
+		for (Channel channel : channels)
+			channel.write(encoded.retainedDuplicate(), channel.voidPromise());
+		
+		encoded.release();
 	}
 	
 	@Override
@@ -288,33 +530,17 @@ public class ServerNetworkManager implements NetworkManager
 		
 		clientChannels.add(channel);
 		clientToChannelId.put(clientID, channel.id());
+		playerMovement.put(clientID, new PlayerMovement());
 		
-		// Spawn the client on the other channels
-		PSSpawnPlayer packet = new PSSpawnPlayer(clientID);
-		// Flush later
-		clientChannels.write(packet, (otherChannel) -> otherChannel != channel);
-		
-		// Send the surrounding chunks over
-		int radius = 3;
-		for (int z = -radius; z <= radius; z++)
-		{
-			for (int x = -radius; x <= radius; x++)
-			{
-				sendChunkColumnTo(x, z, channel);
-			}
-		}
+		// The surrounding columns are queued up & sent out over the next network ticks
+		chunkQueues.put(clientID, new ChunkSendQueue());
 		
 		// Send back client id / Start client comms
 		channel.write(new PSEstablishConnection(clientID));
 		
-		// Spawn the other players on this channel
-		for (Integer id : entityMap.getAllEntityIds())
-		{
-			if (id == clientID)
-				continue;
-			
-			channel.write(new PSSpawnPlayer(id));
-		}
+		// Spawn the nearby players on this channel, and this client on the
+		// nearby channels (others are flushed later)
+		interest.addClient(clientID, channel, player.xPos, player.zPos);
 		channel.flush();
 		
 		return clientID;
@@ -331,39 +557,133 @@ public class ServerNetworkManager implements NetworkManager
 		clientChannels.remove(channel);
 		clientToChannelId.remove(clientID);
 		entityMap.removeEntity(clientID);
+		playerMovement.remove(clientID);
+		chunkQueues.remove(clientID);
 		
-		// Kill the client on the other channels
-		PSKillPlayer packet = new PSKillPlayer(clientID);
-		clientChannels.write(packet);
+		// Kill the client on the channels that could see it
+		interest.removeClient(clientID);
 	}
 	
-	private boolean sendChunkColumnTo(int x, int z, Channel channel)
+	// Sends out the queued columns to each client, nearest first, as long as
+	// the client's budget lasts and its channel can take more
+	private void sendQueuedColumns()
 	{
-		System.out.format("Sending (%d, %d)\n", x, z);
 		ChunkManager chunkManager = instance.world.chunkManager;
-		ChunkColumn column = chunkManager.getColumn(x, z).orElseGet(() -> {
-			// Generate chunk if null
-			// TODO: Only allow one thread to generate at a time
-			return chunkManager.loadColumn(x, z);
-		});
 		
-		// Construct a new chunk data packet
-		PSChunkData chunkData = new PSChunkData(x, z, column);
+		for (Map.Entry<Integer, ChunkSendQueue> entry : chunkQueues.entrySet())
+		{
+			int clientID = entry.getKey();
+			ChunkSendQueue queue = entry.getValue();
+			EntityPlayer player = (EntityPlayer) entityMap.getEntity(clientID, EntityPlayer.class);
+			ChannelId channelId = clientToChannelId.get(clientID);
+			Channel channel = channelId != null ? clientChannels.find(channelId) : null;
+			
+			// Client has left
+			if (player == null || channel == null || !channel.isActive())
+				continue;
+			
+			int columnX = (int) Math.floor(player.xPos) >> 4;
+			int columnZ = (int) Math.floor(player.zPos) >> 4;
+			queue.moveTo(columnX, columnZ, player.yaw, interest.getViewDistance(clientID));
+			
+			int budget = chunkSendBudget;
+			
+			for (Vec3i pos : queue.getPending())
+			{
+				ChunkColumn column = chunkManager.getColumn(pos.getX(), pos.getZ()).filter(ChunkColumn::isReady).orElse(null);
+				
+				if (column == null)
+				{
+					// Starts loading in the column in the background, and it is sent once ready
+					chunkManager.loadColumn(pos.getX(), pos.getZ());
+					continue;
+				}
+				
+				// Keep on loading the later columns, but don't send any more
+				if (budget <= 0)
+					continue;
+				
+				// The client isn't keeping up with what has been sent so far
+				if (!channel.isWritable())
+				{
+					unwritableStalls++;
+					budget = 0;
+					continue;
+				}
+				
+				budget -= writeChunkColumn(column, channel);
+				queue.markSent(pos);
+			}
+		}
+	}
+	
+	// Sends out a chunk column, returning the number of bytes sent
+	private int writeChunkColumn(ChunkColumn column, Channel channel)
+	{
+		List<ByteBuf> encodedPackets = new ArrayList<>();
+		
+		try
+		{
+			// Encoded here so that the size counts against the budget
+			for (Packet packet : makeColumnPackets(column))
+				encodedPackets.add(PacketCodec.encodePacket(ByteBufAllocator.DEFAULT, packet));
+		}
+		catch (Exception e)
+		{
+			System.err.println("Unable to encode column (" + column.columnX + ", " + column.columnZ + ")");
+			e.printStackTrace();
+			encodedPackets.forEach(ByteBuf::release);
+			return 0;
+		}
+		
+		int size = 0;
+		
+		for (ByteBuf encoded : encodedPackets)
+		{
+			size += encoded.readableBytes();
+			channel.write(encoded, channel.voidPromise());
+		}
+		
+		columnsSent++;
+		columnBytesSent += size;
+		return size;
+	}
+	
+	// Constructs the packets for a column: the column data, followed by each
+	// of the chunks in the column
+	private List<Packet> makeColumnPackets(ChunkColumn column)
+	{
+		int x = column.columnX;
+		int z = column.columnZ;
+		ChunkManager chunkManager = instance.world.chunkManager;
+		
+		List<Packet> sections = new ArrayList<>();
 		
 		for (int y = 0; y < 256 / 16; y++)
 		{
-			chunkManager.getChunk(x, y, z, false).ifPresent(chunkData::addChunk);
+			chunkManager.getChunk(x, y, z, false).ifPresent(chunk -> sections.add(new PSChunkSection(chunk)));
 		}
 		
-		// Send out the chunk
-		channel.write(chunkData);
-		return true;
+		List<Packet> packets = new ArrayList<>();
+		packets.add(new PSChunkData(x, z, column, sections.size()));
+		packets.addAll(sections);
+		return packets;
+	}
+	
+	private static class PlayerMovement
+	{
+		// Movement last received from the client
+		public final MovementTracker received = new MovementTracker();
+		// Movement last sent out to the clients that see the player
+		public final MovementTracker relayed = new MovementTracker();
 	}
 	
 	private static class ProcessEntry
 	{
 		public int sourceClient;
 		public Packet packet;
+		// When the packet was received, from System.nanoTime
+		public final long receivedAt = System.nanoTime();
 		
 		public ProcessEntry(Packet packet, int sourceClient)
 		{
@@ -372,4 +692,64 @@ public class ServerNetworkManager implements NetworkManager
 		}
 	}
 	
+	// A queue of received packets, along with the stats of it
+	private static class PacketLane
+	{
+		private final String name;
+		private final Queue<ProcessEntry> queue = new ConcurrentLinkedQueue<>();
+		// Number of packets in the queue, as the queue's size() walks over the whole queue
+		private final AtomicInteger depth = new AtomicInteger();
+		
+		// Stats since the last status print (only accessed on the main thread)
+		private int peakDepth = 0;
+		private long processed = 0;
+		private long totalWait = 0;
+		private long maxWait = 0;
+		
+		PacketLane(String name)
+		{
+			this.name = name;
+		}
+		
+		void add(ProcessEntry entry)
+		{
+			queue.add(entry);
+			depth.incrementAndGet();
+		}
+		
+		ProcessEntry poll()
+		{
+			ProcessEntry entry = queue.poll();
+			
+			if (entry == null)
+				return null;
+			
+			depth.decrementAndGet();
+			
+			long wait = System.nanoTime() - entry.receivedAt;
+			processed++;
+			totalWait += wait;
+			maxWait = Math.max(maxWait, wait);
+			
+			return entry;
+		}
+		
+		void sampleDepth()
+		{
+			peakDepth = Math.max(peakDepth, depth.get());
+		}
+		
+		void printStatus()
+		{
+			double averageWait = processed > 0 ? totalWait / (double) processed : 0;
+			System.out.printf("%s: %d queued (peak %d), %d processed, wait avg %.2f ms / max %.2f ms\n",
+					name, depth.get(), peakDepth, processed, averageWait / 1e6, maxWait / 1e6);
+			
+			peakDepth = 0;
+			processed = 0;
+			totalWait = 0;
+			maxWait = 0;
+		}
+	}
+	
 }
@@ -4,4 +4,22 @@ public class ServerSettings
 {
 	/** The host port of the server */
 	public int hostPort;
+	/** Interval between automatic world saves, in seconds (0 disables autosaving) */
+	public int autosaveInterval;
+	/** Codec used to compress the saved chunk sections ("none", "deflate", or "rle") */
+	public String saveCodec;
+	/** Compression level for the "deflate" save codec, from 0 - 9 */
+	public int saveCompressionLevel;
+	/** Number of world backup generations to keep, made on every save (0 disables backups) */
+	public int backupGenerations;
+	/** Time that can be spent processing received packets each physics tick, in milliseconds */
+	public float packetTimeBudget;
+	/** Block changes in a chunk during a tick past which the whole column is sent again instead */
+	public int columnResendThreshold;
+	/** Distance that clients see other players, block changes & chunk columns out to, in columns */
+	public int viewDistance;
+	/** Bytes of chunk columns that can be sent to each client every network tick (at least one column is always sent) */
+	public int chunkSendBudget;
+	/** Whether or not to reuse the high-rate packets (movement & block changes) instead of allocating new ones */
+	public boolean poolPackets;
 }
@@ -0,0 +1,68 @@
+package ddb.io.voxelnet.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Pool of deflaters that can be shared between threads
+ *
+ * Deflaters hold onto a chunk of native memory, and are fairly expensive to
+ * set up, so they are reused instead of being made for every use
+ */
+public class DeflaterPool
+{
+	// Compression level of the pooled deflaters
+	private final int level;
+	// Most deflaters that are kept around, any past this are ended
+	private final int maxPooled;
+	private final Queue<Deflater> pooled = new ConcurrentLinkedQueue<>();
+	// Number of deflaters in the pool, as the queue's size() walks over the whole queue
+	private final AtomicInteger pooledCount = new AtomicInteger();
+	
+	/**
+	 * Creates a new deflater pool
+	 * @param level The compression level of the deflaters, from 0 - 9
+	 * @param maxPooled The most deflaters that are kept around at a time
+	 */
+	public DeflaterPool(int level, int maxPooled)
+	{
+		this.level = level;
+		this.maxPooled = maxPooled;
+	}
+	
+	/**
+	 * Takes a deflater from the pool, or makes a new one if there are none left
+	 * @return A deflater ready for new input
+	 */
+	public Deflater obtain()
+	{
+		Deflater deflater = pooled.poll();
+		
+		if (deflater == null)
+			return new Deflater(level);
+		
+		pooledCount.decrementAndGet();
+		return deflater;
+	}
+	
+	/**
+	 * Gives a deflater back to the pool
+	 * The deflater can't be used after this
+	 * @param deflater The deflater to give back
+	 */
+	public void release(Deflater deflater)
+	{
+		if (pooledCount.incrementAndGet() > maxPooled)
+		{
+			// Pool is full, so free up the native memory now
+			pooledCount.decrementAndGet();
+			deflater.end();
+			return;
+		}
+		
+		deflater.reset();
+		pooled.add(deflater);
+	}
+}
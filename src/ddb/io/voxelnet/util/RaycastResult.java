@@ -23,4 +23,21 @@ public class RaycastResult
 	// The face that was hit
 	public Facing face;
 	
+	/**
+	 * Copies over all of the values from another hit result
+	 * @param other The hit result to copy from
+	 */
+	public void set(RaycastResult other)
+	{
+		hitX = other.hitX;
+		hitY = other.hitY;
+		hitZ = other.hitZ;
+		
+		blockX = other.blockX;
+		blockY = other.blockY;
+		blockZ = other.blockZ;
+		
+		face = other.face;
+	}
+	
 }
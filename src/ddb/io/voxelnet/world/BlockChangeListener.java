@@ -0,0 +1,15 @@
+package ddb.io.voxelnet.world;
+
+/**
+ * Listener for the block changes made in a world
+ */
+public interface BlockChangeListener
+{
+	/**
+	 * Called after the block or the block metadata at a position has changed
+	 * @param x The x position of the changed block
+	 * @param y The y position of the changed block
+	 * @param z The z position of the changed block
+	 */
+	void onBlockChanged(int x, int y, int z);
+}
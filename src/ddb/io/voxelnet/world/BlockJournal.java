@@ -0,0 +1,291 @@
+package ddb.io.voxelnet.world;
+
+import ddb.io.voxelnet.block.Block;
+import ddb.io.voxelnet.util.Vec3i;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of the block changes made since the last world save
+ *
+ * Changes are collected into a batch on the tick thread, and each batch is
+ * appended & synced on the world I/O thread. Batches that are written back
+ * to back share a single sync. On startup, the journal is replayed on top of
+ * the saved world, and it is cleared once a full save has been written.
+ */
+public class BlockJournal implements Closeable
+{
+	// File Format:
+	// Batches: entryCount (int) | entries | checksum (int)
+	// checksum (int): CRC32 of the entryCount & entries
+	// Entry: type (byte) | x (int) | y (int) | z (int) | id (short) | meta (byte) | flags (byte)
+	private static final int BATCH_HEADER_SIZE = Integer.BYTES;
+	private static final int BATCH_TRAILER_SIZE = Integer.BYTES;
+	private static final int ENTRY_SIZE = 1 + 4 * 3 + 2 + 1 + 1;
+	
+	// Entry types
+	private static final byte ENTRY_SET_BLOCK = 0;
+	private static final byte ENTRY_SET_META = 1;
+	
+	// Initial number of entries that can fit in a batch
+	private static final int INITIAL_BATCH_ENTRIES = 256;
+	
+	private final File path;
+	// The I/O thread that the batches are written on
+	private final ExecutorService ioExecutor;
+	// Opened on first write (only accessed on the I/O thread)
+	private FileChannel channel = null;
+	
+	// Batch being built up on the tick thread
+	private ByteBuffer pendingBatch;
+	private int pendingEntries = 0;
+	// Number of batches waiting to be written
+	private final AtomicInteger queuedBatches = new AtomicInteger();
+	
+	/**
+	 * Creates a new block journal
+	 * @param path The path to the journal file
+	 * @param ioExecutor The I/O thread to do the writes on
+	 */
+	public BlockJournal(File path, ExecutorService ioExecutor)
+	{
+		this.path = path;
+		this.ioExecutor = ioExecutor;
+		this.pendingBatch = newBatch(INITIAL_BATCH_ENTRIES);
+	}
+	
+	/**
+	 * Records a block change
+	 * @param x The x position of the block
+	 * @param y The y position of the block
+	 * @param z The z position of the block
+	 * @param block The new block
+	 * @param meta The new block metadata
+	 * @param flags The update flags used when setting the block
+	 */
+	public void logSetBlock(int x, int y, int z, Block block, int meta, int flags)
+	{
+		addEntry(ENTRY_SET_BLOCK, x, y, z, block.getId(), meta, flags);
+	}
+	
+	/**
+	 * Records a block metadata change
+	 * @param x The x position of the block
+	 * @param y The y position of the block
+	 * @param z The z position of the block
+	 * @param meta The new block metadata
+	 */
+	public void logSetMeta(int x, int y, int z, int meta)
+	{
+		addEntry(ENTRY_SET_META, x, y, z, 0, meta, 0);
+	}
+	
+	/**
+	 * Hands off the pending batch to be appended to the journal
+	 * Must be called from the tick thread. Changes are only durable once the
+	 * batch has been written & synced.
+	 */
+	public void commit()
+	{
+		if (pendingEntries == 0)
+			return;
+		
+		// Finish off the batch
+		ByteBuffer batch = pendingBatch;
+		batch.putInt(0, pendingEntries);
+		
+		CRC32 checksum = new CRC32();
+		checksum.update(batch.array(), 0, batch.position());
+		batch.putInt((int)checksum.getValue());
+		batch.flip();
+		
+		pendingBatch = newBatch(Math.max(INITIAL_BATCH_ENTRIES, pendingEntries));
+		pendingEntries = 0;
+		
+		queuedBatches.incrementAndGet();
+		ioExecutor.submit(() -> writeBatch(batch));
+	}
+	
+	/**
+	 * Clears out the journal, after all of the changes have been saved
+	 * Must be called on the I/O thread
+	 * @throws IOException If the journal can't be cleared
+	 */
+	void truncate() throws IOException
+	{
+		if (channel == null && !path.exists())
+			return;
+		
+		openChannel();
+		channel.truncate(0);
+		channel.force(true);
+	}
+	
+	/**
+	 * Applies all of the journal changes onto the world
+	 * The columns that the changes are in are loaded in as needed
+	 * @param world The world to apply the changes to
+	 * @return The number of changes applied
+	 * @throws IOException If the journal can't be read
+	 */
+	public int replay(World world) throws IOException
+	{
+		if (!path.exists())
+			return 0;
+		
+		int replayed = 0;
+		
+		try (FileChannel input = FileChannel.open(path.toPath(), StandardOpenOption.READ))
+		{
+			ByteBuffer countBuf = ByteBuffer.allocate(BATCH_HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+			long position = 0;
+			long size = input.size();
+			
+			while (position + BATCH_HEADER_SIZE <= size)
+			{
+				countBuf.clear();
+				input.read(countBuf, position);
+				int entryCount = countBuf.getInt(0);
+				long batchSize = BATCH_HEADER_SIZE + (long)entryCount * ENTRY_SIZE + BATCH_TRAILER_SIZE;
+				
+				// A partially written batch from a crash
+				if (entryCount <= 0 || position + batchSize > size)
+				{
+					System.err.println("Dropping incomplete journal batch at " + position);
+					break;
+				}
+				
+				ByteBuffer batch = ByteBuffer.allocate((int)batchSize).order(ByteOrder.BIG_ENDIAN);
+				while (batch.hasRemaining())
+				{
+					if (input.read(batch, position + batch.position()) < 0)
+						break;
+				}
+				
+				CRC32 checksum = new CRC32();
+				checksum.update(batch.array(), 0, (int)batchSize - BATCH_TRAILER_SIZE);
+				if ((int)checksum.getValue() != batch.getInt((int)batchSize - BATCH_TRAILER_SIZE))
+				{
+					System.err.println("Dropping corrupted journal batch at " + position);
+					break;
+				}
+				
+				batch.position(BATCH_HEADER_SIZE);
+				for (int i = 0; i < entryCount; i++)
+					applyEntry(world, batch);
+				
+				replayed += entryCount;
+				position += batchSize;
+			}
+		}
+		
+		return replayed;
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		if (channel != null)
+		{
+			channel.force(true);
+			channel.close();
+			channel = null;
+		}
+	}
+	
+	private void addEntry(byte type, int x, int y, int z, int id, int meta, int flags)
+	{
+		if (pendingBatch.remaining() < ENTRY_SIZE + BATCH_TRAILER_SIZE)
+		{
+			// Grow the batch
+			ByteBuffer grown = newBatch(pendingEntries * 2);
+			pendingBatch.flip();
+			grown.put(pendingBatch);
+			pendingBatch = grown;
+		}
+		
+		pendingBatch.put(type);
+		pendingBatch.putInt(x);
+		pendingBatch.putInt(y);
+		pendingBatch.putInt(z);
+		pendingBatch.putShort((short)id);
+		pendingBatch.put((byte)meta);
+		pendingBatch.put((byte)flags);
+		pendingEntries++;
+	}
+	
+	// Appends a batch to the journal (on the I/O thread)
+	private void writeBatch(ByteBuffer batch)
+	{
+		// Only sync once the last queued batch is written
+		boolean lastBatch = queuedBatches.decrementAndGet() == 0;
+		
+		try
+		{
+			openChannel();
+			
+			while (batch.hasRemaining())
+				channel.write(batch);
+			
+			if (lastBatch)
+				channel.force(false);
+		} catch (IOException e)
+		{
+			System.err.println("Unable to write to the block journal " + path);
+			e.printStackTrace();
+		}
+	}
+	
+	private void openChannel() throws IOException
+	{
+		if (channel != null)
+			return;
+		
+		File parentDir = path.getAbsoluteFile().getParentFile();
+		if (!parentDir.exists() && !parentDir.mkdirs())
+			throw new IOException("Unable to create the journal directory " + parentDir);
+		
+		channel = FileChannel.open(path.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+	
+	private static void applyEntry(World world, ByteBuffer batch)
+	{
+		byte type = batch.get();
+		int x = batch.getInt();
+		int y = batch.getInt();
+		int z = batch.getInt();
+		int id = batch.getShort() & 0xFFFF;
+		int meta = batch.get() & 0xFF;
+		int flags = batch.get() & 0xFF;
+		
+		// Bring in the column that the change is in
+		// Changes to columns that can't be read in are kept in the journal
+		Vec3i columnPos = new Vec3i(x >> 4, 0, z >> 4);
+		if (!world.chunkManager.isColumnReady(columnPos.getX(), columnPos.getZ())
+				&& world.chunkManager.loadColumnNow(columnPos.getX(), columnPos.getZ()) == null)
+			return;
+		
+		if (type == ENTRY_SET_BLOCK)
+			world.setBlock(x, y, z, Block.idToBlock(id), meta, flags);
+		else if (type == ENTRY_SET_META)
+			world.setBlockMeta(x, y, z, meta);
+	}
+	
+	private static ByteBuffer newBatch(int entries)
+	{
+		ByteBuffer batch = ByteBuffer.allocate(BATCH_HEADER_SIZE + entries * ENTRY_SIZE + BATCH_TRAILER_SIZE).order(ByteOrder.BIG_ENDIAN);
+		// Space for the entry count
+		batch.putInt(0);
+		return batch;
+	}
+	
+}
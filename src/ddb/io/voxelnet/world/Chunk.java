@@ -3,16 +3,20 @@ package ddb.io.voxelnet.world;
 import ddb.io.voxelnet.block.Block;
 import ddb.io.voxelnet.block.Blocks;
 import ddb.io.voxelnet.client.render.RenderLayer;
+import ddb.io.voxelnet.serial.SeField;
+import ddb.io.voxelnet.serial.SeMapped;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntPredicate;
-import java.util.stream.IntStream;
 
 /**
  * Representation of a game chunk (16*16*16 chunk of tiles)
  */
+@SeMapped(afterRead = "onFieldsRead")
 public class Chunk
 {
 	public static final int LAYER_DATA_SIZE = 16;
@@ -34,16 +38,18 @@ public class Chunk
 	public static final int TICKPOS_BYTES = 3;
 	
 	// Position of the chunk (in chunk coordinates)
-	public final int chunkX, chunkY, chunkZ;
+	@SeField(id = 0) public final int chunkX;
+	@SeField(id = 1) public final int chunkY;
+	@SeField(id = 2) public final int chunkZ;
 	// The chunk's associated world
 	public World world;
 	
 	// Block light & sky light data for each block
-	private final byte[] lightData = new byte[LIGHT_DATA_SIZE];
+	@SeField(id = 3) final byte[] lightData = new byte[LIGHT_DATA_SIZE];
 	// Actual chunk data
-	private final byte[] blockData = new byte[BLOCK_DATA_SIZE];
+	@SeField(id = 4) final byte[] blockData = new byte[BLOCK_DATA_SIZE];
 	// Block metadata (2 block clusters)
-	private final byte[] blockMeta = new byte[META_DATA_SIZE];
+	@SeField(id = 5) final byte[] blockMeta = new byte[META_DATA_SIZE];
 	
 	// The number of blocks in the chunk
 	private short blockCount = 0;
@@ -58,6 +64,9 @@ public class Chunk
 	private final boolean[] layerNeedsRebuild = new boolean[RenderLayer.values().length];
 	// If the chunk needs to be saved to disk
 	private boolean isDirty = false;
+	// Number of times that the chunk data has been changed
+	// Lets copies of the data (e.g. compressed network data) tell if they are stale
+	private final AtomicInteger changeCount = new AtomicInteger();
 	// If the chunk was recently loaded
 	private boolean recentlyLoaded = true;
 	// If the chunk is a placeholder until the real data arrives
@@ -105,6 +114,46 @@ public class Chunk
 		System.arraycopy(lightData, 0, this.lightData, 0, this.lightData.length);
 		System.arraycopy(blockMetas, 0, this.blockMeta, 0, this.blockMeta.length);
 		
+		rebuildDerivedData(tickables);
+	}
+	
+	/**
+	 * Deserialize a chunk straight out of a buffer
+	 * The buffer holds the light data, block data, and block meta data back to back,
+	 * which are copied directly into the chunk's storage
+	 *
+	 * @param data The buffer to read the chunk data from
+	 * @param tickables The tickable blocks in the chunk
+	 */
+	public void deserialize(ByteBuffer data, int[] tickables)
+	{
+		data.get(this.lightData);
+		data.get(this.blockData);
+		data.get(this.blockMeta);
+		
+		rebuildDerivedData(tickables);
+	}
+	
+	// Rebuilds everything else after the chunk data is read in by the mapper
+	// Tickables aren't stored in the record, so they're found from the block data
+	void onFieldsRead()
+	{
+		int[] tickables = new int[BLOCK_DATA_SIZE];
+		int tickableCount = 0;
+		
+		for (int i = 0; i < BLOCK_DATA_SIZE; i++)
+		{
+			if (Block.idToBlock(Byte.toUnsignedInt(blockData[i])).isTickable())
+				tickables[tickableCount++] = i;
+		}
+		
+		this.tickables.clear();
+		rebuildDerivedData(Arrays.copyOf(tickables, tickableCount));
+	}
+	
+	// Rebuilds the counts & layers from the chunk data
+	private void rebuildDerivedData(int[] tickables)
+	{
 		// Information can be acquired at runtime
 		this.blockCount      = (short)countAll (id -> id > 0, this.blockData);
 		this.blockLightCount = (short)countAll(light -> ((light >> 0) & 0xF) > 0, this.lightData);
@@ -124,6 +173,9 @@ public class Chunk
 		
 		// Update the rebuild state
 		forceLayerRebuild();
+		
+		// All of the data was replaced
+		changeCount.incrementAndGet();
 	}
 	
 	// Count all elements matching "matchAll" in the array
@@ -135,10 +187,15 @@ public class Chunk
 	// Count all elements matching "matchAll" in the given range
 	private long countAll(IntPredicate matchAll, byte[] source, int startIndex, int endIndex)
 	{
-		return IntStream.range(startIndex, endIndex)
-				.map(i -> Byte.toUnsignedInt(source[i]))
-				.filter(matchAll)
-				.count();
+		long count = 0;
+		
+		for (int i = startIndex; i < endIndex; i++)
+		{
+			if (matchAll.test(Byte.toUnsignedInt(source[i])))
+				count++;
+		}
+		
+		return count;
 	}
 	
 	/**
@@ -356,6 +413,9 @@ public class Chunk
 		
 		assert blockLightCount >= 0 : "Bad block light count!";
 		
+		// Lighting is saved along with the blocks
+		makeDirty();
+		
 		// Trigger layer rebuild
 		forceLayerRebuild();
 	}
@@ -392,6 +452,9 @@ public class Chunk
 		
 		assert skyLightCount >= 0 : "Bad skylight count!";
 		
+		// Lighting is saved along with the blocks
+		makeDirty();
+		
 		// Trigger layer rebuild
 		forceLayerRebuild();
 	}
@@ -441,6 +504,9 @@ public class Chunk
 		
 		blockMeta[index] &= ~mask;
 		blockMeta[index] |= (byte)(meta << shift);
+		
+		// Mark that the chunk now has been modified
+		makeDirty();
 	}
 	
 	//////// Flags Galore! ////////
@@ -468,6 +534,18 @@ public class Chunk
 	public void makeDirty()
 	{
 		isDirty = true;
+		changeCount.incrementAndGet();
+	}
+	
+	/**
+	 * Gets the number of times that the chunk data has been changed
+	 * Anything changing the data marks the chunk as dirty, which also bumps
+	 * this up, so a copy of the data is stale once the count is different
+	 * @return The change count of the chunk
+	 */
+	public int getChangeCount()
+	{
+		return changeCount.get();
 	}
 	
 	/**
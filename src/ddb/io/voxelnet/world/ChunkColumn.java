@@ -1,5 +1,11 @@
 package ddb.io.voxelnet.world;
 
+import ddb.io.voxelnet.serial.SeField;
+import ddb.io.voxelnet.serial.SeMapped;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SeMapped(afterRead = "onFieldsRead")
 public class ChunkColumn
 {
 	public static final int COLUMNS_SIZE = 16 * 16;
@@ -7,14 +13,21 @@ public class ChunkColumn
 	// 1 Column is defined to be a vertical stack of 256 blocks or a vertical stack of 16 chunks
 	
 	// Tallest opaque block in each column
-	private final byte[] opaqueColumns = new byte[COLUMNS_SIZE];
+	@SeField(id = 2) final byte[] opaqueColumns = new byte[COLUMNS_SIZE];
 	// Tallest block in each column, can be either transparent or opaque
 	private byte[] blockColumns = new byte[16 * 16];
 	// If the column is to be or is already unloaded
 	private boolean isUnloaded = false;
+	// Current generation stage of the column
+	private ColumnStage stage = ColumnStage.EMPTY;
+	// If the column's heightmap needs to be saved to disk
+	private boolean isDirty = false;
+	// Number of times that the heightmap has been changed
+	private final AtomicInteger changeCount = new AtomicInteger();
 	
 	// Column positions
-	public final int columnX, columnZ;
+	@SeField(id = 0) public final int columnX;
+	@SeField(id = 1) public final int columnZ;
 	
 	/**
 	 * Creates a new chunk column
@@ -29,6 +42,7 @@ public class ChunkColumn
 	
 	/**
 	 * Creates a chunk column from existing data
+	 * Columns created from existing data are always complete
 	 * @param x The x position of the column
 	 * @param z The z position of the column
 	 * @param opaqueColumns Opaque column data
@@ -38,6 +52,14 @@ public class ChunkColumn
 		this(x, z);
 		
 		System.arraycopy(opaqueColumns, 0, this.opaqueColumns, 0, this.opaqueColumns.length);
+		this.stage = ColumnStage.READY;
+	}
+	
+	// Columns read in from existing data are always complete
+	void onFieldsRead()
+	{
+		this.stage = ColumnStage.READY;
+		changeCount.incrementAndGet();
 	}
 	
 	/**
@@ -66,7 +88,11 @@ public class ChunkColumn
 		int columnIdx = blockX + blockZ * 16;
 		
 		// Lossy / truncate convert into a byte
+		if (opaqueColumns[columnIdx] == (byte)y)
+			return;
+		
 		opaqueColumns[columnIdx] = (byte)y;
+		makeDirty();
 	}
 	
 	public byte[] getOpaqueColumnData()
@@ -74,6 +100,71 @@ public class ChunkColumn
 		return opaqueColumns;
 	}
 	
+	/**
+	 * Gets the current generation stage of the column
+	 * @return The column's generation stage
+	 */
+	public ColumnStage getStage()
+	{
+		return stage;
+	}
+	
+	/**
+	 * Sets the current generation stage of the column
+	 * Only the chunk manager should advance the stage
+	 * @param stage The new generation stage
+	 */
+	void setStage(ColumnStage stage)
+	{
+		this.stage = stage;
+	}
+	
+	/**
+	 * Checks if the column has finished generating
+	 * Only ready columns are sent to clients or meshed
+	 * @return True if the column is ready
+	 */
+	public boolean isReady()
+	{
+		return stage == ColumnStage.READY;
+	}
+	
+	/**
+	 * Checks if the column's heightmap has changed since it was last saved
+	 * @return True if the column needs to be saved
+	 */
+	public boolean isDirty()
+	{
+		return isDirty;
+	}
+	
+	/**
+	 * Makes the column clean
+	 */
+	public void makeClean()
+	{
+		isDirty = false;
+	}
+	
+	/**
+	 * Makes the column dirty, indicating that it needs to be saved
+	 */
+	public void makeDirty()
+	{
+		isDirty = true;
+		changeCount.incrementAndGet();
+	}
+	
+	/**
+	 * Gets the number of times that the heightmap has been changed
+	 * A copy of the heightmap is stale once the count is different
+	 * @return The change count of the column
+	 */
+	public int getChangeCount()
+	{
+		return changeCount.get();
+	}
+	
 	/**
 	 * Mark a column for unloading
 	 */
@@ -0,0 +1,178 @@
+package ddb.io.voxelnet.world;
+
+import ddb.io.voxelnet.serial.SeDataTypes;
+import ddb.io.voxelnet.serial.SeMapper;
+import ddb.io.voxelnet.serial.SeRecord;
+import ddb.io.voxelnet.serial.SeUtil;
+import ddb.io.voxelnet.serial.SeValue;
+import io.netty.buffer.ByteBuf;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Mapper for 'ChunkColumn's, generated by 'SeMapperGenerator'
+ * Don't edit this directly, regenerate it after changing the fields
+ *
+ * Fields:
+ * 0: columnX (int, final)
+ * 1: columnZ (int, final)
+ * 2: opaqueColumns (byte[], final)
+ */
+public final class ChunkColumnSeMapper implements SeMapper<ChunkColumn>
+{
+	public static final ChunkColumnSeMapper INSTANCE = new ChunkColumnSeMapper();
+	
+	private static final int FIELD_COUNT = 3;
+	// Size of the field count, and of all of the fields with a fixed size
+	private static final int FIXED_SIZE = Integer.BYTES
+			+ SeUtil.getFieldSize(0, Integer.BYTES)
+			+ SeUtil.getFieldSize(1, Integer.BYTES);
+	
+	private ChunkColumnSeMapper() {}
+	
+	@Override
+	public void writeTo(ChunkColumn value, DataOutputStream output) throws IOException
+	{
+		output.writeInt(FIELD_COUNT);
+		
+		// columnX
+		SeUtil.writeFieldHeader(0, Integer.BYTES, SeDataTypes.INT, output);
+		output.writeInt(value.columnX);
+		
+		// columnZ
+		SeUtil.writeFieldHeader(1, Integer.BYTES, SeDataTypes.INT, output);
+		output.writeInt(value.columnZ);
+		
+		// opaqueColumns
+		if (value.opaqueColumns == null)
+		{
+			SeUtil.writeFieldHeader(2, 0, SeDataTypes.EMPTY, output);
+		}
+		else
+		{
+			SeUtil.writeFieldHeader(2, Integer.BYTES + value.opaqueColumns.length * Byte.BYTES, SeDataTypes.BYTE_ARRAY, output);
+			output.writeInt(value.opaqueColumns.length);
+			output.write(value.opaqueColumns);
+		}
+	}
+	
+	@Override
+	public void readFrom(ChunkColumn value, DataInputStream input) throws IOException
+	{
+		int fieldCount = input.readInt();
+		
+		for (int i = 0; i < fieldCount; i++)
+		{
+			int id = SeUtil.readVarInt(input);
+			int skip = SeUtil.readVarInt(input);
+			int tag = Byte.toUnsignedInt(input.readByte());
+			
+			switch (id)
+			{
+				case 2: // opaqueColumns
+					if (tag != SeDataTypes.BYTE_ARRAY.ordinal())
+						break;
+					
+					if (SeUtil.readArrayLength(skip, Byte.BYTES, input) != value.opaqueColumns.length)
+						throw new IOException("Mismatched length for opaqueColumns");
+					
+					input.readFully(value.opaqueColumns);
+					continue;
+				default:
+					break;
+			}
+			
+			// Skip over unknown fields, and ones with a different type
+			SeUtil.skipFully(input, skip - 1);
+		}
+		
+		value.onFieldsRead();
+	}
+	
+	@Override
+	public void writeTo(ChunkColumn value, ByteBuf output)
+	{
+		output.writeInt(FIELD_COUNT);
+		
+		// columnX
+		SeUtil.writeFieldHeader(0, Integer.BYTES, SeDataTypes.INT, output);
+		output.writeInt(value.columnX);
+		
+		// columnZ
+		SeUtil.writeFieldHeader(1, Integer.BYTES, SeDataTypes.INT, output);
+		output.writeInt(value.columnZ);
+		
+		// opaqueColumns
+		if (value.opaqueColumns == null)
+		{
+			SeUtil.writeFieldHeader(2, 0, SeDataTypes.EMPTY, output);
+		}
+		else
+		{
+			SeUtil.writeFieldHeader(2, Integer.BYTES + value.opaqueColumns.length * Byte.BYTES, SeDataTypes.BYTE_ARRAY, output);
+			output.writeInt(value.opaqueColumns.length);
+			output.writeBytes(value.opaqueColumns);
+		}
+	}
+	
+	@Override
+	public void readFrom(ChunkColumn value, ByteBuf input) throws IOException
+	{
+		int fieldCount = input.readInt();
+		
+		for (int i = 0; i < fieldCount; i++)
+		{
+			int id = SeUtil.readVarInt(input);
+			int skip = SeUtil.readVarInt(input);
+			int tag = input.readUnsignedByte();
+			
+			switch (id)
+			{
+				case 2: // opaqueColumns
+					if (tag != SeDataTypes.BYTE_ARRAY.ordinal())
+						break;
+					
+					if (SeUtil.readArrayLength(skip, Byte.BYTES, input) != value.opaqueColumns.length)
+						throw new IOException("Mismatched length for opaqueColumns");
+					
+					input.readBytes(value.opaqueColumns);
+					continue;
+				default:
+					break;
+			}
+			
+			// Skip over unknown fields, and ones with a different type
+			input.skipBytes(skip - 1);
+		}
+		
+		value.onFieldsRead();
+	}
+	
+	@Override
+	public void readFrom(ChunkColumn value, SeRecord record) throws IOException
+	{
+		SeValue field;
+		
+		// opaqueColumns
+		field = record.getValue(2);
+		if (field.getSerializeType() == SeDataTypes.BYTE_ARRAY)
+		{
+			if (field.asByteArray().length != value.opaqueColumns.length)
+				throw new IOException("Mismatched length for opaqueColumns");
+			
+			System.arraycopy(field.asByteArray(), 0, value.opaqueColumns, 0, value.opaqueColumns.length);
+		}
+		
+		value.onFieldsRead();
+	}
+	
+	@Override
+	public int getComputedSize(ChunkColumn value)
+	{
+		int size = FIXED_SIZE;
+		size += value.opaqueColumns == null ? SeUtil.getFieldSize(2, 0) : SeUtil.getFieldSize(2, Integer.BYTES + value.opaqueColumns.length * Byte.BYTES);
+		return size;
+	}
+}
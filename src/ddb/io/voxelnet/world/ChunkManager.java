@@ -2,15 +2,33 @@ package ddb.io.voxelnet.world;
 
 import ddb.io.voxelnet.block.Block;
 import ddb.io.voxelnet.block.Blocks;
+import ddb.io.voxelnet.entity.Entity;
+import ddb.io.voxelnet.entity.EntityPlayer;
 import ddb.io.voxelnet.util.PerlinOctaves;
 import ddb.io.voxelnet.util.Vec3i;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Predicate;
 
 public class ChunkManager
 {
+	// Height of the generated water
+	private static final int WATER_LEVEL = 64;
+	// Generation only places blocks, lighting & columns are handled in later stages
+	// Generated blocks aren't journaled, replaying a change generates the column again anyway
+	private static final int GEN_FLAGS = 0b11000;
+	// How many columns ahead of a moving player are read in
+	private static final int READ_AHEAD_DISTANCE = 4;
+	// Slowest speed that a player has to be moving at to read ahead (in blocks per second)
+	private static final float READ_AHEAD_MIN_SPEED = 1.0f;
+	// Distance out to which the columns around a column are advanced when it is generated
+	// (ready columns need lit neighbors, which need decorated neighbors)
+	private static final int GENERATION_RADIUS = 2;
+	// Number of times that a column is read in the background before it is left unloaded
+	private static final int MAX_READ_ATTEMPTS = 3;
+	
 	// Map of currently loaded chunks
 	public final Map<Vec3i, Chunk> loadedChunks = new LinkedHashMap<>();
 	// List/cache of previously loaded chunks and columns
@@ -21,11 +39,28 @@ public class ChunkManager
 	// List of active chunk columns
 	// TODO: Add Vec2i
 	public final Map<Vec3i, ChunkColumn> chunkColumns = new LinkedHashMap<>();
+	// Sampled surface heights of columns that haven't been lit yet
+	private final Map<Vec3i, int[]> pendingHeightmaps = new HashMap<>();
+	// Columns being read in the background, which have placeholders until the read is done
+	private final Set<Vec3i> pendingReads = new HashSet<>();
+	// Columns that were read in, but weren't in the world save
+	private final Set<Vec3i> missingColumns = new HashSet<>();
+	// Columns that weren't in the world save, waiting for the columns around them to be read in before being generated
+	private final Set<Vec3i> awaitingGeneration = new LinkedHashSet<>();
+	// Reads of the columns around the awaiting columns that haven't finished yet
+	private final Set<Vec3i> areaReads = new HashSet<>();
+	// Saved columns whose records couldn't be read, which are left unloaded
+	// so that they're never generated & saved over
+	private final Set<Vec3i> unreadableColumns = new HashSet<>();
+	// Number of failed background reads of each column, since its last successful read
+	private final Map<Vec3i, Integer> failedReads = new HashMap<>();
 	
 	public final PerlinOctaves perlinNoise;
 	
 	// World associated with this chunk manager
 	protected final World world;
+	// Save to load existing columns from (null if there is none)
+	private WorldSave worldSave = null;
 	
 	public ChunkManager(World world)
 	{
@@ -34,6 +69,15 @@ public class ChunkManager
 		this.world = world;
 	}
 	
+	/**
+	 * Sets the world save that existing columns are loaded from
+	 * @param worldSave The world save to load columns from, or null for none
+	 */
+	public void setWorldSave(WorldSave worldSave)
+	{
+		this.worldSave = worldSave;
+	}
+	
 	/**
 	 * Gets the chunk for the requested position
 	 * By default, does not load in new chunks
@@ -105,6 +149,16 @@ public class ChunkManager
 	// Method to override
 	protected Chunk doLoadChunk(Vec3i pos)
 	{
+		// The column's chunks are still being read, and are needed now
+		Vec3i columnPos = new Vec3i(pos.getX(), 0, pos.getZ());
+		if (pendingReads.contains(columnPos))
+		{
+			finishPendingRead(columnPos);
+			
+			if (loadedChunks.containsKey(pos))
+				return loadedChunks.get(pos);
+		}
+		
 		Chunk chunk = new Chunk(world, pos.getX(), pos.getY(), pos.getZ());
 		loadedChunks.put(pos, chunk);
 		chunk.chunkField.rebuildField();
@@ -159,15 +213,246 @@ public class ChunkManager
 	
 	/**
 	 * Implementation of "loadColumn"
+	 *
+	 * Columns that aren't loaded yet are read from the world save in the
+	 * background. A placeholder column is returned until the read is done,
+	 * which can be checked with {@link #isColumnReady(int, int)}
+	 *
 	 * @param pos The position of the chunk column (in chunks)
+	 * @return The column, or null if its saved record can't be read
 	 */
 	protected ChunkColumn doColumnLoad(Vec3i pos)
 	{
+		if (unreadableColumns.contains(pos))
+			return null;
+		
+		ChunkColumn column = chunkColumns.get(pos);
+		
+		// Already loaded, or already being loaded
+		if (column != null && (column.isReady() || pendingReads.contains(pos) || awaitingGeneration.contains(pos)))
+			return column;
+		
 		// TODO: Check if the column is in the unloaded column cache
-		// Default: Generate new chunks
+		// Check if the column was previously saved
+		if (column == null && worldSave != null)
+		{
+			column = new ChunkColumn(pos.getX(), pos.getZ());
+			chunkColumns.put(pos, column);
+			pendingReads.add(pos);
+			
+			worldSave.getIOScheduler().requestRead(pos.getX(), pos.getZ(), false);
+			return column;
+		}
+		
+		// Finish generating a partial column once the columns around it are read in
+		if (worldSave != null)
+		{
+			awaitingGeneration.add(pos);
+			requestAreaReads(pos);
+			return column;
+		}
+		
+		// Default: Generate new chunks, or finish generating a partial column
 		return generateChunk(pos.getX(), pos.getZ());
 	}
 	
+	/**
+	 * Loads a chunk column right away, instead of in the background
+	 * If the column is being read in the background, the read is finished
+	 * on the calling thread
+	 * @param columnX The x position of the chunk column (in chunks)
+	 * @param columnZ The z position of the chunk column (in chunks)
+	 * @return The loaded chunk column, or null if it can't be read in
+	 */
+	public ChunkColumn loadColumnNow(int columnX, int columnZ)
+	{
+		// Loads the saved column if there is one, otherwise generates it
+		return generateChunk(columnX, columnZ);
+	}
+	
+	/**
+	 * Adds the columns that have finished being read in to the world, and
+	 * reads ahead of the moving players
+	 * Should be called once every tick
+	 */
+	public void updateColumnReads()
+	{
+		if (worldSave == null)
+			return;
+		
+		ColumnIOScheduler scheduler = worldSave.getIOScheduler();
+		List<Vec3i> focusPoints = new ArrayList<>();
+		
+		for (Entity entity : world.loadedEntities)
+		{
+			if (!(entity instanceof EntityPlayer))
+				continue;
+			
+			Vec3i columnPos = new Vec3i((int)Math.floor(entity.xPos) >> 4, 0, (int)Math.floor(entity.zPos) >> 4);
+			focusPoints.add(columnPos);
+			readAhead(entity, columnPos);
+		}
+		
+		// Reads closest to the players go first
+		scheduler.setFocusPoints(focusPoints);
+		
+		ColumnIOScheduler.ColumnRead read;
+		while ((read = scheduler.pollCompleted()) != null)
+		{
+			if (read.hasFailed())
+			{
+				handleFailedRead(read);
+				continue;
+			}
+			
+			failedReads.remove(read.pos);
+			areaReads.remove(read.pos);
+			
+			if (!read.wasFound())
+			{
+				// Don't try to read this column in again
+				missingColumns.add(read.pos);
+				
+				// Generating the column advances the ones around it, so they're read in first
+				if (pendingReads.remove(read.pos))
+				{
+					awaitingGeneration.add(read.pos);
+					requestAreaReads(read.pos);
+				}
+			}
+			else if (pendingReads.remove(read.pos))
+			{
+				// Swap out the placeholder for the real column
+				chunkColumns.remove(read.pos);
+				worldSave.publishColumns(Collections.singletonList(read.column));
+			}
+			else if (!isColumnLoaded(read.pos))
+			{
+				// Keep the read-ahead column around for when it's needed
+				worldSave.publishColumns(Collections.singletonList(read.column));
+			}
+		}
+		
+		// Generate the columns that have everything around them read in
+		Iterator<Vec3i> itr = awaitingGeneration.iterator();
+		while (itr.hasNext())
+		{
+			Vec3i pos = itr.next();
+			
+			if (isAreaRead(pos))
+			{
+				itr.remove();
+				generateChunk(pos.getX(), pos.getZ());
+			}
+		}
+	}
+	
+	// Tries a failed read again, or gives up & leaves the column unloaded
+	private void handleFailedRead(ColumnIOScheduler.ColumnRead read)
+	{
+		// Nothing was waiting on the read (i.e. reading ahead), so it's tried again once it's needed
+		if (!pendingReads.contains(read.pos) && !areaReads.contains(read.pos))
+			return;
+		
+		int attempts = failedReads.merge(read.pos, 1, Integer::sum);
+		
+		if (attempts < MAX_READ_ATTEMPTS)
+		{
+			worldSave.getIOScheduler().requestRead(read.pos.getX(), read.pos.getZ(), false);
+			return;
+		}
+		
+		System.err.println("Unable to read in column (" + read.pos.getX() + ", " + read.pos.getZ() + ") after " + attempts + " attempts, leaving it unloaded");
+		failedReads.remove(read.pos);
+		unreadableColumns.add(read.pos);
+		areaReads.remove(read.pos);
+		
+		// Drop the placeholder
+		if (pendingReads.remove(read.pos))
+			chunkColumns.remove(read.pos);
+	}
+	
+	// Reads in the columns that get advanced when the given column is generated
+	private void requestAreaReads(Vec3i center)
+	{
+		for (int z = center.getZ() - GENERATION_RADIUS; z <= center.getZ() + GENERATION_RADIUS; z++)
+		{
+			for (int x = center.getX() - GENERATION_RADIUS; x <= center.getX() + GENERATION_RADIUS; x++)
+			{
+				Vec3i pos = new Vec3i(x, 0, z);
+				
+				if (chunkColumns.containsKey(pos) || missingColumns.contains(pos) || unreadableColumns.contains(pos) || !areaReads.add(pos))
+					continue;
+				
+				worldSave.getIOScheduler().requestRead(x, z, false);
+			}
+		}
+	}
+	
+	// Checks if all of the columns that get advanced when the given column is generated are in, or known to be missing
+	private boolean isAreaRead(Vec3i center)
+	{
+		for (int z = center.getZ() - GENERATION_RADIUS; z <= center.getZ() + GENERATION_RADIUS; z++)
+		{
+			for (int x = center.getX() - GENERATION_RADIUS; x <= center.getX() + GENERATION_RADIUS; x++)
+			{
+				Vec3i pos = new Vec3i(x, 0, z);
+				
+				if (areaReads.contains(pos) || pendingReads.contains(pos))
+					return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	// Requests the columns in front of a moving player
+	private void readAhead(Entity player, Vec3i playerColumn)
+	{
+		float speed = (float)Math.sqrt(player.xVel * player.xVel + player.zVel * player.zVel);
+		
+		if (speed < READ_AHEAD_MIN_SPEED)
+			return;
+		
+		float dirX = player.xVel / speed;
+		float dirZ = player.zVel / speed;
+		
+		for (int dist = 1; dist <= READ_AHEAD_DISTANCE; dist++)
+		{
+			int aheadX = playerColumn.getX() + Math.round(dirX * dist);
+			int aheadZ = playerColumn.getZ() + Math.round(dirZ * dist);
+			Vec3i aheadPos = new Vec3i(aheadX, 0, aheadZ);
+			
+			if (isColumnLoaded(aheadPos) || missingColumns.contains(aheadPos))
+				continue;
+			
+			worldSave.getIOScheduler().requestRead(aheadX, aheadZ, true);
+		}
+	}
+	
+	// Finishes off a background read on the current thread
+	private void finishPendingRead(Vec3i pos)
+	{
+		pendingReads.remove(pos);
+		worldSave.getIOScheduler().cancelRead(pos);
+		
+		// Drop the placeholder, so the column gets loaded in normally
+		chunkColumns.remove(pos);
+		advanceColumn(pos.getX(), pos.getZ(), ColumnStage.READY);
+	}
+	
+	/**
+	 * Tries to load a column from the world save
+	 * @param columnX The x position of the column
+	 * @param columnZ The z position of the column
+	 * @return True if the column was loaded from the world save
+	 * @throws IOException If the column was saved, but can't be read in
+	 */
+	protected boolean loadFromWorldSave(int columnX, int columnZ) throws IOException
+	{
+		return worldSave != null && worldSave.loadColumn(columnX, columnZ);
+	}
+	
 	/**
 	 * Checks if the column at the given coordinates is loaded.
 	 * A column is loaded if it exists either in the chunk manager's cache, or
@@ -197,18 +482,161 @@ public class ChunkManager
 	
 	/**
 	 * Generates a chunk column at the specified chunk position
+	 * The column, along with the required neighboring columns, are advanced
+	 * through the generation stages until the column is ready
 	 * @param cx The x position of the new chunk column
 	 * @param cz The z position of the new chunk column
+	 * @return The generated column, or null if it or a column around it can't be read in
 	 */
 	public ChunkColumn generateChunk(int cx, int cz)
 	{
-		// ???: The server sends out the chunk column before a light update is performed, should the server send out a light update packet/notification?
-		// Make the chunk columns
-		ChunkColumn column = new ChunkColumn(cx, cz);
-		chunkColumns.put(new Vec3i(cx, 0, cz), column);
+		return advanceColumn(cx, cz, ColumnStage.READY);
+	}
+	
+	/**
+	 * Gets the generation stage of the given column
+	 * @param columnX The x position of the chunk column (in chunks)
+	 * @param columnZ The z position of the chunk column (in chunks)
+	 * @return The column's stage, or EMPTY if the column doesn't exist
+	 */
+	public ColumnStage getColumnStage(int columnX, int columnZ)
+	{
+		return getColumn(columnX, columnZ)
+				.map(ChunkColumn::getStage)
+				.orElse(ColumnStage.EMPTY);
+	}
+	
+	/**
+	 * Checks if the column at the given position has finished generating
+	 * @param columnX The x position of the chunk column (in chunks)
+	 * @param columnZ The z position of the chunk column (in chunks)
+	 * @return True if the column exists and is ready
+	 */
+	public boolean isColumnReady(int columnX, int columnZ)
+	{
+		return getColumnStage(columnX, columnZ) == ColumnStage.READY;
+	}
+	
+	/**
+	 * Checks if any saved columns couldn't be read in
+	 * Changes to those columns only exist in the block journal
+	 * @return True if there are unreadable columns
+	 */
+	public boolean hasUnreadableColumns()
+	{
+		return !unreadableColumns.isEmpty();
+	}
+	
+	/**
+	 * Advances a column up to the target generation stage, creating it if it
+	 * doesn't exist yet
+	 *
+	 * Before a column advances into a stage, all of the adjacent columns are
+	 * advanced up to that stage's neighbor prerequisite. As prerequisites are
+	 * always earlier stages, the amount of neighbor generation is bounded.
+	 *
+	 * Saved columns that can't be read in are never generated, as they'd be
+	 * saved over the old record. Columns next to them are held back at the
+	 * stage that they're at.
+	 *
+	 * @param cx The x position of the column
+	 * @param cz The z position of the column
+	 * @param target The stage to advance the column to
+	 * @return The advanced column, or null if it or a column around it can't be read in
+	 */
+	public ChunkColumn advanceColumn(int cx, int cz, ColumnStage target)
+	{
+		Vec3i columnPos = new Vec3i(cx, 0, cz);
+		
+		// The column is needed before the background read is done
+		if (pendingReads.contains(columnPos))
+			finishPendingRead(columnPos);
+		
+		if (unreadableColumns.contains(columnPos))
+			return null;
+		
+		ChunkColumn column = chunkColumns.get(columnPos);
+		
+		// Use the saved column if there is one
+		// Columns already known to be missing are skipped, so generating a column
+		// that was read in the background doesn't read the ones around it here
+		try
+		{
+			if (column == null && !missingColumns.contains(columnPos) && loadFromWorldSave(cx, cz))
+				column = chunkColumns.get(columnPos);
+		} catch (IOException e)
+		{
+			System.err.println("Unable to read in column (" + cx + ", " + cz + "), leaving it unloaded");
+			e.printStackTrace();
+			unreadableColumns.add(columnPos);
+			return null;
+		}
+		
+		if (column == null)
+		{
+			// ???: The server sends out the chunk column before a light update is performed, should the server send out a light update packet/notification?
+			// Make the chunk columns
+			column = new ChunkColumn(cx, cz);
+			chunkColumns.put(columnPos, column);
+		}
+		
+		// Generated columns end up in the world save, so they can be read in again
+		if (column.getStage() == ColumnStage.EMPTY)
+			missingColumns.remove(columnPos);
+		
+		while (!column.getStage().isAtLeast(target))
+		{
+			ColumnStage nextStage = column.getStage().next();
+			ColumnStage prerequisite = nextStage.getNeighborPrerequisite();
+			
+			// Bring the neighbors up to the required stage first
+			if (prerequisite != null)
+			{
+				for (int offZ = -1; offZ <= 1; offZ++)
+				{
+					for (int offX = -1; offX <= 1; offX++)
+					{
+						if (offX == 0 && offZ == 0)
+							continue;
+						
+						if (advanceColumn(cx + offX, cz + offZ, prerequisite) == null)
+							return null;
+					}
+				}
+			}
+			
+			switch (nextStage)
+			{
+				case HEIGHTMAP: generateHeightmap(column); break;
+				case TERRAIN:   generateTerrain(column);   break;
+				case DECORATED: decorateSurface(column);   break;
+				case LIT:       seedColumnLight(column);   break;
+				default: break;
+			}
+			
+			column.setStage(nextStage);
+		}
+		
+		return column;
+	}
+	
+	// Samples the surface heights for the column
+	private void generateHeightmap(ChunkColumn column)
+	{
+		pendingHeightmaps.put(new Vec3i(column.columnX, 0, column.columnZ), sampleHeightmap(column.columnX, column.columnZ));
+	}
+	
+	// Gets the sampled surface heights of a column that hasn't been lit yet
+	// Columns evicted before being lit lose their heights, so they're sampled again
+	private int[] getPendingHeightmap(int cx, int cz)
+	{
+		return pendingHeightmaps.computeIfAbsent(new Vec3i(cx, 0, cz), (pos) -> sampleHeightmap(cx, cz));
+	}
+	
+	private int[] sampleHeightmap(int cx, int cz)
+	{
+		int[] heights = new int[16 * 16];
 		
-		// Pre-generate heightmap
-		double[] heights = new double[16 * 16];
 		for (int z = 15; z >= 0; z--)
 		{
 			for (int x = 15; x >= 0; x--)
@@ -218,101 +646,126 @@ public class ChunkManager
 				noiseX = (0.25d * (cx * 16f + x) / 16.0d);
 				noiseZ = (0.25d * (cz * 16f + z) / 16.0d);
 				
-				heights[x + z * 16] = perlinNoise.perlinOctaves(noiseX, noiseZ, 0.5d);
+				// Height sampled from the heightmap
+				heights[x + z * 16] = 55 + (int)Math.floor(perlinNoise.perlinOctaves(noiseX, noiseZ, 0.5d) * 28.0d);
 			}
 		}
 		
-		// Distance below the heightmap sample point
-		int depth = 0;
-		int waterLevel = 64;
+		return heights;
+	}
+	
+	// Fills in the base stone & water, starting from the heightmap or the water level, whichever is taller
+	private void generateTerrain(ChunkColumn column)
+	{
+		int cx = column.columnX;
+		int cz = column.columnZ;
+		int[] heights = getPendingHeightmap(cx, cz);
 		
-		// Fill in the heightmap, starting from the heightmap or the water level, whichever is taller
 		for (int z = 0; z < 16; z++)
 		{
 			for (int x = 0; x < 16; x++)
 			{
-				boolean foundTallest = false;
-				int colIdx = x + (z << 4);
+				int height = heights[x + (z << 4)];
 				
-				// Height sampled from the heightmap
-				int height = 55 + (int)Math.floor(heights[colIdx] * 28.0d);
-				// Filling in height
-				int y = height;
-				
-				if (y < waterLevel)
-				{
-					// Generate water below the water level
-					y = waterLevel;
-				}
-				
-				// Used in generating the blocks below the top layer
-				Block blockBelow = Blocks.AIR;
-				
-				for (; y >= 0; y--)
+				for (int y = Math.max(height, WATER_LEVEL); y >= 0; y--)
 				{
 					Block block = Blocks.STONE;
 					
-					// Setup the top layers
-					if (depth == 0)
-					{
-						// Setup the blocks to place
-						if (y >= waterLevel + 1)
-						{
-							// Above the water level, generate grass & dirt
-							block = Blocks.GRASS;
-							blockBelow = Blocks.DIRT;
-						} else if (y >= (waterLevel - 3))
-						{
-							// At and 3 block below water level, generate sand
-							block = Blocks.SAND;
-							blockBelow = Blocks.SAND;
-						} else
-						{
-							// Below water level, generate gravel
-							block = Blocks.GRAVEL;
-							blockBelow = Blocks.GRAVEL;
-						}
-					} else if (depth < 3)
+					if (y > height)
 					{
-						// Start placing the below block
-						block = blockBelow;
+						// Generate water between the water level & the generated height
+						block = Blocks.WATER;
 					} else if ((y <= 4 && world.worldRandom.nextInt(8) == 0) || y == 0)
 					{
 						// Start filling in random places with planks
 						block = Blocks.PLANKS;
 					}
 					
-					if (y > height)
-					{
-						// Generate water between the water level & the generated height
-						block = Blocks.WATER;
-					}
-					
-					byte flags = 0b1000;
+					world.setBlock((cx << 4) + x, y, (cz << 4) + z, block, 0, GEN_FLAGS);
+				}
+			}
+		}
+	}
+	
+	// Replaces the top layers of the terrain with the surface blocks
+	private void decorateSurface(ChunkColumn column)
+	{
+		int cx = column.columnX;
+		int cz = column.columnZ;
+		int[] heights = getPendingHeightmap(cx, cz);
+		
+		for (int z = 0; z < 16; z++)
+		{
+			for (int x = 0; x < 16; x++)
+			{
+				int height = heights[x + (z << 4)];
+				Block topBlock;
+				Block blockBelow;
+				
+				if (height >= WATER_LEVEL + 1)
+				{
+					// Above the water level, generate grass & dirt
+					topBlock = Blocks.GRASS;
+					blockBelow = Blocks.DIRT;
+				} else if (height >= (WATER_LEVEL - 3))
+				{
+					// At and 3 block below water level, generate sand
+					topBlock = Blocks.SAND;
+					blockBelow = Blocks.SAND;
+				} else
+				{
+					// Below water level, generate gravel
+					topBlock = Blocks.GRAVEL;
+					blockBelow = Blocks.GRAVEL;
+				}
+				
+				for (int depth = 0; depth < 3 && height - depth >= 0; depth++)
+				{
+					Block block = (depth == 0) ? topBlock : blockBelow;
+					world.setBlock((cx << 4) + x, height - depth, (cz << 4) + z, block, 0, GEN_FLAGS);
+				}
+			}
+		}
+	}
+	
+	// Builds the opaque heightmap and seeds the sky light for the column
+	private void seedColumnLight(ChunkColumn column)
+	{
+		int cx = column.columnX;
+		int cz = column.columnZ;
+		int[] heights = getPendingHeightmap(cx, cz);
+		pendingHeightmaps.remove(new Vec3i(cx, 0, cz));
+		
+		for (int z = 0; z < 16; z++)
+		{
+			for (int x = 0; x < 16; x++)
+			{
+				boolean foundTallest = false;
+				int blockX = (cx << 4) + x;
+				int blockZ = (cz << 4) + z;
+				
+				for (int y = Math.max(heights[x + (z << 4)], WATER_LEVEL); y >= 0; y--)
+				{
+					Block block = world.getBlock(blockX, y, blockZ);
 					
-					world.setBlock((cx << 4) + x, y, (cz << 4) + z, block, 0, flags);
+					int chunkBlockX = x & 0xF;
+					int chunkBlockY = y & 0xF;
+					int chunkBlockZ = z & 0xF;
 					
-					if ((block == Blocks.WATER && y < waterLevel) || !block.isTransparent())
+					if ((block == Blocks.WATER && y < WATER_LEVEL) || !block.isTransparent())
 					{
-						int chunkBlockX = x & 0xF;
-						int chunkBlockY = y & 0xF;
-						int chunkBlockZ = z & 0xF;
-						
 						// Remove skylight if the height is 1 below the water level, or the block is not transparent
 						getChunk(cx, y >> 4, cz, false)
 								.ifPresent(chunk -> chunk.setSkyLight(chunkBlockX, chunkBlockY, chunkBlockZ, 0));
-					} else if (block == Blocks.WATER && y == waterLevel)
+					} else if (block == Blocks.WATER && y == WATER_LEVEL)
 					{
 						// Set the light level to the attenuated light
 						int attenuatedLight = (15 - block.getOpacity());
-						int chunkBlockX = x & 0xF;
-						int chunkBlockY = y & 0xF;
-						int chunkBlockZ = z & 0xF;
 						
 						getChunk(cx, y >> 4, cz, false)
 								.ifPresent(chunk -> chunk.setSkyLight(chunkBlockX, chunkBlockY, chunkBlockZ, attenuatedLight));
 						// Add pending sky light updates
-						world.addSkyLightUpdate(new Vec3i((cx << 4) + x, y, (cz << 4) + z), 0);
+						world.addSkyLightUpdate(new Vec3i(blockX, y, blockZ), 0);
 					}
 					
 					if (!foundTallest)
@@ -324,17 +777,9 @@ public class ChunkManager
 							foundTallest = true;
 						}
 					}
-					
-					// Only increase the depth once the generated height is reached
-					if (y <= height)
-						depth++;
 				}
-				
-				depth = 0;
 			}
 		}
-		
-		return column;
 	}
 	
 	/**
@@ -416,6 +861,8 @@ public class ChunkManager
 			List<Chunk> preserveEntries = new ArrayList<>();
 			
 			chunkColumns.remove(pos);
+			// Edge columns may be evicted before they're lit
+			pendingHeightmaps.remove(pos);
 			
 			for (int y = 0; y < 16; y++)
 			{
@@ -490,6 +937,33 @@ public class ChunkManager
 		return true;
 	}
 	
+	/**
+	 * Drops any cached copies of a column, so that it can't be loaded back in from the cache
+	 * @param columnX The x position of the column
+	 * @param columnZ The z position of the column
+	 */
+	protected void dropFromChunkCache(int columnX, int columnZ)
+	{
+		chunkCache.removeIf((ent) ->
+				ent.column != null
+						&& ent.column.columnX == columnX
+						&& ent.column.columnZ == columnZ);
+	}
+	
+	/**
+	 * Drops the cached columns that are too far away from a column
+	 * @param centerX The x position of the center column
+	 * @param centerZ The z position of the center column
+	 * @param radius The distance to keep cached columns within, in columns
+	 */
+	public void dropFromChunkCacheOutside(int centerX, int centerZ, int radius)
+	{
+		chunkCache.removeIf((ent) ->
+				ent.column != null
+						&& (Math.abs(ent.column.columnX - centerX) > radius
+						|| Math.abs(ent.column.columnZ - centerZ) > radius));
+	}
+	
 	private static class ChunkCacheEntry
 	{
 		final ChunkColumn column;
@@ -0,0 +1,296 @@
+package ddb.io.voxelnet.world;
+
+import ddb.io.voxelnet.serial.SeDataTypes;
+import ddb.io.voxelnet.serial.SeMapper;
+import ddb.io.voxelnet.serial.SeRecord;
+import ddb.io.voxelnet.serial.SeUtil;
+import ddb.io.voxelnet.serial.SeValue;
+import io.netty.buffer.ByteBuf;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Mapper for 'Chunk's, generated by 'SeMapperGenerator'
+ * Don't edit this directly, regenerate it after changing the fields
+ *
+ * Fields:
+ * 0: chunkX (int, final)
+ * 1: chunkY (int, final)
+ * 2: chunkZ (int, final)
+ * 3: lightData (byte[], final)
+ * 4: blockData (byte[], final)
+ * 5: blockMeta (byte[], final)
+ */
+public final class ChunkSeMapper implements SeMapper<Chunk>
+{
+	public static final ChunkSeMapper INSTANCE = new ChunkSeMapper();
+	
+	private static final int FIELD_COUNT = 6;
+	// Size of the field count, and of all of the fields with a fixed size
+	private static final int FIXED_SIZE = Integer.BYTES
+			+ SeUtil.getFieldSize(0, Integer.BYTES)
+			+ SeUtil.getFieldSize(1, Integer.BYTES)
+			+ SeUtil.getFieldSize(2, Integer.BYTES);
+	
+	private ChunkSeMapper() {}
+	
+	@Override
+	public void writeTo(Chunk value, DataOutputStream output) throws IOException
+	{
+		output.writeInt(FIELD_COUNT);
+		
+		// chunkX
+		SeUtil.writeFieldHeader(0, Integer.BYTES, SeDataTypes.INT, output);
+		output.writeInt(value.chunkX);
+		
+		// chunkY
+		SeUtil.writeFieldHeader(1, Integer.BYTES, SeDataTypes.INT, output);
+		output.writeInt(value.chunkY);
+		
+		// chunkZ
+		SeUtil.writeFieldHeader(2, Integer.BYTES, SeDataTypes.INT, output);
+		output.writeInt(value.chunkZ);
+		
+		// lightData
+		if (value.lightData == null)
+		{
+			SeUtil.writeFieldHeader(3, 0, SeDataTypes.EMPTY, output);
+		}
+		else
+		{
+			SeUtil.writeFieldHeader(3, Integer.BYTES + value.lightData.length * Byte.BYTES, SeDataTypes.BYTE_ARRAY, output);
+			output.writeInt(value.lightData.length);
+			output.write(value.lightData);
+		}
+		
+		// blockData
+		if (value.blockData == null)
+		{
+			SeUtil.writeFieldHeader(4, 0, SeDataTypes.EMPTY, output);
+		}
+		else
+		{
+			SeUtil.writeFieldHeader(4, Integer.BYTES + value.blockData.length * Byte.BYTES, SeDataTypes.BYTE_ARRAY, output);
+			output.writeInt(value.blockData.length);
+			output.write(value.blockData);
+		}
+		
+		// blockMeta
+		if (value.blockMeta == null)
+		{
+			SeUtil.writeFieldHeader(5, 0, SeDataTypes.EMPTY, output);
+		}
+		else
+		{
+			SeUtil.writeFieldHeader(5, Integer.BYTES + value.blockMeta.length * Byte.BYTES, SeDataTypes.BYTE_ARRAY, output);
+			output.writeInt(value.blockMeta.length);
+			output.write(value.blockMeta);
+		}
+	}
+	
+	@Override
+	public void readFrom(Chunk value, DataInputStream input) throws IOException
+	{
+		int fieldCount = input.readInt();
+		
+		for (int i = 0; i < fieldCount; i++)
+		{
+			int id = SeUtil.readVarInt(input);
+			int skip = SeUtil.readVarInt(input);
+			int tag = Byte.toUnsignedInt(input.readByte());
+			
+			switch (id)
+			{
+				case 3: // lightData
+					if (tag != SeDataTypes.BYTE_ARRAY.ordinal())
+						break;
+					
+					if (SeUtil.readArrayLength(skip, Byte.BYTES, input) != value.lightData.length)
+						throw new IOException("Mismatched length for lightData");
+					
+					input.readFully(value.lightData);
+					continue;
+				case 4: // blockData
+					if (tag != SeDataTypes.BYTE_ARRAY.ordinal())
+						break;
+					
+					if (SeUtil.readArrayLength(skip, Byte.BYTES, input) != value.blockData.length)
+						throw new IOException("Mismatched length for blockData");
+					
+					input.readFully(value.blockData);
+					continue;
+				case 5: // blockMeta
+					if (tag != SeDataTypes.BYTE_ARRAY.ordinal())
+						break;
+					
+					if (SeUtil.readArrayLength(skip, Byte.BYTES, input) != value.blockMeta.length)
+						throw new IOException("Mismatched length for blockMeta");
+					
+					input.readFully(value.blockMeta);
+					continue;
+				default:
+					break;
+			}
+			
+			// Skip over unknown fields, and ones with a different type
+			SeUtil.skipFully(input, skip - 1);
+		}
+		
+		value.onFieldsRead();
+	}
+	
+	@Override
+	public void writeTo(Chunk value, ByteBuf output)
+	{
+		output.writeInt(FIELD_COUNT);
+		
+		// chunkX
+		SeUtil.writeFieldHeader(0, Integer.BYTES, SeDataTypes.INT, output);
+		output.writeInt(value.chunkX);
+		
+		// chunkY
+		SeUtil.writeFieldHeader(1, Integer.BYTES, SeDataTypes.INT, output);
+		output.writeInt(value.chunkY);
+		
+		// chunkZ
+		SeUtil.writeFieldHeader(2, Integer.BYTES, SeDataTypes.INT, output);
+		output.writeInt(value.chunkZ);
+		
+		// lightData
+		if (value.lightData == null)
+		{
+			SeUtil.writeFieldHeader(3, 0, SeDataTypes.EMPTY, output);
+		}
+		else
+		{
+			SeUtil.writeFieldHeader(3, Integer.BYTES + value.lightData.length * Byte.BYTES, SeDataTypes.BYTE_ARRAY, output);
+			output.writeInt(value.lightData.length);
+			output.writeBytes(value.lightData);
+		}
+		
+		// blockData
+		if (value.blockData == null)
+		{
+			SeUtil.writeFieldHeader(4, 0, SeDataTypes.EMPTY, output);
+		}
+		else
+		{
+			SeUtil.writeFieldHeader(4, Integer.BYTES + value.blockData.length * Byte.BYTES, SeDataTypes.BYTE_ARRAY, output);
+			output.writeInt(value.blockData.length);
+			output.writeBytes(value.blockData);
+		}
+		
+		// blockMeta
+		if (value.blockMeta == null)
+		{
+			SeUtil.writeFieldHeader(5, 0, SeDataTypes.EMPTY, output);
+		}
+		else
+		{
+			SeUtil.writeFieldHeader(5, Integer.BYTES + value.blockMeta.length * Byte.BYTES, SeDataTypes.BYTE_ARRAY, output);
+			output.writeInt(value.blockMeta.length);
+			output.writeBytes(value.blockMeta);
+		}
+	}
+	
+	@Override
+	public void readFrom(Chunk value, ByteBuf input) throws IOException
+	{
+		int fieldCount = input.readInt();
+		
+		for (int i = 0; i < fieldCount; i++)
+		{
+			int id = SeUtil.readVarInt(input);
+			int skip = SeUtil.readVarInt(input);
+			int tag = input.readUnsignedByte();
+			
+			switch (id)
+			{
+				case 3: // lightData
+					if (tag != SeDataTypes.BYTE_ARRAY.ordinal())
+						break;
+					
+					if (SeUtil.readArrayLength(skip, Byte.BYTES, input) != value.lightData.length)
+						throw new IOException("Mismatched length for lightData");
+					
+					input.readBytes(value.lightData);
+					continue;
+				case 4: // blockData
+					if (tag != SeDataTypes.BYTE_ARRAY.ordinal())
+						break;
+					
+					if (SeUtil.readArrayLength(skip, Byte.BYTES, input) != value.blockData.length)
+						throw new IOException("Mismatched length for blockData");
+					
+					input.readBytes(value.blockData);
+					continue;
+				case 5: // blockMeta
+					if (tag != SeDataTypes.BYTE_ARRAY.ordinal())
+						break;
+					
+					if (SeUtil.readArrayLength(skip, Byte.BYTES, input) != value.blockMeta.length)
+						throw new IOException("Mismatched length for blockMeta");
+					
+					input.readBytes(value.blockMeta);
+					continue;
+				default:
+					break;
+			}
+			
+			// Skip over unknown fields, and ones with a different type
+			input.skipBytes(skip - 1);
+		}
+		
+		value.onFieldsRead();
+	}
+	
+	@Override
+	public void readFrom(Chunk value, SeRecord record) throws IOException
+	{
+		SeValue field;
+		
+		// lightData
+		field = record.getValue(3);
+		if (field.getSerializeType() == SeDataTypes.BYTE_ARRAY)
+		{
+			if (field.asByteArray().length != value.lightData.length)
+				throw new IOException("Mismatched length for lightData");
+			
+			System.arraycopy(field.asByteArray(), 0, value.lightData, 0, value.lightData.length);
+		}
+		
+		// blockData
+		field = record.getValue(4);
+		if (field.getSerializeType() == SeDataTypes.BYTE_ARRAY)
+		{
+			if (field.asByteArray().length != value.blockData.length)
+				throw new IOException("Mismatched length for blockData");
+			
+			System.arraycopy(field.asByteArray(), 0, value.blockData, 0, value.blockData.length);
+		}
+		
+		// blockMeta
+		field = record.getValue(5);
+		if (field.getSerializeType() == SeDataTypes.BYTE_ARRAY)
+		{
+			if (field.asByteArray().length != value.blockMeta.length)
+				throw new IOException("Mismatched length for blockMeta");
+			
+			System.arraycopy(field.asByteArray(), 0, value.blockMeta, 0, value.blockMeta.length);
+		}
+		
+		value.onFieldsRead();
+	}
+	
+	@Override
+	public int getComputedSize(Chunk value)
+	{
+		int size = FIXED_SIZE;
+		size += value.lightData == null ? SeUtil.getFieldSize(3, 0) : SeUtil.getFieldSize(3, Integer.BYTES + value.lightData.length * Byte.BYTES);
+		size += value.blockData == null ? SeUtil.getFieldSize(4, 0) : SeUtil.getFieldSize(4, Integer.BYTES + value.blockData.length * Byte.BYTES);
+		size += value.blockMeta == null ? SeUtil.getFieldSize(5, 0) : SeUtil.getFieldSize(5, Integer.BYTES + value.blockMeta.length * Byte.BYTES);
+		return size;
+	}
+}
@@ -4,9 +4,12 @@ import ddb.io.voxelnet.Game;
 import ddb.io.voxelnet.client.ClientNetworkManager;
 import ddb.io.voxelnet.network.packet.PCLoadChunkColumn;
 import ddb.io.voxelnet.network.packet.PSChunkData;
+import ddb.io.voxelnet.network.packet.PSChunkSection;
 import ddb.io.voxelnet.util.Vec3i;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -17,6 +20,8 @@ public class ClientChunkManager extends ChunkManager
 	private final Set<Vec3i> pendingColumnLoads = new HashSet<>();
 	// Positions which have placeholders chunks (Not thread safe as well!)
 	private final Set<Vec3i> placeholderChunks = new HashSet<>();
+	// Number of chunk sections still to come for each column being received (also not thread safe)
+	private final Map<Vec3i, Integer> incomingSections = new HashMap<>();
 	
 	// CChunkQuery
 	// int chunkX, chunkY, chunkZ
@@ -110,32 +115,82 @@ public class ClientChunkManager extends ChunkManager
 		return column;
 	}
 	
+	/**
+	 * Handles changes to a column that isn't loaded in
+	 * Columns with data in flight will already have the changes, but cached
+	 * columns would miss them, so the column is fetched again on the next load
+	 * @param columnX The x position of the changed column
+	 * @param columnZ The z position of the changed column
+	 */
+	public void invalidateColumn(int columnX, int columnZ)
+	{
+		if (pendingColumnLoads.contains(new Vec3i(columnX, 0, columnZ)))
+			return;
+		
+		dropFromChunkCache(columnX, columnZ);
+	}
+	
 	/**
 	 * Processes a chunk data packet
+	 * The column's chunks follow in chunk section packets
 	 * @param chunkData The chunk data packet to process
 	 */
 	public void processNetLoad(PSChunkData chunkData)
 	{
-		// TODO: Deal with existing chunk data
-		chunkData.setWorld(this.world);
-		
 		// Load the column
 		Vec3i columnPos = new Vec3i(chunkData.chunkX, 0, chunkData.chunkZ);
-		ChunkColumn column = chunkData.column;
-		chunkColumns.put(columnPos, column);
+		chunkColumns.put(columnPos, chunkData.column);
 		
-		// Load the rest of the chunk data
-		for (Chunk chunk : chunkData.chunkList)
+		// Any cached copy is now out of date
+		dropFromChunkCache(chunkData.chunkX, chunkData.chunkZ);
+		
+		if (chunkData.chunkCount > 0)
+			incomingSections.put(columnPos, chunkData.chunkCount);
+		else
+			finishNetLoad(columnPos);
+	}
+	
+	/**
+	 * Processes a chunk section packet, loading in the chunk right away
+	 * @param section The chunk section packet to process
+	 */
+	public void processNetSection(PSChunkSection section)
+	{
+		section.setWorld(this.world);
+		
+		Chunk chunk = section.chunk;
+		Vec3i chunkPos = new Vec3i(chunk.chunkX, chunk.chunkY, chunk.chunkZ);
+		Chunk oldChunk = loadedChunks.put(chunkPos, chunk);
+		
+		// Columns can be sent again, so get rid of the model of the old chunk
+		if (oldChunk != null && oldChunk != chunk)
+			oldChunk.markUnloaded();
+		placeholderChunks.remove(chunkPos);
+		
+		// Rebuild the fields
+		chunk.chunkField.rebuildField();
+		chunk.chunkField.rebuildNeighborFields();
+		
+		// Check if that was the last chunk of the column
+		Vec3i columnPos = new Vec3i(chunk.chunkX, 0, chunk.chunkZ);
+		Integer remaining = incomingSections.get(columnPos);
+		
+		if (remaining == null)
+			return;
+		
+		if (remaining > 1)
 		{
-			Vec3i chunkPos = new Vec3i(chunk.chunkX, chunk.chunkY, chunk.chunkZ);
-			loadedChunks.put(chunkPos, chunk);
-			placeholderChunks.remove(chunkPos);
-			
-			// Rebuild the fields
-			chunk.chunkField.rebuildField();
-			chunk.chunkField.rebuildNeighborFields();
+			incomingSections.put(columnPos, remaining - 1);
+			return;
 		}
 		
+		incomingSections.remove(columnPos);
+		finishNetLoad(columnPos);
+	}
+	
+	// Finishes loading a column once all of its chunks are in
+	private void finishNetLoad(Vec3i columnPos)
+	{
 		// Column is now loaded
 		pendingColumnLoads.remove(columnPos);
 		
@@ -0,0 +1,287 @@
+package ddb.io.voxelnet.world;
+
+import ddb.io.voxelnet.util.Vec3i;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Schedules the column reads from the world save onto a dedicated thread
+ *
+ * Requests for the same column are merged together, and requests that fall
+ * into the same region are read in as a single batch, in file order. Reads
+ * closest to a player are done first, with read-ahead requests always going
+ * after the columns that are actually needed.
+ *
+ * Finished reads are handed back to the main thread through {@link #pollCompleted()}
+ */
+public class ColumnIOScheduler
+{
+	// Most requests that are read in together in one batch
+	private static final int MAX_BATCH_SIZE = 16;
+	// Added onto the priority of read-ahead requests, so they go after everything else
+	private static final long READ_AHEAD_PENALTY = 1L << 32;
+	
+	private final WorldSave worldSave;
+	private final Thread readThread;
+	
+	// Queued requests, mapped to whether they are read-ahead requests
+	// Guarded by the scheduler
+	private final Map<Vec3i, Boolean> queuedReads = new LinkedHashMap<>();
+	// Column positions of the players, for ordering the requests
+	private List<Vec3i> focusPoints = Collections.emptyList();
+	private boolean isRunning = true;
+	
+	// Reads that are waiting to be added to the world
+	private final Queue<ColumnRead> completedReads = new ConcurrentLinkedQueue<>();
+	
+	/**
+	 * Creates a new scheduler, and starts up the read thread
+	 * @param worldSave The world save to read the columns from
+	 */
+	public ColumnIOScheduler(WorldSave worldSave)
+	{
+		this.worldSave = worldSave;
+		this.readThread = new Thread(this::readLoop, "World-Read");
+		this.readThread.setDaemon(true);
+		this.readThread.start();
+	}
+	
+	/**
+	 * Queues up a column to be read in
+	 * If the column has already been requested, the two requests are merged
+	 * @param columnX The x position of the column
+	 * @param columnZ The z position of the column
+	 * @param isReadAhead True if the column isn't needed yet
+	 */
+	public synchronized void requestRead(int columnX, int columnZ, boolean isReadAhead)
+	{
+		Vec3i pos = new Vec3i(columnX, 0, columnZ);
+		Boolean queuedReadAhead = queuedReads.get(pos);
+		
+		// An actual request takes over from a read-ahead one
+		if (queuedReadAhead == null || (queuedReadAhead && !isReadAhead))
+			queuedReads.put(pos, isReadAhead);
+		
+		notifyAll();
+	}
+	
+	/**
+	 * Removes a column from the queue, if it hasn't been read yet
+	 * Columns that have already been read will still show up as completed
+	 * @param pos The position of the column
+	 */
+	public synchronized void cancelRead(Vec3i pos)
+	{
+		queuedReads.remove(pos);
+	}
+	
+	/**
+	 * Checks if the given column is waiting to be read
+	 * @param pos The position of the column
+	 * @return True if the column is in the queue
+	 */
+	public synchronized boolean isQueued(Vec3i pos)
+	{
+		return queuedReads.containsKey(pos);
+	}
+	
+	/**
+	 * Sets the points that the reads are prioritized around
+	 * @param points The column positions of the players
+	 */
+	public synchronized void setFocusPoints(List<Vec3i> points)
+	{
+		focusPoints = new ArrayList<>(points);
+	}
+	
+	/**
+	 * Gets the next finished read
+	 * @return The finished read, or null if there are none
+	 */
+	public ColumnRead pollCompleted()
+	{
+		return completedReads.poll();
+	}
+	
+	/**
+	 * Stops the read thread, dropping any queued requests
+	 */
+	public void shutdown()
+	{
+		synchronized (this)
+		{
+			isRunning = false;
+			queuedReads.clear();
+			notifyAll();
+		}
+		
+		try
+		{
+			readThread.join();
+		} catch (InterruptedException e)
+		{
+			e.printStackTrace();
+		}
+	}
+	
+	private void readLoop()
+	{
+		while (true)
+		{
+			List<ColumnRead> batch;
+			
+			synchronized (this)
+			{
+				while (isRunning && queuedReads.isEmpty())
+				{
+					try
+					{
+						wait();
+					} catch (InterruptedException e)
+					{
+						return;
+					}
+				}
+				
+				if (!isRunning)
+					return;
+				
+				batch = takeNextBatch();
+			}
+			
+			// Read in file order, so that the accesses are sequential
+			for (ColumnRead read : batch)
+				read.recordOffset = worldSave.getRecordOffset(read.pos.getX(), read.pos.getZ());
+			batch.sort(Comparator.comparingInt(read -> read.recordOffset));
+			
+			for (ColumnRead read : batch)
+			{
+				try
+				{
+					read.column = worldSave.readColumn(read.pos.getX(), read.pos.getZ());
+				} catch (IOException | BufferUnderflowException e)
+				{
+					System.err.println("Unable to load column (" + read.pos.getX() + ", " + read.pos.getZ() + ")");
+					e.printStackTrace();
+					read.failed = true;
+				}
+				
+				completedReads.add(read);
+			}
+		}
+	}
+	
+	// Takes out the most important request, along with the others in the same region
+	private List<ColumnRead> takeNextBatch()
+	{
+		Vec3i nextPos = null;
+		long nextPriority = Long.MAX_VALUE;
+		
+		for (Map.Entry<Vec3i, Boolean> entry : queuedReads.entrySet())
+		{
+			long priority = getPriority(entry.getKey(), entry.getValue());
+			
+			if (priority < nextPriority)
+			{
+				nextPos = entry.getKey();
+				nextPriority = priority;
+			}
+		}
+		
+		int regionX = Math.floorDiv(nextPos.getX(), RegionFile.REGION_SIZE);
+		int regionZ = Math.floorDiv(nextPos.getZ(), RegionFile.REGION_SIZE);
+		
+		List<ColumnRead> batch = new ArrayList<>();
+		batch.add(new ColumnRead(nextPos, queuedReads.remove(nextPos)));
+		
+		Iterator<Map.Entry<Vec3i, Boolean>> itr = queuedReads.entrySet().iterator();
+		while (itr.hasNext() && batch.size() < MAX_BATCH_SIZE)
+		{
+			Map.Entry<Vec3i, Boolean> entry = itr.next();
+			Vec3i pos = entry.getKey();
+			
+			if (Math.floorDiv(pos.getX(), RegionFile.REGION_SIZE) != regionX
+					|| Math.floorDiv(pos.getZ(), RegionFile.REGION_SIZE) != regionZ)
+				continue;
+			
+			batch.add(new ColumnRead(pos, entry.getValue()));
+			itr.remove();
+		}
+		
+		return batch;
+	}
+	
+	// Lower values are read first
+	private long getPriority(Vec3i pos, boolean isReadAhead)
+	{
+		long closestDist = 0;
+		
+		if (!focusPoints.isEmpty())
+		{
+			closestDist = Long.MAX_VALUE;
+			
+			for (Vec3i point : focusPoints)
+			{
+				long dx = pos.getX() - point.getX();
+				long dz = pos.getZ() - point.getZ();
+				closestDist = Math.min(closestDist, dx * dx + dz * dz);
+			}
+		}
+		
+		return isReadAhead ? closestDist + READ_AHEAD_PENALTY : closestDist;
+	}
+	
+	/**
+	 * A finished column read
+	 */
+	public static class ColumnRead
+	{
+		// Position of the read column
+		public final Vec3i pos;
+		// If the read was only done ahead of time
+		public final boolean isReadAhead;
+		// The column that was read in, or null if it was never saved or the read failed
+		WorldSave.LoadedColumn column = null;
+		// If the column was saved, but couldn't be read in
+		boolean failed = false;
+		// Where the record is in the region file
+		private int recordOffset = 0;
+		
+		private ColumnRead(Vec3i pos, boolean isReadAhead)
+		{
+			this.pos = pos;
+			this.isReadAhead = isReadAhead;
+		}
+		
+		/**
+		 * Checks if the column was found in the world save
+		 * @return True if the column was read in
+		 */
+		public boolean wasFound()
+		{
+			return column != null;
+		}
+		
+		/**
+		 * Checks if the column was saved, but couldn't be read in
+		 * Failed reads aren't the same as columns that were never saved, as
+		 * generating the column would save over the record
+		 * @return True if the read failed
+		 */
+		public boolean hasFailed()
+		{
+			return failed;
+		}
+	}
+	
+}
@@ -0,0 +1,110 @@
+package ddb.io.voxelnet.world;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of a chunk column and its chunks, taken at a single point in time
+ *
+ * Snapshots are cheap to take on the tick thread, and can then be serialized
+ * and written on another thread without touching the live world state
+ */
+public class ColumnSnapshot
+{
+	// Position of the column (in chunk coordinates)
+	public final int columnX, columnZ;
+	// Copy of the opaque column heights
+	private final byte[] opaqueColumns;
+	// Copies of all the non-empty chunks in the column
+	private final List<Section> sections;
+	
+	private ColumnSnapshot(int columnX, int columnZ, byte[] opaqueColumns, List<Section> sections)
+	{
+		this.columnX = columnX;
+		this.columnZ = columnZ;
+		this.opaqueColumns = opaqueColumns;
+		this.sections = Collections.unmodifiableList(sections);
+	}
+	
+	/**
+	 * Captures a snapshot of a column, along with all of its non-empty chunks
+	 * Must be called from the thread that owns the chunk manager
+	 * @param chunkManager The chunk manager holding the column's chunks
+	 * @param column The column to take a snapshot of
+	 * @return The snapshot of the column
+	 */
+	public static ColumnSnapshot capture(ChunkManager chunkManager, ChunkColumn column)
+	{
+		List<Section> sections = new ArrayList<>();
+		
+		for (int y = 0; y < 16; y++)
+		{
+			chunkManager.getChunk(column.columnX, y, column.columnZ)
+					.filter(chunk -> !chunk.isEmpty())
+					.ifPresent(chunk -> sections.add(new Section(chunk)));
+		}
+		
+		return new ColumnSnapshot(column.columnX, column.columnZ, column.getOpaqueColumnData().clone(), sections);
+	}
+	
+	/**
+	 * Gets the opaque column heights
+	 * The returned array must not be modified
+	 * @return The copied opaque column heights
+	 */
+	public byte[] getOpaqueColumnData()
+	{
+		return opaqueColumns;
+	}
+	
+	/**
+	 * Gets the snapshots of all the non-empty chunks in the column
+	 * @return The chunk snapshots, ordered from the bottom up
+	 */
+	public List<Section> getSections()
+	{
+		return sections;
+	}
+	
+	/**
+	 * Immutable copy of a single chunk
+	 * The returned arrays must not be modified
+	 */
+	public static class Section
+	{
+		// Position of the chunk (in chunk coordinates)
+		public final int chunkX, chunkY, chunkZ;
+		public final short blockCount;
+		
+		private final short[] layerData;
+		private final byte[] lightData;
+		private final byte[] blockData;
+		private final byte[] metaData;
+		private final int[] tickables;
+		
+		private Section(Chunk chunk)
+		{
+			this.chunkX = chunk.chunkX;
+			this.chunkY = chunk.chunkY;
+			this.chunkZ = chunk.chunkZ;
+			this.blockCount = chunk.getBlockCount();
+			
+			this.layerData = chunk.getLayerData().clone();
+			this.lightData = chunk.getLightData().clone();
+			this.blockData = chunk.getData().clone();
+			this.metaData = chunk.getMetaData().clone();
+			this.tickables = chunk.tickables.stream().mapToInt(Integer::intValue).toArray();
+		}
+		
+		public short[] getLayerData() { return layerData; }
+		
+		public byte[] getLightData() { return lightData; }
+		
+		public byte[] getData() { return blockData; }
+		
+		public byte[] getMetaData() { return metaData; }
+		
+		public int[] getTickables() { return tickables; }
+	}
+}
@@ -0,0 +1,64 @@
+package ddb.io.voxelnet.world;
+
+/**
+ * Generation stages that a chunk column goes through before it is ready
+ *
+ * A column may only advance into a stage once all of the directly adjacent
+ * columns have reached the stage's neighbor prerequisite
+ */
+public enum ColumnStage
+{
+	// Column has been created, but no generation has been done yet
+	EMPTY     (null),
+	// Surface heights have been sampled from the noise
+	HEIGHTMAP (null),
+	// Base stone & water have been filled in
+	TERRAIN   (null),
+	// Top layers have been replaced by the surface blocks
+	DECORATED (null),
+	// Column heightmap has been built & sky light has been seeded
+	// Neighbors must have their blocks down so that edge lighting is correct
+	LIT       (DECORATED),
+	// Column is complete, and can be sent or meshed
+	// Neighbors must be lit so that light can propagate in from the edges
+	READY     (LIT);
+	
+	private final ColumnStage neighborPrerequisite;
+	
+	ColumnStage(ColumnStage neighborPrerequisite)
+	{
+		this.neighborPrerequisite = neighborPrerequisite;
+	}
+	
+	/**
+	 * Gets the stage that the adjacent columns must be at before a column
+	 * can advance into this stage
+	 * @return The neighbor prerequisite stage, or null if there is none
+	 */
+	public ColumnStage getNeighborPrerequisite()
+	{
+		return neighborPrerequisite;
+	}
+	
+	/**
+	 * Checks if this stage is at or after the given stage
+	 * @param other The stage to compare against
+	 * @return True if this stage is at least the other stage
+	 */
+	public boolean isAtLeast(ColumnStage other)
+	{
+		return ordinal() >= other.ordinal();
+	}
+	
+	/**
+	 * Gets the stage directly after this one
+	 * @return The next stage, or READY if this is the last stage
+	 */
+	public ColumnStage next()
+	{
+		if (this == READY)
+			return READY;
+		
+		return values()[ordinal() + 1];
+	}
+}
@@ -0,0 +1,353 @@
+package ddb.io.voxelnet.world;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+/**
+ * A single region file, holding the records of a 32x32 area of chunk columns
+ *
+ * Each record can be read and written independently of the others, without
+ * needing to touch the rest of the file
+ */
+public class RegionFile implements Closeable
+{
+	// Number of columns along each side of a region
+	public static final int REGION_SIZE = 32;
+	// Size of an allocation unit in the file
+	public static final int SECTOR_SIZE = 4096;
+	// Maximum number of sectors that a single record can take up
+	public static final int MAX_RECORD_SECTORS = 0xFF;
+	
+	private static final int ENTRY_COUNT = REGION_SIZE * REGION_SIZE;
+	// Location table + timestamp table
+	private static final int HEADER_SECTORS = 2;
+	// Record length prefix
+	private static final int RECORD_HEADER_SIZE = Integer.BYTES;
+	
+	// File Format:
+	// Header | Sectors
+	// Header: Locations (1 sector) | Timestamps (1 sector)
+	// Locations (int[1024]): sectorOffset (3 bytes) | sectorCount (1 byte), 0 if the record doesn't exist
+	// Timestamps (int[1024]): Time of the last write, in seconds since the epoch
+	// Records: length (int) | data (byte[length])
+	// All entries are indexed by (localX + localZ * 32)
+	
+	private final File path;
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	
+	private final int[] locations = new int[ENTRY_COUNT];
+	private final int[] timestamps = new int[ENTRY_COUNT];
+	// Sectors that are currently in use by the header and records
+	private final BitSet usedSectors = new BitSet();
+	// Read-only view of the file, remapped when a record lies past the end of it
+	private MappedByteBuffer mappedFile = null;
+	
+	/**
+	 * Opens a region file, creating it if it doesn't exist
+	 * @param path The path to the region file
+	 * @throws IOException If the region file can't be opened or read
+	 */
+	public RegionFile(File path) throws IOException
+	{
+		this.path = path;
+		this.file = new RandomAccessFile(path, "rw");
+		this.channel = file.getChannel();
+		
+		if (channel.size() < HEADER_SECTORS * SECTOR_SIZE)
+		{
+			// New or truncated file, write out an empty header
+			ByteBuffer emptyHeader = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE);
+			channel.write(emptyHeader, 0);
+		}
+		
+		// Read in the header tables
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE).order(ByteOrder.BIG_ENDIAN);
+		readFully(header, 0);
+		header.flip();
+		
+		for (int i = 0; i < ENTRY_COUNT; i++)
+			locations[i] = header.getInt();
+		for (int i = 0; i < ENTRY_COUNT; i++)
+			timestamps[i] = header.getInt();
+		
+		// Mark all of the used sectors
+		usedSectors.set(0, HEADER_SECTORS);
+		long fileSectors = (channel.size() + SECTOR_SIZE - 1) / SECTOR_SIZE;
+		
+		for (int i = 0; i < ENTRY_COUNT; i++)
+		{
+			int offset = getSectorOffset(locations[i]);
+			int count = getSectorCount(locations[i]);
+			
+			if (locations[i] == 0)
+				continue;
+			
+			// Drop entries pointing outside of the file
+			if (offset < HEADER_SECTORS || offset + count > fileSectors)
+			{
+				System.err.println("Bad record location in " + path + " at index " + i + ", dropping it");
+				locations[i] = 0;
+				continue;
+			}
+			
+			usedSectors.set(offset, offset + count);
+		}
+	}
+	
+	/**
+	 * Gets the name of the region file holding the given column
+	 * @param columnX The x position of the column
+	 * @param columnZ The z position of the column
+	 * @return The file name of the column's region
+	 */
+	public static String getFileName(int columnX, int columnZ)
+	{
+		int regionX = Math.floorDiv(columnX, REGION_SIZE);
+		int regionZ = Math.floorDiv(columnZ, REGION_SIZE);
+		return "r." + regionX + "." + regionZ + ".vxr";
+	}
+	
+	/**
+	 * Checks if the region has a record for the given column
+	 * @param localX The x position of the column inside of the region
+	 * @param localZ The z position of the column inside of the region
+	 * @return True if the record exists
+	 */
+	public synchronized boolean hasRecord(int localX, int localZ)
+	{
+		return locations[toIndex(localX, localZ)] != 0;
+	}
+	
+	/**
+	 * Gets the time that the given record was last written at
+	 * @param localX The x position of the column inside of the region
+	 * @param localZ The z position of the column inside of the region
+	 * @return The write time in seconds since the epoch, or 0 if the record doesn't exist
+	 */
+	public synchronized int getTimestamp(int localX, int localZ)
+	{
+		return timestamps[toIndex(localX, localZ)];
+	}
+	
+	/**
+	 * Gets the sector that the given record starts at, for ordering reads
+	 * @param localX The x position of the column inside of the region
+	 * @param localZ The z position of the column inside of the region
+	 * @return The record's starting sector, or 0 if the record doesn't exist
+	 */
+	public synchronized int getRecordOffset(int localX, int localZ)
+	{
+		return getSectorOffset(locations[toIndex(localX, localZ)]);
+	}
+	
+	/**
+	 * Reads the record for the given column
+	 * @param localX The x position of the column inside of the region
+	 * @param localZ The z position of the column inside of the region
+	 * @return The record data, or null if the record doesn't exist
+	 * @throws IOException If the record can't be read
+	 */
+	public synchronized byte[] read(int localX, int localZ) throws IOException
+	{
+		int location = locations[toIndex(localX, localZ)];
+		
+		if (location == 0)
+			return null;
+		
+		long position = (long)getSectorOffset(location) * SECTOR_SIZE;
+		int maxLength = getSectorCount(location) * SECTOR_SIZE - RECORD_HEADER_SIZE;
+		
+		ByteBuffer lengthBuf = ByteBuffer.allocate(RECORD_HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+		readFully(lengthBuf, position);
+		lengthBuf.flip();
+		int length = lengthBuf.getInt();
+		
+		if (length < 0 || length > maxLength)
+			throw new IOException("Bad record length " + length + " at (" + localX + ", " + localZ + ") in " + path);
+		
+		ByteBuffer data = ByteBuffer.allocate(length);
+		readFully(data, position + RECORD_HEADER_SIZE);
+		
+		return data.array();
+	}
+	
+	/**
+	 * Reads the record for the given column out of the memory-mapped region file
+	 *
+	 * The record is copied out while the region is locked, as its sectors may
+	 * be handed to another record as soon as the column is rewritten
+	 *
+	 * @param localX The x position of the column inside of the region
+	 * @param localZ The z position of the column inside of the region
+	 * @return A buffer holding the record data, or null if the record doesn't exist
+	 * @throws IOException If the record can't be mapped
+	 */
+	public synchronized ByteBuffer readMapped(int localX, int localZ) throws IOException
+	{
+		int location = locations[toIndex(localX, localZ)];
+		
+		if (location == 0)
+			return null;
+		
+		long position = (long)getSectorOffset(location) * SECTOR_SIZE;
+		long recordEnd = position + (long)getSectorCount(location) * SECTOR_SIZE;
+		int maxLength = getSectorCount(location) * SECTOR_SIZE - RECORD_HEADER_SIZE;
+		
+		// Can't map past 2 GiB, so fall back to reading the record in
+		if (recordEnd > Integer.MAX_VALUE)
+			return ByteBuffer.wrap(read(localX, localZ));
+		
+		// Records written since the last mapping may be past the end of it
+		if (mappedFile == null || mappedFile.capacity() < recordEnd)
+			mappedFile = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		
+		int length = mappedFile.getInt((int)position);
+		
+		if (length < 0 || length > maxLength)
+			throw new IOException("Bad record length " + length + " at (" + localX + ", " + localZ + ") in " + path);
+		
+		ByteBuffer record = mappedFile.duplicate();
+		record.position((int)position + RECORD_HEADER_SIZE);
+		
+		byte[] data = new byte[length];
+		record.get(data);
+		
+		return ByteBuffer.wrap(data);
+	}
+	
+	/**
+	 * Writes the record for the given column
+	 *
+	 * The new record is always written into free sectors before the header is
+	 * updated, so an interrupted write leaves the old record intact
+	 *
+	 * @param localX The x position of the column inside of the region
+	 * @param localZ The z position of the column inside of the region
+	 * @param data The record data to write
+	 * @throws IOException If the record can't be written
+	 */
+	public synchronized void write(int localX, int localZ, byte[] data) throws IOException
+	{
+		int index = toIndex(localX, localZ);
+		int sectorsNeeded = (RECORD_HEADER_SIZE + data.length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+		
+		if (sectorsNeeded > MAX_RECORD_SECTORS)
+			throw new IllegalArgumentException("Record is too large (" + data.length + " bytes)");
+		
+		// Find a free spot for the new record
+		int newOffset = allocateSectors(sectorsNeeded);
+		
+		ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + data.length).order(ByteOrder.BIG_ENDIAN);
+		record.putInt(data.length);
+		record.put(data);
+		record.flip();
+		writeFully(record, (long)newOffset * SECTOR_SIZE);
+		
+		// Pad out the last sector so that the file length stays sector aligned
+		long recordEnd = (long)(newOffset + sectorsNeeded) * SECTOR_SIZE;
+		if (channel.size() < recordEnd)
+			writeFully(ByteBuffer.allocate(1), recordEnd - 1);
+		
+		// Point the header to the new record, then free up the old one
+		int oldLocation = locations[index];
+		setLocation(index, (newOffset << 8) | sectorsNeeded, (int)(System.currentTimeMillis() / 1000L));
+		
+		if (oldLocation != 0)
+			usedSectors.clear(getSectorOffset(oldLocation), getSectorOffset(oldLocation) + getSectorCount(oldLocation));
+	}
+	
+	/**
+	 * Forces all of the written records to the storage device
+	 * @throws IOException If the region file can't be synced
+	 */
+	public synchronized void flush() throws IOException
+	{
+		channel.force(true);
+	}
+	
+	@Override
+	public synchronized void close() throws IOException
+	{
+		mappedFile = null;
+		channel.force(true);
+		file.close();
+	}
+	
+	// Finds & marks a free run of sectors, using the first run that fits
+	private int allocateSectors(int count)
+	{
+		int start = usedSectors.nextClearBit(HEADER_SECTORS);
+		
+		while (true)
+		{
+			int nextUsed = usedSectors.nextSetBit(start);
+			
+			// Either at the end of the file, or the run is big enough
+			if (nextUsed == -1 || nextUsed - start >= count)
+				break;
+			
+			start = usedSectors.nextClearBit(nextUsed);
+		}
+		
+		usedSectors.set(start, start + count);
+		return start;
+	}
+	
+	// Updates a header entry both in memory and in the file
+	private void setLocation(int index, int location, int timestamp) throws IOException
+	{
+		locations[index] = location;
+		timestamps[index] = timestamp;
+		
+		ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.BIG_ENDIAN);
+		entry.putInt(location).flip();
+		writeFully(entry, (long)index * Integer.BYTES);
+		
+		entry.clear();
+		entry.putInt(timestamp).flip();
+		writeFully(entry, SECTOR_SIZE + (long)index * Integer.BYTES);
+	}
+	
+	private void readFully(ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			int read = channel.read(buffer, position);
+			
+			if (read < 0)
+				throw new IOException("Unexpected end of region file " + path);
+			
+			position += read;
+		}
+	}
+	
+	private void writeFully(ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+	
+	private static int toIndex(int localX, int localZ)
+	{
+		return (localX & (REGION_SIZE - 1)) + (localZ & (REGION_SIZE - 1)) * REGION_SIZE;
+	}
+	
+	private static int getSectorOffset(int location)
+	{
+		return location >>> 8;
+	}
+	
+	private static int getSectorCount(int location)
+	{
+		return location & 0xFF;
+	}
+	
+}
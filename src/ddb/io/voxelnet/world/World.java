@@ -49,6 +49,11 @@ public class World
 	private long worldSeed;
 	public final Random worldRandom;
 	
+	// Journal to record block changes into, or null if changes aren't recorded
+	private BlockJournal blockJournal = null;
+	// Listener for the block changes, or null if nothing is listening
+	private BlockChangeListener blockChangeListener = null;
+	
 	public World(boolean isClient)
 	{
 		this.isClient = isClient;
@@ -127,6 +132,24 @@ public class World
 		chunkManager.perlinNoise.seed(worldSeed);
 	}
 	
+	/**
+	 * Sets the journal that block changes are recorded into
+	 * @param blockJournal The journal to record changes into, or null to stop recording
+	 */
+	public void setBlockJournal(BlockJournal blockJournal)
+	{
+		this.blockJournal = blockJournal;
+	}
+	
+	/**
+	 * Sets the listener that is told about every block change
+	 * @param blockChangeListener The listener for the block changes, or null to stop listening
+	 */
+	public void setBlockChangeListener(BlockChangeListener blockChangeListener)
+	{
+		this.blockChangeListener = blockChangeListener;
+	}
+	
 	public long getWorldSeed()
 	{
 		return worldSeed;
@@ -337,6 +360,7 @@ public class World
 	 * Bit 1: When set, updates the adjacent chunks
 	 * Bit 2: When set, updates the adjacent neighbors
 	 * Bit 3: When set, doesn't update the opaque chunk column
+	 * Bit 4: When set, isn't recorded in the block journal
 	 *
 	 * Note: Metadata is currently stored as a nibble (4-bits), so
 	 * encoding more than 16 block states is currently impossible
@@ -355,6 +379,7 @@ public class World
 		boolean updateNeighborChunks = (flags & 2) != 0;
 		boolean updateNeighbors = (flags & 4) != 0;
 		boolean updateColumns   = (flags & 8) == 0;
+		boolean recordChange    = (flags & 16) == 0;
 		
 		// If the light update was the result of the tallest block moving down
 		boolean tallestDown = false;
@@ -391,6 +416,12 @@ public class World
 		chunk.setBlock(blockX, blockY, blockZ, block.getId());
 		chunk.setBlockMeta(blockX, blockY, blockZ, meta);
 		
+		if (recordChange && shouldJournal(x, z))
+			blockJournal.logSetBlock(x, y, z, block, meta, flags);
+		
+		if (blockChangeListener != null)
+			blockChangeListener.onBlockChanged(x, y, z);
+		
 		// Only update the current light value if
 		// - The new block is air
 		// - The new block is not transparent
@@ -409,7 +440,11 @@ public class World
 			
 			// Force load the column (should have been loaded with the chunks!)
 			System.out.println("Warning: Missing column load at " + (x >> 4) + ", " + (z >> 4));
-			chunkColumn = chunkManager.loadColumn(x >> 4, z >> 4);
+			chunkColumn = chunkManager.loadColumnNow(x >> 4, z >> 4);
+			
+			// The saved column can't be read in
+			if (chunkColumn == null)
+				return;
 		} else
 		{
 			chunkColumn = maybeChunkColumn.get();
@@ -582,6 +617,19 @@ public class World
 		
 		// Set the block meta
 		chunk.setBlockMeta(blockX, blockY, blockZ, meta);
+		
+		if (shouldJournal(x, z))
+			blockJournal.logSetMeta(x, y, z, meta);
+		
+		if (blockChangeListener != null)
+			blockChangeListener.onBlockChanged(x, y, z);
+	}
+	
+	// Only ready columns are saved, so changes to the others (e.g. fluids
+	// spreading into the edge of the generated area) aren't journaled either
+	private boolean shouldJournal(int x, int z)
+	{
+		return blockJournal != null && chunkManager.isColumnReady(x >> 4, z >> 4);
 	}
 	
 	/**
@@ -0,0 +1,484 @@
+package ddb.io.voxelnet.world;
+
+import ddb.io.voxelnet.util.Vec3i;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rotating, incremental backups of a world save
+ *
+ * The first backup is a full copy of the world (the base). Every backup after
+ * that only holds the column records that were written in that save (a delta),
+ * so a backup costs as much as the save itself. Once there are more than the
+ * maximum number of generations, the oldest delta is folded into the base.
+ *
+ * Restoring a generation rebuilds the region files from the base and all of
+ * the deltas up to that generation. This can be run from the command line
+ * while the server is stopped.
+ */
+public class WorldBackup
+{
+	// Delta File Format:
+	// magic | generation | saveTime | entryCount | entries
+	// Magic (char[4]): "VXBK" in bytes
+	// generation (long): Number of the backup generation
+	// saveTime (long): Modification time of the world header after the save
+	// Entry: cX (int) | cZ (int) | length (int) | record (byte[length])
+	// Base Info Format:
+	// generation (long) | saveTime (long)
+	private static final byte[] DELTA_MAGIC = "VXBK".getBytes();
+	private static final int DELTA_HEADER_SIZE = 4 + 8 + 8 + 4;
+	private static final int ENTRY_HEADER_SIZE = 4 * 3;
+	
+	private static final String DELTA_PREFIX = "delta-";
+	private static final String DELTA_SUFFIX = ".vxb";
+	
+	// The save being backed up
+	private final File saveFile;
+	private final File regionDir;
+	// Where the backups are kept
+	private final File backupDir;
+	private final File baseDir;
+	// Most number of generations to keep around, including the base
+	private final int maxGenerations;
+	
+	/**
+	 * Creates a new backup set for a world save
+	 * @param saveFile The world header file of the save
+	 * @param maxGenerations The number of backup generations to keep around
+	 */
+	public WorldBackup(File saveFile, int maxGenerations)
+	{
+		if (maxGenerations < 1)
+			throw new IllegalArgumentException("At least one backup generation must be kept");
+		
+		File saveDir = saveFile.getAbsoluteFile().getParentFile();
+		this.saveFile = saveFile.getAbsoluteFile();
+		this.regionDir = new File(saveDir, "region");
+		this.backupDir = new File(saveDir, "backups");
+		this.baseDir = new File(backupDir, "base");
+		this.maxGenerations = maxGenerations;
+	}
+	
+	/**
+	 * Checks if the newest backup matches the save, so that the next save can
+	 * be stored as a delta
+	 * Must be called before the world header is rewritten for the next save
+	 * @return True if no saves have been made since the newest backup
+	 */
+	boolean isInSync()
+	{
+		try
+		{
+			long newest = getNewestGeneration();
+			
+			if (newest < 0)
+				return false;
+			
+			return readSaveTime(newest) == saveFile.lastModified();
+		} catch (IOException e)
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 * Backs up the records written in a save
+	 * Must be called on the I/O thread, after all of the records have been
+	 * written and flushed
+	 * @param records The written column records, keyed by column position
+	 * @param wasInSync If the backups were in sync before the save was made
+	 * @throws IOException If the backup can't be written
+	 */
+	void backup(Map<Vec3i, byte[]> records, boolean wasInSync) throws IOException
+	{
+		long saveTime = saveFile.lastModified();
+		
+		if (!wasInSync)
+		{
+			// Saves have been made without any backups, so the deltas don't
+			// line up with the save anymore
+			if (backupDir.exists())
+				System.out.println("Backups are out of date with the save, starting a new base backup");
+			
+			long generation = getNewestGeneration() + 1;
+			createBase(generation, saveTime);
+			System.out.println("Made base backup #" + generation);
+			return;
+		}
+		
+		// Nothing changed, so the newest generation still matches the save
+		if (records.isEmpty())
+		{
+			updateSaveTime(getNewestGeneration(), saveTime);
+			return;
+		}
+		
+		long generation = getNewestGeneration() + 1;
+		writeDelta(generation, saveTime, records);
+		
+		// Fold the oldest deltas into the base
+		List<Long> deltas = getDeltaGenerations();
+		for (int i = 0; i < deltas.size() - (maxGenerations - 1); i++)
+			mergeIntoBase(deltas.get(i));
+		
+		System.out.println("Made backup #" + generation + " (" + records.size() + " changed columns)");
+	}
+	
+	/**
+	 * Gets all of the generations that can be restored
+	 * @return The generation numbers, oldest first
+	 * @throws IOException If the backup info can't be read
+	 */
+	public List<Long> getGenerations() throws IOException
+	{
+		List<Long> generations = new ArrayList<>();
+		
+		if (!new File(baseDir, "info.dat").exists())
+			return generations;
+		
+		generations.add(readBaseInfo().getLong(0));
+		generations.addAll(getDeltaGenerations());
+		return generations;
+	}
+	
+	/**
+	 * Gets the time of the save that the given generation was backed up from
+	 * @param generation The generation to look at
+	 * @return The save time, in milliseconds since the epoch
+	 * @throws IOException If the generation can't be read
+	 */
+	public long getSaveTime(long generation) throws IOException
+	{
+		return readSaveTime(generation);
+	}
+	
+	/**
+	 * Restores the save to the given generation
+	 *
+	 * The save must not be in use while it is being restored. Generations
+	 * newer than the restored one are dropped, as they no longer follow on
+	 * from the save. The block journal is cleared as well.
+	 *
+	 * @param generation The generation to restore
+	 * @throws IOException If the save can't be restored
+	 */
+	public void restore(long generation) throws IOException
+	{
+		List<Long> generations = getGenerations();
+		
+		if (!generations.contains(generation))
+			throw new IOException("No backup generation #" + generation);
+		
+		File saveDir = saveFile.getParentFile();
+		File restoreDir = new File(saveDir, "region.restore");
+		File oldRegionDir = new File(saveDir, "region.old");
+		
+		// Rebuild the regions off to the side
+		deleteAll(restoreDir);
+		copyRegions(new File(baseDir, "region"), restoreDir);
+		
+		for (long delta : getDeltaGenerations())
+		{
+			if (delta <= generation)
+				applyDelta(delta, restoreDir);
+		}
+		
+		// Swap in the restored regions
+		deleteAll(oldRegionDir);
+		if (regionDir.exists())
+			Files.move(regionDir.toPath(), oldRegionDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		Files.move(restoreDir.toPath(), regionDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		Files.copy(new File(baseDir, "world.dat").toPath(), saveFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		deleteAll(oldRegionDir);
+		
+		// Changes in the journal were made on top of the old save
+		Files.deleteIfExists(new File(saveDir, "journal.vxj").toPath());
+		
+		for (long delta : getDeltaGenerations())
+		{
+			if (delta > generation)
+				Files.delete(getDeltaFile(delta).toPath());
+		}
+		
+		// Keep the restored generation in sync with the save
+		if (!saveFile.setLastModified(readSaveTime(generation)))
+			System.err.println("Unable to update the save time, the next backup will be a full one");
+	}
+	
+	// Copies the whole save into the base backup
+	private void createBase(long generation, long saveTime) throws IOException
+	{
+		File tempDir = new File(backupDir, "base.tmp");
+		deleteAll(tempDir);
+		
+		copyRegions(regionDir, new File(tempDir, "region"));
+		Files.copy(saveFile.toPath(), new File(tempDir, "world.dat").toPath());
+		writeBaseInfo(tempDir, generation, saveTime);
+		
+		// Older generations were made from a different base
+		for (long delta : getDeltaGenerations())
+			Files.delete(getDeltaFile(delta).toPath());
+		
+		deleteAll(baseDir);
+		Files.move(tempDir.toPath(), baseDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	private void writeDelta(long generation, long saveTime, Map<Vec3i, byte[]> records) throws IOException
+	{
+		File deltaFile = getDeltaFile(generation);
+		File tempFile = new File(deltaFile.getPath() + ".tmp");
+		
+		try (FileOutputStream stream = new FileOutputStream(tempFile))
+		{
+			ByteBuffer header = ByteBuffer.allocate(DELTA_HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+			header.put(DELTA_MAGIC);
+			header.putLong(generation);
+			header.putLong(saveTime);
+			header.putInt(records.size());
+			stream.write(header.array());
+			
+			ByteBuffer entryHeader = ByteBuffer.allocate(ENTRY_HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+			for (Map.Entry<Vec3i, byte[]> record : records.entrySet())
+			{
+				entryHeader.clear();
+				entryHeader.putInt(record.getKey().getX());
+				entryHeader.putInt(record.getKey().getZ());
+				entryHeader.putInt(record.getValue().length);
+				stream.write(entryHeader.array());
+				stream.write(record.getValue());
+			}
+			
+			stream.getFD().sync();
+		}
+		
+		Files.move(tempFile.toPath(), deltaFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	// Applies a delta onto the base, then removes it
+	// Merging is safe to repeat, so an interrupted merge is redone on the next backup
+	private void mergeIntoBase(long generation) throws IOException
+	{
+		applyDelta(generation, new File(baseDir, "region"));
+		
+		writeBaseInfo(baseDir, generation, readSaveTime(generation));
+		
+		Files.delete(getDeltaFile(generation).toPath());
+	}
+	
+	// Writes all of a delta's records into the given region directory
+	private void applyDelta(long generation, File targetDir) throws IOException
+	{
+		ByteBuffer delta = ByteBuffer.wrap(Files.readAllBytes(getDeltaFile(generation).toPath())).order(ByteOrder.BIG_ENDIAN);
+		Map<String, RegionFile> regions = new HashMap<>();
+		
+		byte[] magic = new byte[DELTA_MAGIC.length];
+		delta.get(magic);
+		if (!Arrays.equals(magic, DELTA_MAGIC))
+			throw new IOException("Bad backup file " + getDeltaFile(generation));
+		
+		delta.getLong(); // Generation
+		delta.getLong(); // Save time
+		int entryCount = delta.getInt();
+		
+		if (!targetDir.exists() && !targetDir.mkdirs())
+			throw new IOException("Unable to create the region directory " + targetDir);
+		
+		try
+		{
+			for (int i = 0; i < entryCount; i++)
+			{
+				int columnX = delta.getInt();
+				int columnZ = delta.getInt();
+				byte[] record = new byte[delta.getInt()];
+				delta.get(record);
+				
+				String regionName = RegionFile.getFileName(columnX, columnZ);
+				RegionFile region = regions.get(regionName);
+				
+				if (region == null)
+				{
+					region = new RegionFile(new File(targetDir, regionName));
+					regions.put(regionName, region);
+				}
+				
+				region.write(columnX, columnZ, record);
+			}
+		} finally
+		{
+			for (RegionFile region : regions.values())
+				region.close();
+		}
+	}
+	
+	private long getNewestGeneration() throws IOException
+	{
+		List<Long> generations = getGenerations();
+		
+		if (generations.isEmpty())
+			return getDeltaGenerations().stream().mapToLong(Long::longValue).max().orElse(-1);
+		
+		return generations.get(generations.size() - 1);
+	}
+	
+	private long readSaveTime(long generation) throws IOException
+	{
+		ByteBuffer baseInfo = readBaseInfo();
+		if (baseInfo.getLong(0) == generation)
+			return baseInfo.getLong(8);
+		
+		// Only need the header of the delta
+		byte[] header = new byte[DELTA_HEADER_SIZE];
+		try (FileInputStream stream = new FileInputStream(getDeltaFile(generation)))
+		{
+			if (stream.read(header) != DELTA_HEADER_SIZE)
+				throw new IOException("Truncated backup file " + getDeltaFile(generation));
+		}
+		
+		return ByteBuffer.wrap(header).order(ByteOrder.BIG_ENDIAN).getLong(4 + 8);
+	}
+	
+	private void updateSaveTime(long generation, long saveTime) throws IOException
+	{
+		if (readBaseInfo().getLong(0) == generation)
+		{
+			writeBaseInfo(baseDir, generation, saveTime);
+			return;
+		}
+		
+		try (RandomAccessFile file = new RandomAccessFile(getDeltaFile(generation), "rw"))
+		{
+			file.seek(4 + 8);
+			file.writeLong(saveTime);
+			file.getFD().sync();
+		}
+	}
+	
+	private ByteBuffer readBaseInfo() throws IOException
+	{
+		return ByteBuffer.wrap(Files.readAllBytes(new File(baseDir, "info.dat").toPath())).order(ByteOrder.BIG_ENDIAN);
+	}
+	
+	private void writeBaseInfo(File dir, long generation, long saveTime) throws IOException
+	{
+		if (!dir.exists() && !dir.mkdirs())
+			throw new IOException("Unable to create the backup directory " + dir);
+		
+		File tempFile = new File(dir, "info.dat.tmp");
+		try (FileOutputStream stream = new FileOutputStream(tempFile))
+		{
+			ByteBuffer info = ByteBuffer.allocate(8 * 2).order(ByteOrder.BIG_ENDIAN);
+			info.putLong(generation);
+			info.putLong(saveTime);
+			stream.write(info.array());
+			stream.getFD().sync();
+		}
+		
+		Files.move(tempFile.toPath(), new File(dir, "info.dat").toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	private List<Long> getDeltaGenerations()
+	{
+		List<Long> generations = new ArrayList<>();
+		String[] files = backupDir.list();
+		
+		if (files == null)
+			return generations;
+		
+		for (String file : files)
+		{
+			if (!file.startsWith(DELTA_PREFIX) || !file.endsWith(DELTA_SUFFIX))
+				continue;
+			
+			try
+			{
+				generations.add(Long.parseLong(file.substring(DELTA_PREFIX.length(), file.length() - DELTA_SUFFIX.length())));
+			} catch (NumberFormatException e)
+			{
+				System.err.println("Ignoring unknown backup file " + file);
+			}
+		}
+		
+		Collections.sort(generations);
+		return generations;
+	}
+	
+	private File getDeltaFile(long generation)
+	{
+		return new File(backupDir, DELTA_PREFIX + String.format("%08d", generation) + DELTA_SUFFIX);
+	}
+	
+	private static void copyRegions(File fromDir, File toDir) throws IOException
+	{
+		if (!toDir.exists() && !toDir.mkdirs())
+			throw new IOException("Unable to create the region directory " + toDir);
+		
+		File[] regions = fromDir.listFiles();
+		if (regions == null)
+			return;
+		
+		for (File region : regions)
+			Files.copy(region.toPath(), new File(toDir, region.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	private static void deleteAll(File file) throws IOException
+	{
+		File[] children = file.listFiles();
+		if (children != null)
+		{
+			for (File child : children)
+				deleteAll(child);
+		}
+		
+		Files.deleteIfExists(file.toPath());
+	}
+	
+	/**
+	 * Lists or restores the backups of a world save
+	 * Usage: WorldBackup &lt;saveFile&gt; [generation]
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 1)
+		{
+			System.out.println("Usage: WorldBackup <saveFile> [generation]");
+			return;
+		}
+		
+		// Generation count doesn't matter when restoring
+		WorldBackup backup = new WorldBackup(new File(args[0]), 1);
+		List<Long> generations = backup.getGenerations();
+		
+		if (args.length < 2)
+		{
+			if (generations.isEmpty())
+				System.out.println("No backups found for " + args[0]);
+			
+			SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+			for (long generation : generations)
+				System.out.println("#" + generation + "\t" + dateFormat.format(new Date(backup.getSaveTime(generation))));
+			return;
+		}
+		
+		long generation = Long.parseLong(args[1]);
+		System.out.println("Restoring " + args[0] + " to backup #" + generation);
+		backup.restore(generation);
+		System.out.println("Finished restoring");
+	}
+}
@@ -1,16 +1,35 @@
 package ddb.io.voxelnet.world;
 
 import ddb.io.voxelnet.util.Vec3i;
+import ddb.io.voxelnet.world.codec.RawCodec;
+import ddb.io.voxelnet.world.codec.SectionCodec;
+import ddb.io.voxelnet.world.codec.SectionCodecs;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class handling the world saving and loading process
@@ -18,140 +37,561 @@ import java.nio.file.StandardCopyOption;
 public class WorldSave
 {
 	// TODO: Use ChunkManager's chunk list instead of World's loaded chunks
-	private static final int SAVE_VERSION = 1;
+	// 2: Column records in region files
+	// 3: Compressed chunk sections in the column records
+	private static final int SAVE_VERSION = 3;
+	// Last version which stored all of the world data in a single file
+	private static final int LAST_SINGLE_FILE_VERSION = 1;
 	private static final byte[] SAVE_MAGIC = "VXNT".getBytes();
-	private static final int CHUNK_ENTRY_SIZE0 = 4*3 + 2 + 512 + 4096;
+	
+	// Column Record Format (0):
+	// recordFormat | cX | cZ | opaqueColumns | chunkCount | chunks
+	// chunks: Same layout as the V1 chunk entries
+	private static final byte COLUMN_RECORD_FORMAT_RAW = 0;
+	// Column Record Format (1):
+	// recordFormat | codecId | cX | cZ | opaqueColumns | chunkCount | sections
+	// sections: rawLength (int) | encodedLength (int) | V1 chunk entry, encoded with the codec
+	private static final byte COLUMN_RECORD_FORMAT = 1;
+	// Radius of columns to load in around the spawn point
+	private static final int SPAWN_RADIUS = 4;
 	
 	// Save Format:
 	// cX | cY | cZ | blockCount | blockLayers | blockLighting | blockData | blockMeta  ~ tickablesCount | tickables
 	private static final int CHUNK_FIXED_ENTRY_SIZE_V1 = Chunk.FIXED_SIZE;
 	private static final int COLUMN_ENTRY_SIZE = 4 * 2 + 256;
+	// Largest possible size of a V1 chunk entry
+	private static final int MAX_CHUNK_ENTRY_SIZE = CHUNK_FIXED_ENTRY_SIZE_V1 + Chunk.BLOCK_DATA_SIZE * Chunk.TICKPOS_BYTES;
 	
 	// The world to save / load
 	private final World world;
-	// The file to save / load the world in
+	// The file to save / load the world info in
 	private final String saveFile;
+	// The directory holding all of the region files
+	private final File regionDir;
+	// Currently open region files
+	private final Map<Long, RegionFile> openRegions = new HashMap<>();
+	
+	// Thread that all of the save serialization & writing happens on
+	private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor((task) -> {
+		Thread thread = new Thread(task, "World-IO");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// Pool that column records are encoded & decoded on
+	// The records themselves are still read & written in order on a single thread
+	private final ForkJoinPool codecPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+	// Columns that failed to be written, and need to be saved again
+	private final Queue<Vec3i> failedColumns = new ConcurrentLinkedQueue<>();
+	// Journal of the block changes made since the last save
+	private final BlockJournal journal;
+	// Scheduler for reading in columns in the background
+	private final ColumnIOScheduler ioScheduler;
+	// Codec to compress the chunk sections with
+	private volatile SectionCodec codec = SectionCodecs.DEFLATE;
+	// Backups to add each save to, or null for none
+	private volatile WorldBackup backup = null;
 	
 	public WorldSave(World world, String saveFile)
 	{
 		this.world = world;
 		this.saveFile = saveFile;
+		
+		File parentDir = new File(saveFile).getAbsoluteFile().getParentFile();
+		this.regionDir = new File(parentDir, "region");
+		this.journal = new BlockJournal(new File(parentDir, "journal.vxj"), ioExecutor);
+		this.ioScheduler = new ColumnIOScheduler(this);
+	}
+	
+	/**
+	 * Gets the scheduler that columns are read in the background with
+	 * @return The world's column I/O scheduler
+	 */
+	public ColumnIOScheduler getIOScheduler()
+	{
+		return ioScheduler;
+	}
+	
+	/**
+	 * Sets the codec that the chunk sections are compressed with
+	 * Records that were already saved keep their old codec until they are rewritten
+	 * @param codec The codec to use for new records
+	 */
+	public void setCodec(SectionCodec codec)
+	{
+		this.codec = codec;
 	}
 	
 	/**
-	 * Triggers a world save
+	 * Sets the backups that each save is added to
+	 * @param backup The world backups, or null to not make any backups
+	 */
+	public void setBackup(WorldBackup backup)
+	{
+		this.backup = backup;
+	}
+	
+	/**
+	 * Gets the journal that block changes should be recorded into
+	 * @return The world's block journal
+	 */
+	public BlockJournal getJournal()
+	{
+		return journal;
+	}
+	
+	/**
+	 * Triggers a world save, and waits for it to finish
 	 */
 	public void save()
 	{
-		if (canLoad())
+		try
+		{
+			saveAsync().get();
+		} catch (InterruptedException | ExecutionException e)
+		{
+			System.err.println("Failed to wait for the world save to finish");
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Triggers a world save in the background
+	 *
+	 * Snapshots of all the changed columns are taken on the calling thread,
+	 * and the snapshots are then serialized & written out on the I/O thread.
+	 * Must be called from the thread that owns the chunk manager.
+	 *
+	 * @return A future which completes once the save has been written
+	 */
+	public Future<?> saveAsync()
+	{
+		System.out.println("Saving world to " + saveFile);
+		ChunkManager chunkManager = world.chunkManager;
+		
+		// Changes made up to now get written to the journal before the save,
+		// and are cleared out with the rest of the journal once the save is done
+		journal.commit();
+		
+		// Columns from failed saves need to be written again
+		Vec3i failedPos;
+		while ((failedPos = failedColumns.poll()) != null)
+			chunkManager.getColumn(failedPos).ifPresent(ChunkColumn::makeDirty);
+		
+		// Iterate through all of the ChunkColumns
+		List<ColumnSnapshot> snapshots = new ArrayList<>();
+		for (ChunkColumn column : chunkManager.chunkColumns.values())
+		{
+			// Partially generated columns are regenerated on the next load
+			if (!column.isReady())
+				continue;
+			
+			// Only columns that have changed since the last save need to be written
+			if (!isColumnDirty(column))
+				continue;
+			
+			snapshots.add(ColumnSnapshot.capture(chunkManager, column));
+			
+			// Later changes will go into the next save
+			column.makeClean();
+			for (int y = 0; y < 16; y++)
+				chunkManager.getChunk(column.columnX, y, column.columnZ).ifPresent(Chunk::makeClean);
+		}
+		
+		// Changes to columns that couldn't be read in are only in the journal
+		boolean canClearJournal = !chunkManager.hasUnreadableColumns();
+		
+		long worldSeed = world.getWorldSeed();
+		return ioExecutor.submit(() -> writeSnapshots(worldSeed, snapshots, canClearJournal));
+	}
+	
+	// Writes out the header & the column snapshots (on the I/O thread)
+	private void writeSnapshots(long worldSeed, List<ColumnSnapshot> snapshots, boolean canClearJournal)
+	{
+		int savedBytes = 0;
+		// The journal can only be cleared if everything made it to disk
+		boolean savedEverything = canClearJournal;
+		
+		// Backups need to be checked before the header changes
+		WorldBackup backup = this.backup;
+		boolean backupInSync = backup != null && backup.isInSync();
+		Map<Vec3i, byte[]> writtenRecords = new LinkedHashMap<>();
+		
+		try
+		{
+			writeHeader(worldSeed);
+		} catch (IOException e)
+		{
+			System.err.println("Unable to write the world header");
+			e.printStackTrace();
+			savedEverything = false;
+		}
+		
+		// Encode all of the records in parallel...
+		List<Future<byte[]>> records = new ArrayList<>(snapshots.size());
+		for (ColumnSnapshot snapshot : snapshots)
+			records.add(codecPool.submit(() -> serializeColumnRecord(snapshot)));
+		
+		// ...but write them out in order as they finish
+		for (int i = 0; i < snapshots.size(); i++)
+		{
+			ColumnSnapshot snapshot = snapshots.get(i);
+			
+			try
+			{
+				byte[] record = records.get(i).get();
+				savedBytes += writeRecord(snapshot.columnX, snapshot.columnZ, record);
+				
+				if (backup != null)
+					writtenRecords.put(new Vec3i(snapshot.columnX, 0, snapshot.columnZ), record);
+			} catch (IOException | IllegalArgumentException | InterruptedException | ExecutionException e)
+			{
+				System.err.println("Unable to save column (" + snapshot.columnX + ", " + snapshot.columnZ + ")");
+				e.printStackTrace();
+				failedColumns.add(new Vec3i(snapshot.columnX, 0, snapshot.columnZ));
+				savedEverything = false;
+			}
+		}
+		
+		try
+		{
+			flushRegions();
+			
+			if (savedEverything)
+				journal.truncate();
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+		
+		System.out.println("Saved " + snapshots.size() + " changed columns (" + (savedBytes / 1024) + " KiB)");
+		
+		if (backup != null)
 		{
-			// Backup the old world if it can be loaded
-			System.out.println("Backing up " + saveFile);
 			try
 			{
-				Files.copy(Paths.get(saveFile), Paths.get(saveFile + ".bak"), StandardCopyOption.REPLACE_EXISTING);
+				backup.backup(writtenRecords, backupInSync);
 			} catch (IOException e)
 			{
-				System.err.println("Unable to backup old world! Overwriting without a backup copy");
+				System.err.println("Unable to back up the world");
 				e.printStackTrace();
 			}
 		}
 		
-		System.out.println("Saving world to " + saveFile);
-		try (FileOutputStream stream = new FileOutputStream(saveFile))
+		System.out.println("Finished saving world");
+	}
+	
+	/**
+	 * Writes out the world info header
+	 * The header is written to a temporary file first, then moved over the
+	 * old header so that it is never left half-written
+	 * @param worldSeed The seed of the world
+	 * @throws IOException If the header can't be written
+	 */
+	private void writeHeader(long worldSeed) throws IOException
+	{
+		File saveDir = regionDir.getParentFile();
+		if (!saveDir.exists() && !saveDir.mkdirs())
+			throw new IOException("Unable to create the save directory " + saveDir);
+		
+		String tempFile = saveFile + ".tmp";
+		try (FileOutputStream stream = new FileOutputStream(tempFile))
 		{
 			// All data is saved as big endian (because network order)
-			// Format:
-			// Header | ColumnCount | ColumnData | ChunkCount | ChunkData
-			// Header: Defines metainfo on the file
-			// ColumnCount (int): Number of column save entries
-			// ColumnData: Variable length array holding the column data
-			// ChunkCount (int): Number of chunk save entries
-			// ChunkData: Variable length array holding the chunk data
-			
 			// Header:
 			// magic | saveVersion | worldSeed
 			// Magic (char[4]): "VXNT" in bytes
 			// saveVersion (int): Save version (initially 0)
 			// worldSeed (long): Seed used in world generation
 			
-			stream.write(SAVE_MAGIC);                          // Magic
-			stream.write(serializeInt(SAVE_VERSION));               // Save Version
-			stream.write(serializeLong(world.getWorldSeed())); // Seed
-			
-			///////////////////////////////////////////////////////////////////
-			// Write out the column entry count
-			int columnEntries = world.chunkManager.chunkColumns.size();
-			stream.write(serializeInt(columnEntries)); // Column Entry Count
+			// Column & chunk data is stored in the region files
+			stream.write(SAVE_MAGIC);                 // Magic
+			stream.write(serializeInt(SAVE_VERSION)); // Save Version
+			stream.write(serializeLong(worldSeed));   // Seed
+			stream.getFD().sync();
+		}
+		
+		Files.move(Paths.get(tempFile), Paths.get(saveFile), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/**
+	 * Saves a single column right away, along with all of the chunks inside of it
+	 * The column & its chunks are made clean once written
+	 * @param column The column to save
+	 * @return The size of the written column record
+	 * @throws IOException If the column can't be written
+	 */
+	public int saveColumn(ChunkColumn column) throws IOException
+	{
+		ColumnSnapshot snapshot = ColumnSnapshot.capture(world.chunkManager, column);
+		int recordSize = writeRecord(column.columnX, column.columnZ, serializeColumnRecord(snapshot));
+		
+		// Everything in the column is now on disk
+		column.makeClean();
+		for (int y = 0; y < 16; y++)
+			world.chunkManager.getChunk(column.columnX, y, column.columnZ).ifPresent(Chunk::makeClean);
+		
+		return recordSize;
+	}
+	
+	// Writes out a column record into its region
+	private int writeRecord(int columnX, int columnZ, byte[] record) throws IOException
+	{
+		RegionFile region = getRegion(columnX, columnZ, true);
+		region.write(columnX, columnZ, record);
+		
+		return record.length;
+	}
+	
+	/**
+	 * Checks if the column or any of the chunks inside of it have changed
+	 * since the last save
+	 * @param column The column to check
+	 * @return True if the column needs to be saved
+	 */
+	private boolean isColumnDirty(ChunkColumn column)
+	{
+		if (column.isDirty())
+			return true;
+		
+		for (int y = 0; y < 16; y++)
+		{
+			Chunk chunk = world.chunkManager.loadedChunks.get(new Vec3i(column.columnX, y, column.columnZ));
 			
-			// Iterate through all of the ChunkColumns
-			for (ChunkColumn column : world.chunkManager.chunkColumns.values())
+			if (chunk != null && chunk.isDirty())
+				return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Tries to load the given column from the region files
+	 * If found, the column & its chunks are added to the chunk manager
+	 * @param columnX The x position of the column to load
+	 * @param columnZ The z position of the column to load
+	 * @return True if the column was loaded, or false if it was never saved
+	 * @throws IOException If the column was saved, but its record can't be read
+	 */
+	public boolean loadColumn(int columnX, int columnZ) throws IOException
+	{
+		ByteBuffer record = mapRecord(columnX, columnZ);
+		
+		if (record == null)
+			return false;
+		
+		publishColumns(Collections.singletonList(deserializeColumnRecord(record)));
+		return true;
+	}
+	
+	/**
+	 * Loads a group of columns from the region files at once
+	 * The records are decoded in parallel, and all of the loaded columns are
+	 * added to the chunk manager together at the end
+	 * @param positions The positions of the columns to load
+	 * @return The number of columns that were loaded
+	 */
+	public int loadColumns(List<Vec3i> positions)
+	{
+		List<Vec3i> foundPositions = new ArrayList<>();
+		List<Future<LoadedColumn>> decodes = new ArrayList<>();
+		
+		// Copying the records out is cheap, so it's done in order on this thread
+		for (Vec3i pos : positions)
+		{
+			try
 			{
-				// Need to save
-				// Position (Cx, Cz)
-				// Opaque heightmap (opaqueColumns)
+				ByteBuffer record = mapRecord(pos.getX(), pos.getZ());
 				
-				// Each column costs 264 bytes to store
-				// cX, cZ: 4+4 bytes
-				// opaqueColumns: 256 bytes
+				if (record == null)
+					continue;
 				
-				// Save format
-				// cX | cZ | opaqueColumns
-				byte[] columnBytes = serializeColumn(column);
-				stream.write(columnBytes);
+				foundPositions.add(pos);
+				decodes.add(codecPool.submit(() -> deserializeColumnRecord(record)));
+			} catch (IOException e)
+			{
+				System.err.println("Unable to load column (" + pos.getX() + ", " + pos.getZ() + ")");
+				e.printStackTrace();
 			}
-			
-			///////////////////////////////////////////////////////////////////
-			// Iterate through all of the loaded chunks in the world to
-			// determine the save count
-			int chunkEntries = 0;
-			for (Chunk chunk : world.chunkManager.loadedChunks.values())
+		}
+		
+		List<LoadedColumn> loadedColumns = new ArrayList<>(decodes.size());
+		for (int i = 0; i < decodes.size(); i++)
+		{
+			try
+			{
+				loadedColumns.add(decodes.get(i).get());
+			} catch (InterruptedException | ExecutionException e)
 			{
-				if (!chunk.isEmpty())
-					++chunkEntries;
+				Vec3i pos = foundPositions.get(i);
+				System.err.println("Unable to load column (" + pos.getX() + ", " + pos.getZ() + ")");
+				e.printStackTrace();
 			}
+		}
+		
+		publishColumns(loadedColumns);
+		return loadedColumns.size();
+	}
+	
+	/**
+	 * Reads in a column record, without adding it to the chunk manager
+	 * Safe to call from any thread
+	 * @param columnX The x position of the column to read
+	 * @param columnZ The z position of the column to read
+	 * @return The decoded column, or null if the column was never saved
+	 * @throws IOException If the record can't be read or decoded
+	 */
+	LoadedColumn readColumn(int columnX, int columnZ) throws IOException
+	{
+		ByteBuffer record = mapRecord(columnX, columnZ);
+		
+		if (record == null)
+			return null;
+		
+		return deserializeColumnRecord(record);
+	}
+	
+	/**
+	 * Gets where the column's record is in its region file
+	 * @param columnX The x position of the column
+	 * @param columnZ The z position of the column
+	 * @return The starting sector of the record, or 0 if it doesn't exist
+	 */
+	int getRecordOffset(int columnX, int columnZ)
+	{
+		try
+		{
+			RegionFile region = getRegion(columnX, columnZ, false);
+			return region != null ? region.getRecordOffset(columnX, columnZ) : 0;
+		} catch (IOException e)
+		{
+			return 0;
+		}
+	}
+	
+	// Gets a copy of the record for the given column, or null if it was never saved
+	private ByteBuffer mapRecord(int columnX, int columnZ) throws IOException
+	{
+		RegionFile region = getRegion(columnX, columnZ, false);
+		
+		// Missing region means the column was never saved
+		if (region == null)
+			return null;
+		
+		// Chunk data gets copied straight out of the mapped region file
+		return region.readMapped(columnX, columnZ);
+	}
+	
+	/**
+	 * Adds the loaded columns & their chunks to the chunk manager
+	 * Must be called from the thread that owns the chunk manager
+	 * @param loadedColumns The columns to add
+	 */
+	void publishColumns(List<LoadedColumn> loadedColumns)
+	{
+		ChunkManager chunkManager = world.chunkManager;
+		
+		for (LoadedColumn loaded : loadedColumns)
+		{
+			ChunkColumn column = loaded.column;
+			chunkManager.chunkColumns.put(new Vec3i(column.columnX, 0, column.columnZ), column);
 			
-			stream.write(serializeInt(chunkEntries)); // Chunk Entry Count
-			
-			// Iterate through all of the loaded chunks in the world again to
-			// actually save them
-			for (Chunk chunk : world.chunkManager.loadedChunks.values())
+			for (Chunk chunk : loaded.chunks)
+				chunkManager.loadedChunks.put(new Vec3i(chunk.chunkX, chunk.chunkY, chunk.chunkZ), chunk);
+		}
+		
+		// Rebuild the fields once all of the chunks are in
+		for (LoadedColumn loaded : loadedColumns)
+		{
+			for (Chunk chunk : loaded.chunks)
 			{
-				// Skip empty chunks
-				if (chunk.isEmpty())
-					continue;
-				
-				// Need to save
-				// Position (Cx, Cy, Cz)
-				// Block Lighting (blockLights)
-				// Block Data (blockData)
-				
-				// Don't need to save but still save
-				// Block count (blockCount, saved for compatibility)
-				// blockLayers (blockLayers, saved for compatibility)
-				
-				// Don't need to save
-				// isEmpty (implied in block count)
-				// needsRebuild & isDirty (only used during runtime)
-				// recentlyGenerated (only used to generate the chunk's ChunkModel)
-				
-				// Each chunk costs 4622 Bytes / ~4KiB to store
-				// blockData: 4096 bytes
-				// blockLighting: 512 bytes
-				// chunkX, chunkY, chunkZ: 4+4+4 bytes
-				// blockCount: 2 bytes
-				
-				// Save Format:
-				// cX | cY | cZ | blockCount | blockLayers | blockLighting | blockData | blockMeta  ~ tickablesCount | tickables
-				// Always stored in big endian
-				byte[] chunkBytes = serializeChunk(chunk);
-				stream.write(chunkBytes);
+				chunk.chunkField.rebuildField();
+				chunk.chunkField.rebuildNeighborFields();
 			}
+		}
+	}
+	
+	/**
+	 * Waits for pending saves to finish, then closes all of the open region files
+	 */
+	public void close()
+	{
+		ioScheduler.shutdown();
+		ioExecutor.shutdown();
+		codecPool.shutdown();
+		
+		try
+		{
+			ioExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e)
+		{
+			e.printStackTrace();
+		}
+		
+		try
+		{
+			journal.close();
 		} catch (IOException e)
 		{
 			e.printStackTrace();
 		}
-		System.out.println("Finished saving world");
+		
+		closeRegions();
+	}
+	
+	private synchronized void closeRegions()
+	{
+		for (RegionFile region : openRegions.values())
+		{
+			try
+			{
+				region.close();
+			} catch (IOException e)
+			{
+				e.printStackTrace();
+			}
+		}
+		
+		openRegions.clear();
+	}
+	
+	// Forces all of the region writes out to disk
+	private synchronized void flushRegions() throws IOException
+	{
+		for (RegionFile region : openRegions.values())
+			region.flush();
+	}
+	
+	/**
+	 * Gets the region file holding the given column
+	 * @param columnX The x position of the column
+	 * @param columnZ The z position of the column
+	 * @param create Whether to create the region file if it doesn't exist
+	 * @return The region file, or null if it doesn't exist and isn't created
+	 * @throws IOException If the region file can't be opened
+	 */
+	private synchronized RegionFile getRegion(int columnX, int columnZ, boolean create) throws IOException
+	{
+		int regionX = Math.floorDiv(columnX, RegionFile.REGION_SIZE);
+		int regionZ = Math.floorDiv(columnZ, RegionFile.REGION_SIZE);
+		long regionKey = (Integer.toUnsignedLong(regionX) << 32) | Integer.toUnsignedLong(regionZ);
+		
+		RegionFile region = openRegions.get(regionKey);
+		if (region != null)
+			return region;
+		
+		File regionPath = new File(regionDir, RegionFile.getFileName(columnX, columnZ));
+		if (!regionPath.exists())
+		{
+			if (!create)
+				return null;
+			
+			if (!regionDir.exists() && !regionDir.mkdirs())
+				throw new IOException("Unable to create the region directory " + regionDir);
+		}
+		
+		region = new RegionFile(regionPath);
+		openRegions.put(regionKey, region);
+		return region;
 	}
 	
 	/**
@@ -162,93 +602,178 @@ public class WorldSave
 	{
 		System.out.println("Loading world from " + saveFile);
 		// Build the chunk data
-		try (FileInputStream fis = new FileInputStream(saveFile))
+		try (FileChannel channel = FileChannel.open(Paths.get(saveFile), StandardOpenOption.READ))
 		{
-			// Temporary holder
-			byte[] intBytes = new byte[4];
-			
-			// Skip the header magic
-			long skipped = fis.skip(SAVE_MAGIC.length);
+			// The whole file is mapped in, and read straight into the chunks
+			ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.BIG_ENDIAN);
 			
 			// Sanity check
-			if (skipped != SAVE_MAGIC.length)
+			if (buf.remaining() < SAVE_MAGIC.length + Integer.BYTES + Long.BYTES)
 			{
 				System.err.println("Error: save file is too small!");
 				return false;
 			}
 			
+			// Skip the header magic
+			buf.position(SAVE_MAGIC.length);
+			
 			// saveVersion (int): World's save version
-			fis.read(intBytes);
-			int saveVersion = deserializeInt(intBytes);
+			int saveVersion = buf.getInt();
 			
 			// worldSeed (long): Seed used in world generation
 			
 			// Fetch the seed
-			byte[] seedBytes = new byte[8];
-			fis.read(seedBytes);
-			long seed = deserializeLong(seedBytes);
+			long seed = buf.getLong();
 			world.setWorldSeed(seed);
 			
+			if (saveVersion > LAST_SINGLE_FILE_VERSION)
+			{
+				// Column data is loaded from the region files on demand,
+				// only need to bring in the area around spawn
+				loadSpawnArea();
+				replayJournal();
+				System.out.println("Successfully loaded world");
+				return true;
+			}
+			
 			// Build the column data
-			fis.read(intBytes);
-			int columnEntries = deserializeInt(intBytes);
+			int columnEntries = buf.getInt();
 			
-			byte[] columnData = new byte[COLUMN_ENTRY_SIZE];
 			for (int i = 0; i < columnEntries; i++)
 			{
-				fis.read(columnData);
-				ChunkColumn column = deserializeColumn(columnData);
+				ChunkColumn column = deserializeColumn(buf);
 				world.chunkManager.chunkColumns.put(new Vec3i(column.columnX, 0, column.columnZ), column);
 			}
 			
 			if (saveVersion == 0)
-				loadChunksV0(fis);
+				loadChunksV0(buf);
 			else
-				loadChunksV1(fis);
-		} catch (IOException e)
+				loadChunksV1(buf);
+		} catch (IOException | BufferUnderflowException e)
 		{
 			System.out.println("Failed to load a world from " + saveFile + ", generating a new one");
 			e.printStackTrace();
 			return false;
 		}
 		
+		// Move the single file world over to the region format
+		convertSingleFileSave();
+		
 		System.out.println("Successfully loaded world");
 		return true;
 	}
 	
-	private void loadChunksV0(FileInputStream fis) throws IOException
+	/**
+	 * Converts a loaded V0/V1 single file world into the region format
+	 * The old save file is kept around as "saveFile.v1.bak"
+	 */
+	private void convertSingleFileSave()
+	{
+		System.out.println("Converting " + saveFile + " to the region format");
+		
+		try
+		{
+			// Columns & chunks are already loaded in from the single file
+			for (ChunkColumn column : world.chunkManager.chunkColumns.values())
+				saveColumn(column);
+			flushRegions();
+			
+			// Keep the old file around, in case anything went wrong
+			Files.copy(Paths.get(saveFile), Paths.get(saveFile + ".v1.bak"), StandardCopyOption.REPLACE_EXISTING);
+			writeHeader(world.getWorldSeed());
+		} catch (IOException e)
+		{
+			System.err.println("Unable to convert the world save! The old save file will be kept");
+			e.printStackTrace();
+		}
+	}
+	
+	// Applies the changes made after the last save, and saves them in
+	private void replayJournal()
 	{
-		// Temporary holder
-		byte[] intBytes = new byte[4];
+		try
+		{
+			int replayed = journal.replay(world);
+			
+			if (replayed == 0)
+				return;
+			
+			System.out.println("Replayed " + replayed + " block changes from the journal");
+			save();
+		} catch (IOException e)
+		{
+			System.err.println("Unable to replay the block journal, recent changes may be lost");
+			e.printStackTrace();
+		}
+	}
+	
+	// Loads or generates the columns around the spawn point
+	private void loadSpawnArea()
+	{
+		List<Vec3i> spawnColumns = new ArrayList<>();
+		
+		for (int cx = -SPAWN_RADIUS; cx <= SPAWN_RADIUS; cx++)
+		{
+			for (int cz = -SPAWN_RADIUS; cz <= SPAWN_RADIUS; cz++)
+			{
+				if (!world.chunkManager.isColumnReady(cx, cz))
+					spawnColumns.add(new Vec3i(cx, 0, cz));
+			}
+		}
+		
+		// Bring in all of the saved columns together
+		loadColumns(spawnColumns);
 		
+		// Generate the rest
+		for (Vec3i pos : spawnColumns)
+		{
+			if (!world.chunkManager.isColumnReady(pos.getX(), pos.getZ()))
+				world.chunkManager.loadColumnNow(pos.getX(), pos.getZ());
+		}
+	}
+	
+	private void loadChunksV0(ByteBuffer buf)
+	{
 		// Build the chunk data
-		fis.read(intBytes);
-		int chunkEntries = deserializeInt(intBytes);
+		int chunkEntries = buf.getInt();
 		
-		byte[] chunkData = new byte[CHUNK_ENTRY_SIZE0];
 		for (int i = 0; i < chunkEntries; i++)
 		{
-			fis.read(chunkData);
-			Chunk chunk = deserializeChunkV0(chunkData);
+			Chunk chunk = deserializeChunkV0(buf);
 			world.chunkManager.loadedChunks.put(new Vec3i(chunk.chunkX, chunk.chunkY, chunk.chunkZ), chunk);
 		}
 	}
 	
-	private void loadChunksV1(FileInputStream fis) throws IOException
+	private void loadChunksV1(ByteBuffer buf) throws IOException
 	{
-		byte[] intBytes = new byte[4];
-		
 		// Build the chunk data
-		fis.read(intBytes);
-		int chunkEntries = deserializeInt(intBytes);
+		int chunkEntries = buf.getInt();
+		List<Future<Chunk>> decodes = new ArrayList<>(chunkEntries);
 		
-		byte[] chunkData = new byte[CHUNK_FIXED_ENTRY_SIZE_V1];
 		for (int i = 0; i < chunkEntries; i++)
 		{
-			// Read in fixed area (deserializeChunkV1 takes care of variable ended data)
-			fis.read(chunkData);
-			Chunk chunk = deserializeChunkV1(chunkData, fis);
-			world.chunkManager.loadedChunks.put(new Vec3i(chunk.chunkX, chunk.chunkY, chunk.chunkZ), chunk);
+			// Find where the entry ends, from the tickables count at the end of the fixed area
+			int tickerCount = Short.toUnsignedInt(buf.getShort(buf.position() + CHUNK_FIXED_ENTRY_SIZE_V1 - Short.BYTES));
+			int entrySize = CHUNK_FIXED_ENTRY_SIZE_V1 + tickerCount * Chunk.TICKPOS_BYTES;
+			
+			ByteBuffer entry = buf.slice();
+			entry.limit(entrySize);
+			buf.position(buf.position() + entrySize);
+			
+			// V1 chunk entries are the same as the ones in the column records
+			decodes.add(codecPool.submit(() -> deserializeChunk(entry)));
+		}
+		
+		try
+		{
+			for (Future<Chunk> decode : decodes)
+			{
+				Chunk chunk = decode.get();
+				world.chunkManager.loadedChunks.put(new Vec3i(chunk.chunkX, chunk.chunkY, chunk.chunkZ), chunk);
+			}
+		} catch (InterruptedException | ExecutionException e)
+		{
+			throw new IOException("Unable to decode the chunks", e);
 		}
 	}
 	
@@ -264,19 +789,19 @@ public class WorldSave
 	}
 	
 	/**
-	 * Serializes the chunk into a series of bytes
+	 * Serializes the chunk snapshot into a series of bytes
 	 * The byte order is always big endian
-	 * @param chunk The chunk to serialize
+	 * @param chunk The chunk snapshot to serialize
 	 * @return The serialized version of the chunk
 	 */
-	private byte[] serializeChunk(Chunk chunk)
+	private byte[] serializeSection(ColumnSnapshot.Section chunk)
 	{
 		// Save Format:
 		// cX | cY | cZ | blockCount | blockLayers | blockLighting | blockData | blockMeta  ~ tickablesCount | tickables
-		int chunkSaveSize = CHUNK_FIXED_ENTRY_SIZE_V1 + chunk.tickables.size() * Chunk.TICKPOS_BYTES;
+		int[] tickables = chunk.getTickables();
+		int chunkSaveSize = CHUNK_FIXED_ENTRY_SIZE_V1 + tickables.length * Chunk.TICKPOS_BYTES;
 		
-		byte[] data = new byte[chunkSaveSize];
-		ByteBuffer buf = ByteBuffer.allocate(data.length).order(ByteOrder.BIG_ENDIAN);
+		ByteBuffer buf = ByteBuffer.allocate(chunkSaveSize).order(ByteOrder.BIG_ENDIAN);
 		
 		// Serialize the chunk in the specified format
 		buf.putInt(chunk.chunkX);
@@ -284,7 +809,7 @@ public class WorldSave
 		buf.putInt(chunk.chunkZ);
 		
 		// Fixed area
-		buf.putShort(chunk.getBlockCount());
+		buf.putShort(chunk.blockCount);
 		
 		for (short s : chunk.getLayerData())
 			buf.putShort(s);
@@ -292,26 +817,114 @@ public class WorldSave
 		buf.put(chunk.getData());
 		buf.put(chunk.getMetaData());
 		
-		buf.putShort((short)chunk.tickables.size());
+		buf.putShort((short)tickables.length);
 		
 		// Variable area
-		for (int tickerPos : chunk.tickables)
+		for (int tickerPos : tickables)
 			buf.put(serializeMedium(tickerPos));
-		buf.flip();
 		
-		buf.get(data);
-		buf.flip();
+		return buf.array();
+	}
+	
+	/**
+	 * Serializes a column record, holding the column & all of its non-empty chunks
+	 * The byte order is always big endian
+	 * @param column The column snapshot to serialize
+	 * @return The serialized column record
+	 */
+	private byte[] serializeColumnRecord(ColumnSnapshot column)
+	{
+		// Column Record Format:
+		// recordFormat | codecId | cX | cZ | opaqueColumns | chunkCount | sections
+		SectionCodec sectionCodec = codec;
+		List<byte[]> encodedSections = new ArrayList<>();
+		List<Integer> rawLengths = new ArrayList<>();
+		int recordSize = 2 + COLUMN_ENTRY_SIZE + Short.BYTES;
 		
-		return data;
+		for (ColumnSnapshot.Section chunk : column.getSections())
+		{
+			// Each section is compressed on its own
+			byte[] chunkBytes = serializeSection(chunk);
+			byte[] encodedBytes = sectionCodec.compress(chunkBytes);
+			
+			rawLengths.add(chunkBytes.length);
+			encodedSections.add(encodedBytes);
+			recordSize += Integer.BYTES * 2 + encodedBytes.length;
+		}
+		
+		ByteBuffer buf = ByteBuffer.allocate(recordSize).order(ByteOrder.BIG_ENDIAN);
+		buf.put(COLUMN_RECORD_FORMAT);
+		buf.put(sectionCodec.getId());
+		buf.put(serializeColumn(column.columnX, column.columnZ, column.getOpaqueColumnData()));
+		buf.putShort((short)encodedSections.size());
+		
+		for (int i = 0; i < encodedSections.size(); i++)
+		{
+			buf.putInt(rawLengths.get(i));
+			buf.putInt(encodedSections.get(i).length);
+			buf.put(encodedSections.get(i));
+		}
+		
+		return buf.array();
+	}
+	
+	/**
+	 * Deserializes a column record
+	 * Doesn't touch the chunk manager, so records can be decoded on any thread
+	 * @param buf The buffer holding the column record to deserialize
+	 * @return The column & its chunks
+	 * @throws IOException If the record format or codec is unknown, or the record is corrupted
+	 */
+	private LoadedColumn deserializeColumnRecord(ByteBuffer buf) throws IOException
+	{
+		SectionCodec sectionCodec = null;
+		
+		try
+		{
+			byte recordFormat = buf.get();
+			
+			if (recordFormat == COLUMN_RECORD_FORMAT)
+			{
+				byte codecId = buf.get();
+				sectionCodec = SectionCodecs.byId(codecId);
+				
+				if (sectionCodec == null)
+					throw new IOException("Unknown section codec " + codecId);
+			}
+			else if (recordFormat != COLUMN_RECORD_FORMAT_RAW)
+			{
+				throw new IOException("Unknown column record format " + recordFormat);
+			}
+			
+			ChunkColumn column = deserializeColumn(buf);
+			
+			int chunkCount = Short.toUnsignedInt(buf.getShort());
+			List<Chunk> chunks = new ArrayList<>(chunkCount);
+			
+			for (int i = 0; i < chunkCount; i++)
+			{
+				if (sectionCodec == null)
+					chunks.add(deserializeChunk(buf));
+				else
+					chunks.add(deserializeSection(buf, sectionCodec));
+			}
+			
+			return new LoadedColumn(column, chunks);
+		} catch (BufferUnderflowException e)
+		{
+			throw new IOException("Column record is truncated", e);
+		}
 	}
 	
 	/**
 	 * Serializes the chunk column into a series of bytes
 	 * The byte order is always big endian
-	 * @param column The chunk colimn to serialize
+	 * @param columnX The x position of the column
+	 * @param columnZ The z position of the column
+	 * @param opaqueColumns The column's opaque heights
 	 * @return The serialized version of the chunk column
 	 */
-	private byte[] serializeColumn(ChunkColumn column)
+	private byte[] serializeColumn(int columnX, int columnZ, byte[] opaqueColumns)
 	{
 		// Save format
 		// cX | cZ | opaqueColumns
@@ -319,9 +932,9 @@ public class WorldSave
 		ByteBuffer buf = ByteBuffer.allocate(data.length).order(ByteOrder.BIG_ENDIAN);
 		
 		// Serialize the chunk in the specified format
-		buf.putInt(column.columnX);
-		buf.putInt(column.columnZ);
-		buf.put(column.getOpaqueColumnData());
+		buf.putInt(columnX);
+		buf.putInt(columnZ);
+		buf.put(opaqueColumns);
 		buf.flip();
 		
 		buf.get(data);
@@ -364,40 +977,8 @@ public class WorldSave
 		};
 	}
 	
-	private int deserializeInt(byte[] bytes)
+	private Chunk deserializeChunkV0(ByteBuffer buf)
 	{
-		return    (Byte.toUnsignedInt(bytes[0]) << 24)
-				| (Byte.toUnsignedInt(bytes[1]) << 16)
-				| (Byte.toUnsignedInt(bytes[2]) << 8)
-				| (Byte.toUnsignedInt(bytes[3]) << 0);
-	}
-	
-	// 3 byte num
-	private int deserializeMedium(byte[] bytes)
-	{
-		return    (Byte.toUnsignedInt(bytes[1]) << 16)
-				| (Byte.toUnsignedInt(bytes[2]) << 8)
-				| (Byte.toUnsignedInt(bytes[3]) << 0);
-	}
-	
-	private long deserializeLong(byte[] bytes)
-	{
-		return    (Byte.toUnsignedLong(bytes[0]) << 56)
-				| (Byte.toUnsignedLong(bytes[1]) << 48)
-				| (Byte.toUnsignedLong(bytes[2]) << 40)
-				| (Byte.toUnsignedLong(bytes[3]) << 32)
-				| (Byte.toUnsignedLong(bytes[4]) << 24)
-				| (Byte.toUnsignedLong(bytes[5]) << 16)
-				| (Byte.toUnsignedLong(bytes[6]) << 8)
-				| (Byte.toUnsignedLong(bytes[7]) << 0);
-	}
-	
-	private Chunk deserializeChunkV0(byte[] data)
-	{
-		final ByteBuffer buf = ByteBuffer.allocate(CHUNK_ENTRY_SIZE0);
-		buf.put(data);
-		buf.flip();
-		
 		// Save Format:
 		// cX | cY | cZ | blockCount | blockLighting | blockData
 		
@@ -422,12 +1003,31 @@ public class WorldSave
 		return chunk;
 	}
 	
-	private Chunk deserializeChunkV1(byte[] data, FileInputStream fis) throws IOException
+	// Decodes & deserializes a compressed chunk section
+	private Chunk deserializeSection(ByteBuffer buf, SectionCodec sectionCodec) throws IOException
 	{
-		ByteBuffer buf = ByteBuffer.allocate(data.length).order(ByteOrder.BIG_ENDIAN);
-		buf.put(data);
-		buf.flip();
+		int rawLength = buf.getInt();
+		int encodedLength = buf.getInt();
+		
+		if (rawLength < CHUNK_FIXED_ENTRY_SIZE_V1 || rawLength > MAX_CHUNK_ENTRY_SIZE || encodedLength < 0 || encodedLength > buf.remaining())
+			throw new IOException("Bad section lengths (raw " + rawLength + ", encoded " + encodedLength + ")");
+		
+		ByteBuffer encoded = buf.slice();
+		encoded.limit(encodedLength);
+		buf.position(buf.position() + encodedLength);
+		
+		// Uncompressed sections can be read straight out of the record
+		if (sectionCodec.getId() == RawCodec.ID)
+			return deserializeChunk(encoded);
 		
+		byte[] chunkBytes = new byte[rawLength];
+		sectionCodec.decompress(encoded, chunkBytes);
+		
+		return deserializeChunk(ByteBuffer.wrap(chunkBytes).order(ByteOrder.BIG_ENDIAN));
+	}
+	
+	private Chunk deserializeChunk(ByteBuffer buf)
+	{
 		// Save Format:
 		// cX | cY | cZ | blockCount | blockLayers | blockLighting | blockData | blockMeta ~ tickablesCount | tickables
 		
@@ -439,41 +1039,31 @@ public class WorldSave
 		// Fetch the block count (never used, always recalculated)
 		short blockCount = buf.getShort();
 		
-		short[] blockLayers = new short[Chunk.LAYER_DATA_SIZE];
-		byte[] blockLighting = new byte[Chunk.LIGHT_DATA_SIZE];
-		byte[] blockData = new byte[Chunk.BLOCK_DATA_SIZE];
-		byte[] blockMeta = new byte[Chunk.META_DATA_SIZE];
+		// Block layers are always recalculated
+		buf.position(buf.position() + Chunk.LAYER_DATA_SIZE * Short.BYTES);
 		
-		for(int i = 0; i < blockLayers.length; i++)
-			blockLayers[i] = buf.getShort();
-		buf.get(blockLighting);
-		buf.get(blockData);
-		buf.get(blockMeta);
+		// Block lighting, data & meta are copied straight into the chunk later
+		ByteBuffer chunkData = buf.slice();
+		buf.position(buf.position() + Chunk.LIGHT_DATA_SIZE + Chunk.BLOCK_DATA_SIZE + Chunk.META_DATA_SIZE);
 		
-		// Fetch the tickables count
-		int tickerCount = buf.getShort();
+		// Fetch the tickables
+		int tickerCount = Short.toUnsignedInt(buf.getShort());
 		int[] tickables = new int[tickerCount];
 		
-		byte[] tickPos = new byte[Chunk.TICKPOS_BYTES];
-		
 		for (int i = 0; i < tickerCount; i++)
 		{
-			// Read from the file
-			fis.read(tickPos);
-			tickables[i] = deserializeMedium(tickPos);
+			tickables[i] = (Byte.toUnsignedInt(buf.get()) << 16)
+					| (Byte.toUnsignedInt(buf.get()) << 8)
+					| (Byte.toUnsignedInt(buf.get()) << 0);
 		}
 		
 		Chunk chunk = new Chunk(world, cx, cy, cz);
-		chunk.deserialize(blockData, blockLighting, blockMeta, tickables);
+		chunk.deserialize(chunkData, tickables);
 		return chunk;
 	}
 	
-	private ChunkColumn deserializeColumn(byte[] data)
+	private ChunkColumn deserializeColumn(ByteBuffer buf)
 	{
-		final ByteBuffer buf = ByteBuffer.allocate(COLUMN_ENTRY_SIZE);
-		buf.put(data);
-		buf.flip();
-		
 		// Save format
 		// cX | cZ | opaqueColumns
 		
@@ -488,4 +1078,17 @@ public class WorldSave
 		return new ChunkColumn(cx, cz, opaqueColumns);
 	}
 	
+	// A decoded column that hasn't been added to the chunk manager yet
+	static class LoadedColumn
+	{
+		final ChunkColumn column;
+		final List<Chunk> chunks;
+		
+		LoadedColumn(ChunkColumn column, List<Chunk> chunks)
+		{
+			this.column = column;
+			this.chunks = chunks;
+		}
+	}
+	
 }
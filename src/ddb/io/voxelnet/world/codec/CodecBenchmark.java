@@ -0,0 +1,118 @@
+package ddb.io.voxelnet.world.codec;
+
+import ddb.io.voxelnet.block.Block;
+import ddb.io.voxelnet.fluid.Fluid;
+import ddb.io.voxelnet.world.ChunkColumn;
+import ddb.io.voxelnet.world.World;
+import ddb.io.voxelnet.world.WorldSave;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compares the save size, save time, and load time of each section codec
+ * on a freshly generated world
+ */
+public class CodecBenchmark
+{
+	// Number of times each codec is run, keeping the best time
+	private static final int RUNS = 3;
+	
+	public static void main(String[] args) throws IOException
+	{
+		Block.init();
+		Fluid.init();
+		
+		World world = new World(false);
+		world.generate();
+		
+		List<ChunkColumn> columns = new ArrayList<>();
+		for (ChunkColumn column : world.chunkManager.chunkColumns.values())
+		{
+			// Partially generated columns are never saved
+			if (column.isReady())
+				columns.add(column);
+		}
+		
+		SectionCodec[] codecs = new SectionCodec[] {
+				SectionCodecs.NONE,
+				SectionCodecs.RLE,
+				new DeflateCodec(1),
+				new DeflateCodec(6),
+				new DeflateCodec(9),
+		};
+		List<String> results = new ArrayList<>();
+		
+		for (SectionCodec codec : codecs)
+		{
+			Path saveDir = Files.createTempDirectory("voxelnet-codec");
+			File saveFile = saveDir.resolve("world.dat").toFile();
+			long bestSave = Long.MAX_VALUE;
+			long bestLoad = Long.MAX_VALUE;
+			long recordBytes = 0;
+			
+			for (int run = 0; run < RUNS; run++)
+			{
+				// Save all of the columns
+				WorldSave worldSave = new WorldSave(world, saveFile.getPath());
+				worldSave.setCodec(codec);
+				recordBytes = 0;
+				
+				long start = System.nanoTime();
+				for (ChunkColumn column : columns)
+					recordBytes += worldSave.saveColumn(column);
+				worldSave.close();
+				bestSave = Math.min(bestSave, System.nanoTime() - start);
+				
+				// Load them back into a new world
+				World loadWorld = new World(false);
+				WorldSave loadSave = new WorldSave(loadWorld, saveFile.getPath());
+				
+				start = System.nanoTime();
+				for (ChunkColumn column : columns)
+					loadSave.loadColumn(column.columnX, column.columnZ);
+				bestLoad = Math.min(bestLoad, System.nanoTime() - start);
+				loadSave.close();
+			}
+			
+			// Records are padded out to whole sectors on disk
+			long diskSize = getRegionSize(saveDir.resolve("region"));
+			String name = codec.getName() + (codec instanceof DeflateCodec ? "-" + ((DeflateCodec) codec).getLevel() : "");
+			results.add(String.format("%-10s %10d KiB %10d KiB %10.1f ms %10.1f ms", name, recordBytes / 1024, diskSize / 1024, bestSave / 1e6, bestLoad / 1e6));
+			
+			deleteAll(saveDir);
+		}
+		
+		System.out.println();
+		System.out.println("Results for " + columns.size() + " columns (best of " + RUNS + ")");
+		System.out.println(String.format("%-10s %14s %14s %13s %13s", "codec", "records", "on disk", "save", "load"));
+		results.forEach(System.out::println);
+	}
+	
+	private static long getRegionSize(Path regionDir) throws IOException
+	{
+		long size = 0;
+		
+		try (Stream<Path> files = Files.list(regionDir))
+		{
+			for (Path file : (Iterable<Path>) files::iterator)
+				size += Files.size(file);
+		}
+		
+		return size;
+	}
+	
+	private static void deleteAll(Path dir) throws IOException
+	{
+		try (Stream<Path> files = Files.walk(dir))
+		{
+			files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package ddb.io.voxelnet.world.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codec which compresses the sections with zlib's deflate
+ */
+public class DeflateCodec implements SectionCodec
+{
+	public static final byte ID = 1;
+	
+	// Compression level to use, from 0 - 9
+	private final int level;
+	
+	/**
+	 * Creates a new deflate codec
+	 * @param level The compression level to use, from 0 (none) to 9 (smallest)
+	 */
+	public DeflateCodec(int level)
+	{
+		if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+			throw new IllegalArgumentException("Bad compression level " + level);
+		
+		this.level = level;
+	}
+	
+	/**
+	 * Gets the compression level used by the codec
+	 * @return The compression level, from 0 - 9
+	 */
+	public int getLevel()
+	{
+		return level;
+	}
+	
+	@Override
+	public byte getId()
+	{
+		return ID;
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "deflate";
+	}
+	
+	@Override
+	public byte[] compress(byte[] data)
+	{
+		Deflater deflater = new Deflater(level);
+		
+		try
+		{
+			deflater.setInput(data);
+			deflater.finish();
+			
+			ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 4);
+			byte[] buffer = new byte[4096];
+			
+			while (!deflater.finished())
+			{
+				int written = deflater.deflate(buffer);
+				output.write(buffer, 0, written);
+			}
+			
+			return output.toByteArray();
+		} finally
+		{
+			deflater.end();
+		}
+	}
+	
+	@Override
+	public void decompress(ByteBuffer src, byte[] dest) throws IOException
+	{
+		byte[] input;
+		int inputOffset;
+		int inputLength = src.remaining();
+		
+		if (src.hasArray())
+		{
+			input = src.array();
+			inputOffset = src.arrayOffset() + src.position();
+		}
+		else
+		{
+			// Mapped buffers need to be copied out first
+			input = new byte[inputLength];
+			inputOffset = 0;
+			src.duplicate().get(input);
+		}
+		
+		Inflater inflater = new Inflater();
+		
+		try
+		{
+			inflater.setInput(input, inputOffset, inputLength);
+			int inflated = 0;
+			
+			while (!inflater.finished() && inflated < dest.length)
+			{
+				int read = inflater.inflate(dest, inflated, dest.length - inflated);
+				
+				if (read == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				
+				inflated += read;
+			}
+			
+			// Consume the end of the stream, which should have no more data
+			if (!inflater.finished() && inflated == dest.length && inflater.inflate(new byte[1]) != 0)
+				throw new IOException("Deflated section is longer than " + dest.length + " bytes");
+			
+			if (!inflater.finished() || inflated != dest.length)
+				throw new IOException("Deflated section has the wrong length, expected " + dest.length + " bytes");
+			
+			src.position(src.limit());
+		} catch (DataFormatException e)
+		{
+			throw new IOException("Corrupted deflated section", e);
+		} finally
+		{
+			inflater.end();
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package ddb.io.voxelnet.world.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Codec which stores the sections without any compression
+ */
+public class RawCodec implements SectionCodec
+{
+	public static final byte ID = 0;
+	
+	@Override
+	public byte getId()
+	{
+		return ID;
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "none";
+	}
+	
+	@Override
+	public byte[] compress(byte[] data)
+	{
+		return data;
+	}
+	
+	@Override
+	public void decompress(ByteBuffer src, byte[] dest) throws IOException
+	{
+		if (src.remaining() != dest.length)
+			throw new IOException("Raw section is " + src.remaining() + " bytes, expected " + dest.length);
+		
+		src.get(dest);
+	}
+}
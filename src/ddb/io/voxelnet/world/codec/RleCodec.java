@@ -0,0 +1,124 @@
+package ddb.io.voxelnet.world.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Codec which run-length encodes the sections
+ *
+ * Chunk data is mostly long runs of the same block, light level, or meta,
+ * which this handles nearly as well as deflate at a fraction of the cost
+ */
+public class RleCodec implements SectionCodec
+{
+	public static final byte ID = 2;
+	
+	// Encoded Format:
+	// Series of packets: control (byte) | data
+	// control < 128: (control + 1) literal bytes follow
+	// control >= 128: The next byte is repeated (control - 128 + MIN_RUN) times
+	private static final int MIN_RUN = 3;
+	private static final int MAX_RUN = 127 + MIN_RUN;
+	private static final int MAX_LITERALS = 128;
+	
+	@Override
+	public byte getId()
+	{
+		return ID;
+	}
+	
+	@Override
+	public String getName()
+	{
+		return "rle";
+	}
+	
+	@Override
+	public byte[] compress(byte[] data)
+	{
+		// Worst case is all literals, with a control byte every 128 bytes
+		byte[] output = new byte[data.length + (data.length + MAX_LITERALS - 1) / MAX_LITERALS];
+		int outPos = 0;
+		int literalStart = 0;
+		int pos = 0;
+		
+		while (pos < data.length)
+		{
+			// Measure the run at the current position
+			int runLength = 1;
+			while (pos + runLength < data.length && runLength < MAX_RUN && data[pos + runLength] == data[pos])
+				runLength++;
+			
+			if (runLength < MIN_RUN)
+			{
+				pos += runLength;
+				continue;
+			}
+			
+			// Flush out the literals before the run
+			outPos = writeLiterals(data, literalStart, pos, output, outPos);
+			
+			output[outPos++] = (byte)(runLength - MIN_RUN + 128);
+			output[outPos++] = data[pos];
+			
+			pos += runLength;
+			literalStart = pos;
+		}
+		
+		outPos = writeLiterals(data, literalStart, data.length, output, outPos);
+		return Arrays.copyOf(output, outPos);
+	}
+	
+	@Override
+	public void decompress(ByteBuffer src, byte[] dest) throws IOException
+	{
+		int outPos = 0;
+		
+		while (src.hasRemaining())
+		{
+			int control = Byte.toUnsignedInt(src.get());
+			
+			if (control < 128)
+			{
+				int count = control + 1;
+				
+				if (outPos + count > dest.length || src.remaining() < count)
+					throw new IOException("Corrupted RLE section, literals run past the end");
+				
+				src.get(dest, outPos, count);
+				outPos += count;
+			}
+			else
+			{
+				int count = control - 128 + MIN_RUN;
+				
+				if (outPos + count > dest.length || !src.hasRemaining())
+					throw new IOException("Corrupted RLE section, run goes past the end");
+				
+				Arrays.fill(dest, outPos, outPos + count, src.get());
+				outPos += count;
+			}
+		}
+		
+		if (outPos != dest.length)
+			throw new IOException("RLE section has the wrong length, expected " + dest.length + " bytes but got " + outPos);
+	}
+	
+	// Writes out the literals in [start, end), split into packets
+	private static int writeLiterals(byte[] data, int start, int end, byte[] output, int outPos)
+	{
+		while (start < end)
+		{
+			int count = Math.min(end - start, MAX_LITERALS);
+			
+			output[outPos++] = (byte)(count - 1);
+			System.arraycopy(data, start, output, outPos, count);
+			
+			outPos += count;
+			start += count;
+		}
+		
+		return outPos;
+	}
+}
@@ -0,0 +1,40 @@
+package ddb.io.voxelnet.world.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compression codec used on the chunk sections in the column records
+ *
+ * Codecs must be safe to use from multiple threads at once, as records are
+ * written on the world I/O thread while being read on the main thread
+ */
+public interface SectionCodec
+{
+	/**
+	 * Gets the ID that is stored alongside the records compressed with this codec
+	 * @return The codec ID
+	 */
+	byte getId();
+	
+	/**
+	 * Gets the name used to select this codec in the settings
+	 * @return The codec name
+	 */
+	String getName();
+	
+	/**
+	 * Compresses the given data
+	 * @param data The data to compress
+	 * @return The compressed data
+	 */
+	byte[] compress(byte[] data);
+	
+	/**
+	 * Decompresses the data into the given array
+	 * @param src The compressed data, from the current position up to the limit
+	 * @param dest The array to decompress into, sized to the original length
+	 * @throws IOException If the compressed data is corrupted
+	 */
+	void decompress(ByteBuffer src, byte[] dest) throws IOException;
+}
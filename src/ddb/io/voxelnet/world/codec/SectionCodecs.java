@@ -0,0 +1,51 @@
+package ddb.io.voxelnet.world.codec;
+
+/**
+ * Registry of all the section codecs
+ */
+public final class SectionCodecs
+{
+	public static final SectionCodec NONE = new RawCodec();
+	public static final SectionCodec DEFLATE = new DeflateCodec(6);
+	public static final SectionCodec RLE = new RleCodec();
+	
+	// Lookup by codec ID, for decoding records
+	private static final SectionCodec[] BY_ID = new SectionCodec[] { NONE, DEFLATE, RLE };
+	
+	private SectionCodecs() {}
+	
+	/**
+	 * Gets the codec used to decode records with the given codec ID
+	 * The compression level of the returned codec doesn't matter for decoding
+	 * @param id The codec ID stored in the record
+	 * @return The codec matching the ID, or null if there is none
+	 */
+	public static SectionCodec byId(int id)
+	{
+		if (id < 0 || id >= BY_ID.length)
+			return null;
+		
+		return BY_ID[id];
+	}
+	
+	/**
+	 * Creates the codec to save records with
+	 * @param name The name of the codec ("none", "deflate", or "rle")
+	 * @param level The compression level, only used by deflate
+	 * @return The codec matching the name, or null if there is none
+	 */
+	public static SectionCodec byName(String name, int level)
+	{
+		switch (name)
+		{
+			case "none":
+				return NONE;
+			case "deflate":
+				return new DeflateCodec(level);
+			case "rle":
+				return RLE;
+			default:
+				return null;
+		}
+	}
+}